@@ -0,0 +1,48 @@
+package com.richal.learn.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ *
+ * 接受与 JMH 相同的命令行参数，在此基础上默认：
+ * - 开启 GC 分析器（-prof gc），报告每次操作的分配字节数和 GC 次数
+ * - 结果以 JSON 格式写入 jmh-result.json，可以在不同提交之间直接 diff 或导入 JMH Visualizer 对比
+ *
+ * 用法（在项目根目录）：
+ * mvn -pl benchmarks -am package -DskipTests
+ * java -jar benchmarks/target/benchmarks.jar HashMapBenchmark -p mapImpl=MyHashMap,HashMap -p size=100000 -rff hashmap.json
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+        if (cmd.shouldList() || cmd.shouldListWithParams()) {
+            new Runner(cmd).list();
+            return;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+        new Runner(builder.build()).run();
+    }
+}
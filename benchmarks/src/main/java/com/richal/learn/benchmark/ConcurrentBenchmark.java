@@ -0,0 +1,129 @@
+package com.richal.learn.benchmark;
+
+import com.richal.learn.MyConcurrentLinkedQueue;
+import com.richal.learn.MyConcurrentStack;
+import com.richal.learn.MyCopyOnWriteArrayList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * 并发容器与 JDK 对应实现的吞吐量对比
+ * 所有线程共享同一个容器，线程数用 JMH 的 -t 参数指定，例如：
+ * for t in 1 2 4 8 16 32 64; do java -jar benchmarks.jar ConcurrentBenchmark -t $t -rff concurrent-$t.json; done
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ConcurrentBenchmark {
+
+    /**
+     * My：本项目的实现；Jdk：java.util.concurrent 中的对应实现
+     */
+    @Param({"My", "Jdk"})
+    String concurrentImpl;
+
+    private Runnable offerPoll;
+    private Runnable pushPop;
+    private IntFunction<Object> cowGet;
+    private Runnable cowAdd;
+
+    private static final Integer ITEM = 42;
+    private static final int COW_SIZE = 1000;
+
+    @Setup
+    public void setUp() {
+        if ("My".equals(concurrentImpl)) {
+            MyConcurrentLinkedQueue<Integer> queue = new MyConcurrentLinkedQueue<>();
+            MyConcurrentStack<Integer> stack = new MyConcurrentStack<>();
+            MyCopyOnWriteArrayList<Integer> cow = new MyCopyOnWriteArrayList<>();
+            for (int i = 0; i < COW_SIZE; i++) {
+                cow.add(i);
+            }
+            offerPoll = () -> {
+                queue.offer(ITEM);
+                queue.poll();
+            };
+            pushPop = () -> {
+                stack.push(ITEM);
+                stack.poll();
+            };
+            cowGet = cow::get;
+            // 添加后立即删除，保持列表长度不变
+            cowAdd = () -> {
+                cow.add(ITEM);
+                cow.remove(ITEM);
+            };
+        } else if ("Jdk".equals(concurrentImpl)) {
+            ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+            ConcurrentLinkedDeque<Integer> stack = new ConcurrentLinkedDeque<>();
+            CopyOnWriteArrayList<Integer> cow = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < COW_SIZE; i++) {
+                cow.add(i);
+            }
+            offerPoll = () -> {
+                queue.offer(ITEM);
+                queue.poll();
+            };
+            pushPop = () -> {
+                stack.push(ITEM);
+                stack.poll();
+            };
+            cowGet = cow::get;
+            // 添加后立即删除，保持列表长度不变
+            cowAdd = () -> {
+                cow.add(ITEM);
+                cow.remove(ITEM);
+            };
+        } else {
+            throw new IllegalArgumentException("未知的实现: " + concurrentImpl);
+        }
+    }
+
+    @Benchmark
+    public void queueOfferPoll() {
+        offerPoll.run();
+    }
+
+    @Benchmark
+    public void stackPushPop() {
+        pushPop.run();
+    }
+
+    /**
+     * 读多写少：只读
+     */
+    @Benchmark
+    public Object copyOnWriteGet() {
+        return cowGet.apply(ThreadLocalRandom.current().nextInt(COW_SIZE));
+    }
+
+    /**
+     * 写时复制列表的写操作，每次复制整个数组
+     */
+    @Benchmark
+    public void copyOnWriteAddRemove() {
+        cowAdd.run();
+    }
+}
@@ -0,0 +1,209 @@
+package com.richal.learn.benchmark;
+
+import com.richal.learn.HashingStrategy;
+import com.richal.learn.MyHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyHashMap 与 java.util.HashMap 的对比
+ * 覆盖不同的元素数量、key 分布和扩容因子
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class HashMapBenchmark {
+
+    /**
+     * MyHashMapIdentity：使用 {@link HashingStrategy#IDENTITY} 的 MyHashMap
+     */
+    @Param({"MyHashMap", "MyHashMapIdentity", "HashMap"})
+    String mapImpl;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    /**
+     * SEQUENTIAL：连续的 ID；RANDOM：随机 long；HIGH_BITS：差异只在高 32 位，考验 hash 打散
+     */
+    @Param({"SEQUENTIAL", "RANDOM", "HIGH_BITS"})
+    String keys;
+
+    @Param({"0.5", "0.75", "1.0"})
+    float loadFactor;
+
+    private Long[] present;
+    private Long[] absent;
+    private MapOps map;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        present = new Long[size];
+        absent = new Long[size];
+        for (int i = 0; i < size; i++) {
+            present[i] = key(i, random);
+            absent[i] = key(size + i, random);
+        }
+        map = newMap();
+        for (Long key : present) {
+            map.put(key, key);
+        }
+    }
+
+    private Long key(int i, Random random) {
+        switch (keys) {
+            case "SEQUENTIAL":
+                return (long) i;
+            case "RANDOM":
+                return random.nextLong();
+            case "HIGH_BITS":
+                return (long) i << 32;
+            default:
+                throw new IllegalArgumentException("未知的 key 分布: " + keys);
+        }
+    }
+
+    private MapOps newMap() {
+        if (mapImpl.startsWith("MyHashMap")) {
+            HashingStrategy<Object> strategy = "MyHashMapIdentity".equals(mapImpl) ? HashingStrategy.IDENTITY : HashingStrategy.DEFAULT;
+            MyHashMap<Long, Long> m = new MyHashMap<>(0, loadFactor, false, strategy);
+            return new MapOps() {
+                public Long put(Long key, Long value) {
+                    return m.put(key, value);
+                }
+
+                public Long get(Long key) {
+                    return m.get(key);
+                }
+
+                public Long remove(Long key) {
+                    return m.remove(key);
+                }
+
+                public void iterate(Blackhole bh) {
+                    m.forEach((k, v) -> bh.consume(v));
+                }
+            };
+        }
+        if (!"HashMap".equals(mapImpl)) {
+            throw new IllegalArgumentException("未知的实现: " + mapImpl);
+        }
+        HashMap<Long, Long> m = new HashMap<>(16, loadFactor);
+        return new MapOps() {
+            public Long put(Long key, Long value) {
+                return m.put(key, value);
+            }
+
+            public Long get(Long key) {
+                return m.get(key);
+            }
+
+            public Long remove(Long key) {
+                return m.remove(key);
+            }
+
+            public void iterate(Blackhole bh) {
+                m.forEach((k, v) -> bh.consume(v));
+            }
+        };
+    }
+
+    private Long nextPresent() {
+        Long key = present[cursor];
+        if (++cursor == size) {
+            cursor = 0;
+        }
+        return key;
+    }
+
+    /**
+     * 从空表开始放入 size 个元素，包含全部扩容开销，结果是整批的耗时
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object putAll() {
+        MapOps m = newMap();
+        for (Long key : present) {
+            m.put(key, key);
+        }
+        return m;
+    }
+
+    @Benchmark
+    public Long getHit() {
+        return map.get(nextPresent());
+    }
+
+    @Benchmark
+    public Long getMiss() {
+        Long key = absent[cursor];
+        if (++cursor == size) {
+            cursor = 0;
+        }
+        return map.get(key);
+    }
+
+    /**
+     * 覆盖已有的 key，不应该分配任何对象
+     */
+    @Benchmark
+    public Long putHit() {
+        Long key = nextPresent();
+        return map.put(key, key);
+    }
+
+    /**
+     * 删除后再放回，保持表的大小不变
+     */
+    @Benchmark
+    public Long removeAndPut() {
+        Long key = nextPresent();
+        Long value = map.remove(key);
+        map.put(key, value);
+        return value;
+    }
+
+    /**
+     * 遍历全部元素，结果是整轮的耗时
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole bh) {
+        map.iterate(bh);
+    }
+
+    /**
+     * 让两种实现走同一套调用路径
+     */
+    interface MapOps {
+        Long put(Long key, Long value);
+
+        Long get(Long key);
+
+        Long remove(Long key);
+
+        void iterate(Blackhole bh);
+    }
+}
@@ -0,0 +1,199 @@
+package com.richal.learn.benchmark;
+
+import com.richal.learn.List;
+import com.richal.learn.MyArrayList;
+import com.richal.learn.MyLinkedList;
+import com.richal.learn.UnrolledLinkedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyArrayList、MyLinkedList 与 JDK 对应实现的对比
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ListBenchmark {
+
+    @Param({"MyArrayList", "ArrayList", "MyLinkedList", "UnrolledLinkedList", "LinkedList"})
+    String listImpl;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private List<Integer> list;
+    private int[] indexes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        indexes = new int[1024];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = random.nextInt(size);
+        }
+        list = newList();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+    }
+
+    private List<Integer> newList() {
+        switch (listImpl) {
+            case "MyArrayList":
+                return new MyArrayList<>();
+            case "MyLinkedList":
+                return new MyLinkedList<>();
+            case "UnrolledLinkedList":
+                return new UnrolledLinkedList<>();
+            case "ArrayList":
+                return new JdkList<>(new ArrayList<>());
+            case "LinkedList":
+                return new JdkList<>(new LinkedList<>());
+            default:
+                throw new IllegalArgumentException("未知的实现: " + listImpl);
+        }
+    }
+
+    private int nextIndex() {
+        int index = indexes[cursor];
+        cursor = (cursor + 1) & (indexes.length - 1);
+        return index;
+    }
+
+    /**
+     * 从空表开始在末尾追加 size 个元素，结果是整批的耗时
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object addAll() {
+        List<Integer> l = newList();
+        for (int i = 0; i < size; i++) {
+            l.add(i);
+        }
+        return l;
+    }
+
+    @Benchmark
+    public Integer get() {
+        return list.get(nextIndex());
+    }
+
+    /**
+     * 删除随机位置的元素再追加到末尾，保持大小不变
+     */
+    @Benchmark
+    public Integer removeAndAdd() {
+        Integer removed = list.remove(nextIndex());
+        list.add(removed);
+        return removed;
+    }
+
+    /**
+     * 用迭代器遍历全部元素，结果是整轮的耗时
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole bh) {
+        for (Integer e : list) {
+            bh.consume(e);
+        }
+    }
+
+    /**
+     * 顺序流求和，结果是整轮的耗时
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long streamSum() {
+        return list.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * 并行流求和，与 streamSum 对比可以看出 spliterator 的拆分效果，加速比受机器核数限制
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long parallelStreamSum() {
+        return list.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * 把 java.util.List 适配成本项目的 List 接口
+     */
+    static final class JdkList<E> implements List<E> {
+        private final java.util.List<E> delegate;
+
+        JdkList(java.util.List<E> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void add(E element) {
+            delegate.add(element);
+        }
+
+        @Override
+        public void add(E element, int index) {
+            delegate.add(index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            return delegate.remove(index);
+        }
+
+        @Override
+        public boolean remove(E element) {
+            return delegate.remove(element);
+        }
+
+        @Override
+        public E get(int index) {
+            return delegate.get(index);
+        }
+
+        @Override
+        public E set(int index, E element) {
+            return delegate.set(index, element);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return delegate.iterator();
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            return delegate.spliterator();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.richal.learn.benchmark;
+
+import com.richal.learn.IntObjectHashMap;
+import com.richal.learn.LongLongHashMap;
+import com.richal.learn.LongObjectHashMap;
+import com.richal.learn.MyHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原始类型哈希表与 MyHashMap、java.util.HashMap 的对比
+ * key 以原始类型数组给出，装箱的实现在调用时自动装箱，和实际使用时付出的代价一致
+ * 内存开销看 -prof gc 的 gc.alloc.rate.norm：putAll 每次从空表开始，包含扩容时丢弃的旧数组
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PrimitiveMapBenchmark {
+
+    /**
+     * Primitive：按 keys 选择 IntObjectHashMap / LongObjectHashMap / LongLongHashMap
+     */
+    @Param({"Primitive", "MyHashMap", "HashMap"})
+    String mapImpl;
+
+    /**
+     * INT_OBJECT：int -> Object；LONG_OBJECT：long -> Object；LONG_LONG：long -> long
+     */
+    @Param({"INT_OBJECT", "LONG_OBJECT", "LONG_LONG"})
+    String keys;
+
+    @Param({"1000", "1000000"})
+    int size;
+
+    /**
+     * 所有 value 共用同一个对象，只统计哈希表自身的开销
+     */
+    private static final Object VALUE = new Object();
+
+    private int[] intKeys;
+    private long[] longKeys;
+    private MapOps map;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        intKeys = new int[size];
+        longKeys = new long[size];
+        for (int i = 0; i < size; i++) {
+            intKeys[i] = random.nextInt();
+            longKeys[i] = random.nextLong();
+        }
+        map = newMap();
+        for (int i = 0; i < size; i++) {
+            map.put(i);
+        }
+    }
+
+    private MapOps newMap() {
+        switch (keys + "/" + mapImpl) {
+            case "INT_OBJECT/Primitive": {
+                IntObjectHashMap<Object> m = new IntObjectHashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(intKeys[i], VALUE);
+                    }
+
+                    public long get(int i) {
+                        return m.get(intKeys[i]) == null ? 0 : 1;
+                    }
+                };
+            }
+            case "INT_OBJECT/MyHashMap": {
+                MyHashMap<Integer, Object> m = new MyHashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(intKeys[i], VALUE);
+                    }
+
+                    public long get(int i) {
+                        return m.get(intKeys[i]) == null ? 0 : 1;
+                    }
+                };
+            }
+            case "INT_OBJECT/HashMap": {
+                HashMap<Integer, Object> m = new HashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(intKeys[i], VALUE);
+                    }
+
+                    public long get(int i) {
+                        return m.get(intKeys[i]) == null ? 0 : 1;
+                    }
+                };
+            }
+            case "LONG_OBJECT/Primitive": {
+                LongObjectHashMap<Object> m = new LongObjectHashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(longKeys[i], VALUE);
+                    }
+
+                    public long get(int i) {
+                        return m.get(longKeys[i]) == null ? 0 : 1;
+                    }
+                };
+            }
+            case "LONG_OBJECT/MyHashMap": {
+                MyHashMap<Long, Object> m = new MyHashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(longKeys[i], VALUE);
+                    }
+
+                    public long get(int i) {
+                        return m.get(longKeys[i]) == null ? 0 : 1;
+                    }
+                };
+            }
+            case "LONG_OBJECT/HashMap": {
+                HashMap<Long, Object> m = new HashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(longKeys[i], VALUE);
+                    }
+
+                    public long get(int i) {
+                        return m.get(longKeys[i]) == null ? 0 : 1;
+                    }
+                };
+            }
+            case "LONG_LONG/Primitive": {
+                LongLongHashMap m = new LongLongHashMap();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(longKeys[i], i);
+                    }
+
+                    public long get(int i) {
+                        return m.get(longKeys[i]);
+                    }
+                };
+            }
+            case "LONG_LONG/MyHashMap": {
+                MyHashMap<Long, Long> m = new MyHashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(longKeys[i], (long) i);
+                    }
+
+                    public long get(int i) {
+                        return m.get(longKeys[i]);
+                    }
+                };
+            }
+            case "LONG_LONG/HashMap": {
+                HashMap<Long, Long> m = new HashMap<>();
+                return new MapOps() {
+                    public void put(int i) {
+                        m.put(longKeys[i], (long) i);
+                    }
+
+                    public long get(int i) {
+                        return m.get(longKeys[i]);
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("未知的组合: " + keys + " / " + mapImpl);
+        }
+    }
+
+    /**
+     * 从空表开始放入 size 个元素，包含全部扩容开销，结果是整批的耗时
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object putAll() {
+        MapOps m = newMap();
+        for (int i = 0; i < size; i++) {
+            m.put(i);
+        }
+        return m;
+    }
+
+    @Benchmark
+    public long getHit() {
+        long result = map.get(cursor);
+        if (++cursor == size) {
+            cursor = 0;
+        }
+        return result;
+    }
+
+    /**
+     * 让三种实现走同一套调用路径，参数是 key 数组的下标
+     */
+    interface MapOps {
+        void put(int i);
+
+        long get(int i);
+    }
+}
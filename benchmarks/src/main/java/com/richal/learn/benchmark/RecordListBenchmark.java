@@ -0,0 +1,138 @@
+package com.richal.learn.benchmark;
+
+import com.richal.learn.MyArrayList;
+import com.richal.learn.OffHeapRecordList;
+import com.richal.learn.RecordSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.richal.learn.RecordSchema.FieldType.DOUBLE;
+import static com.richal.learn.RecordSchema.FieldType.INT;
+import static com.richal.learn.RecordSchema.FieldType.LONG;
+import static com.richal.learn.RecordSchema.field;
+
+/**
+ * 同样的定长记录，MyArrayList&lt;Trade&gt; 与 OffHeapRecordList 的对比：
+ * 单个字段全表扫描、随机访问一条记录，以及批量加载
+ * 加上 -prof gc 可以看到两者在 get 上的分配差异；堆内占用可以对比 setUp 前后的 used heap
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class RecordListBenchmark {
+
+    /**
+     * 堆内对照组的记录
+     */
+    record Trade(long id, double price, int qty) {
+    }
+
+    private static final RecordSchema SCHEMA = new RecordSchema(
+            field("id", LONG), field("price", DOUBLE), field("qty", INT));
+
+    private static final int ID = SCHEMA.indexOf("id");
+    private static final int PRICE = SCHEMA.indexOf("price");
+    private static final int QTY = SCHEMA.indexOf("qty");
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private MyArrayList<Trade> heap;
+    private OffHeapRecordList offHeap;
+    private int[] indexes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        indexes = new int[1024];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = random.nextInt(size);
+        }
+        heap = new MyArrayList<>(size);
+        offHeap = new OffHeapRecordList(SCHEMA, size);
+        for (int i = 0; i < size; i++) {
+            heap.add(new Trade(i, i * 0.5, i % 100));
+        }
+        offHeap.appendAll(size, (i, row) -> row.setLong(ID, i).setDouble(PRICE, i * 0.5).setInt(QTY, i % 100));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        offHeap.close();
+    }
+
+    private int nextIndex() {
+        int index = indexes[cursor];
+        cursor = (cursor + 1) & (indexes.length - 1);
+        return index;
+    }
+
+    @Benchmark
+    public double heapScanPrice() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += heap.get(i).price();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double offHeapScanPrice() {
+        return offHeap.sumDouble(PRICE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long heapGet() {
+        Trade t = heap.get(nextIndex());
+        return t.id() + t.qty();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long offHeapGet() {
+        OffHeapRecordList.Cursor row = offHeap.get(nextIndex());
+        return row.getLong(ID) + row.getInt(QTY);
+    }
+
+    /**
+     * 从空表开始加载 size 条记录
+     */
+    @Benchmark
+    public Object heapLoad() {
+        MyArrayList<Trade> l = new MyArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            l.add(new Trade(i, i * 0.5, i % 100));
+        }
+        return l;
+    }
+
+    @Benchmark
+    public long offHeapLoad() {
+        try (OffHeapRecordList l = new OffHeapRecordList(SCHEMA, size)) {
+            l.appendAll(size, (i, row) -> row.setLong(ID, i).setDouble(PRICE, i * 0.5).setInt(QTY, i % 100));
+            return l.size();
+        }
+    }
+}
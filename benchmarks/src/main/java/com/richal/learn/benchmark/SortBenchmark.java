@@ -0,0 +1,115 @@
+package com.richal.learn.benchmark;
+
+import com.richal.learn.IntArrayList;
+import com.richal.learn.MyArrayList;
+import com.richal.learn.MyLinkedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 排序对比：每次调用前重新填入同一份随机数据，结果包含填充的耗时，几种实现的填充成本相同
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class SortBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private Integer[] boxed;
+    private int[] ints;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        boxed = new Integer[size];
+        ints = new int[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = random.nextInt();
+            boxed[i] = ints[i];
+        }
+    }
+
+    @Benchmark
+    public Object myArrayListSort() {
+        MyArrayList<Integer> list = new MyArrayList<>(Arrays.asList(boxed));
+        list.sort(Comparator.naturalOrder());
+        return list;
+    }
+
+    @Benchmark
+    public Object myArrayListParallelSort() {
+        MyArrayList<Integer> list = new MyArrayList<>(Arrays.asList(boxed));
+        list.parallelSort(Comparator.naturalOrder());
+        return list;
+    }
+
+    @Benchmark
+    public Object jdkArrayListSort() {
+        ArrayList<Integer> list = new ArrayList<>(Arrays.asList(boxed));
+        list.sort(Comparator.naturalOrder());
+        return list;
+    }
+
+    @Benchmark
+    public Object myLinkedListSort() {
+        MyLinkedList<Integer> list = new MyLinkedList<>();
+        for (Integer e : boxed) {
+            list.add(e);
+        }
+        list.sort(Comparator.naturalOrder());
+        return list;
+    }
+
+    /**
+     * JDK 的 LinkedList.sort 先复制到数组排序，再逐个写回
+     */
+    @Benchmark
+    public Object jdkLinkedListSort() {
+        LinkedList<Integer> list = new LinkedList<>();
+        for (Integer e : boxed) {
+            list.add(e);
+        }
+        list.sort(Comparator.naturalOrder());
+        return list;
+    }
+
+    @Benchmark
+    public Object intArrayListSort() {
+        IntArrayList list = new IntArrayList(size);
+        list.addAll(ints);
+        list.sort();
+        return list;
+    }
+
+    @Benchmark
+    public Object intArraySort() {
+        int[] copy = ints.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,156 @@
+package com.richal.learn.benchmark;
+
+import com.richal.learn.MyThreadPool;
+import com.richal.learn.ThrowRejectHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MyThreadPool 共享队列、工作窃取、虚拟线程三种模式的对比
+ * externalSubmit 和 forkTree 的任务本身几乎不做事，结果主要反映调度开销；blockingSubmit 的任务阻塞 1 ms，模拟 I/O。
+ * 线程数（虚拟线程模式下是并发数上限）用 poolSize 指定，加速比受机器核数限制
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ThreadPoolBenchmark {
+
+    /**
+     * SHARED：所有线程共享 workQueue；WORK_STEALING：每个线程自己的队列 + 窃取；VIRTUAL：每个任务一个虚拟线程
+     */
+    @Param({"SHARED", "WORK_STEALING", "VIRTUAL"})
+    String poolMode;
+
+    @Param({"4", "16", "1024"})
+    int poolSize;
+
+    /**
+     * 每次调用提交的外部任务数
+     */
+    private static final int TASKS = 10_000;
+
+    /**
+     * 二叉树任务的深度，叶子数为 2^DEPTH
+     */
+    private static final int DEPTH = 13;
+
+    /**
+     * 每次调用提交的阻塞任务数
+     */
+    private static final int BLOCKING_TASKS = 1024;
+
+    private MyThreadPool pool;
+
+    @Setup
+    public void setUp() {
+        boolean workStealing;
+        switch (poolMode) {
+            case "SHARED":
+                workStealing = false;
+                break;
+            case "WORK_STEALING":
+                workStealing = true;
+                break;
+            case "VIRTUAL":
+                pool = MyThreadPool.newVirtualThreadPool(poolSize, new LinkedBlockingQueue<>(), new ThrowRejectHandle());
+                return;
+            default:
+                throw new IllegalArgumentException("未知的模式: " + poolMode);
+        }
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        pool = new MyThreadPool(poolSize, poolSize, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle(), r -> {
+                    Thread t = new Thread(r, "Bench-" + threadNumber.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                }, workStealing);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 外部线程连续提交大量空任务，等待全部执行完
+     */
+    @Benchmark
+    public void externalSubmit() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            pool.execute(done::countDown);
+        }
+        done.await();
+    }
+
+    /**
+     * 提交一批阻塞 1 ms 的任务，等待全部执行完
+     */
+    @Benchmark
+    public void blockingSubmit() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BLOCKING_TASKS);
+        for (int i = 0; i < BLOCKING_TASKS; i++) {
+            pool.execute(() -> {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+    /**
+     * 任务在池内递归提交子任务（分治），等待所有叶子执行完
+     */
+    @Benchmark
+    public void forkTree() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1 << DEPTH);
+        pool.execute(new Node(DEPTH, done));
+        done.await();
+    }
+
+    private final class Node implements Runnable {
+        private final int level;
+        private final CountDownLatch done;
+
+        Node(int level, CountDownLatch done) {
+            this.level = level;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            if (level == 0) {
+                done.countDown();
+                return;
+            }
+            pool.execute(new Node(level - 1, done));
+            pool.execute(new Node(level - 1, done));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.richal.learn;
+
+/**
+ * {@link MyCache} 的淘汰策略
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public enum EvictionPolicy {
+
+    /**
+     * 最近最少使用：淘汰最久没有被访问的条目
+     */
+    LRU,
+
+    /**
+     * W-TinyLFU：新条目先进入 1% 大小的 LRU 窗口，从窗口淘汰出来时与主区的淘汰候选比较访问频率，
+     * 频率更高的留下。频率由 Count-Min Sketch 估计，一次性扫描的冷数据很难挤掉热点数据
+     */
+    TINY_LFU
+}
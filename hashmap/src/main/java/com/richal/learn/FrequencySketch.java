@@ -0,0 +1,104 @@
+package com.richal.learn;
+
+/**
+ * Count-Min Sketch 频率估计，用于 W-TinyLFU 的准入判断
+ *
+ * 每个计数器 4 位，一个 long 里放 16 个，每个 key 按 4 个不同的种子散列到 4 个计数器上，
+ * 估计值取 4 个计数器中的最小值（可能偏大，不会偏小）。
+ * 累计增加次数达到采样周期后，所有计数器减半，让旧的热度逐渐衰减。
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+final class FrequencySketch {
+
+    /**
+     * 4 个散列函数的种子
+     */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /**
+     * 计数器的最大值
+     */
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    /**
+     * 采样周期，增加次数达到该值时计数器减半
+     */
+    private final int sampleSize;
+
+    private int additions;
+
+    /**
+     * @param expectedItems 预计需要区分的 key 数量
+     */
+    FrequencySketch(int expectedItems) {
+        int length = MyHashMap.tableSizeFor(Math.max(expectedItems, 16));
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = (int) Math.min(10L * length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 估计 hash 对应 key 的访问频率，范围 [0, 15]
+     */
+    int frequency(int hash) {
+        int min = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            min = Math.min(min, (int) (table[index(h)] >>> shift(h)) & MAX_COUNT);
+        }
+        return min;
+    }
+
+    /**
+     * 记录一次访问，已经饱和的计数器不再增加
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            int index = index(h);
+            int shift = shift(h);
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+        }
+        additions >>>= 1;
+    }
+
+    private static long indexHash(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 32);
+    }
+
+    private int index(long h) {
+        return (int) h & tableMask;
+    }
+
+    /**
+     * 计数器在 long 中的位移，取 h 的高位决定是 16 个计数器中的哪一个
+     */
+    private static int shift(long h) {
+        return (int) (h >>> 60) << 2;
+    }
+}
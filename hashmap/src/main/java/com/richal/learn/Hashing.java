@@ -0,0 +1,45 @@
+package com.richal.learn;
+
+/**
+ * 哈希打散工具
+ * 各种哈希表都只用哈希值的低位定位桶/槽位，这里把输入的每一位都扩散到低位，
+ * 避免差异只在高位的 key 挤在一起
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * MurmurHash3 的 fmix32，是 int 上的双射，不会引入新的冲突
+     *
+     * @param h 原始哈希值
+     * @return 打散后的哈希值
+     */
+    static int mix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * MurmurHash3 的 fmix64，取低 32 位
+     *
+     * @param k 原始 long 值
+     * @return 打散后的哈希值
+     */
+    static int mix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return (int) k;
+    }
+}
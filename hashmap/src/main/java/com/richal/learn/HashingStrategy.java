@@ -0,0 +1,65 @@
+package com.richal.learn;
+
+/**
+ * key 的哈希与相等策略
+ * MyHashMap 通过它计算 key 的哈希值、判断两个 key 是否相等，而不是固定调用 key 自己的 hashCode/equals
+ *
+ * 约定：equals 返回 true 的两个 key，hashCode 必须相同
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public interface HashingStrategy<K> {
+
+    /**
+     * 计算 key 的哈希值，结果会再经过打散才用来定位桶
+     */
+    int hashCode(K key);
+
+    /**
+     * 判断两个 key 是否相等
+     * 调用方已经先比较过引用和哈希值，这里只在两者哈希值相同、引用不同时才会被调用
+     */
+    boolean equals(K a, K b);
+
+    /**
+     * 使用 key 自己的 hashCode/equals，与 java.util.HashMap 相同
+     */
+    HashingStrategy<Object> DEFAULT = new HashingStrategy<Object>() {
+        @Override
+        public int hashCode(Object key) {
+            return key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return a.equals(b);
+        }
+
+        @Override
+        public String toString() {
+            return "DEFAULT";
+        }
+    };
+
+    /**
+     * 按引用判断相等，与 java.util.IdentityHashMap 相同
+     * 不调用 key 的 hashCode/equals，适合 key 没有重写它们或重写得很慢的场景
+     */
+    HashingStrategy<Object> IDENTITY = new HashingStrategy<Object>() {
+        @Override
+        public int hashCode(Object key) {
+            return System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return a == b;
+        }
+
+        @Override
+        public String toString() {
+            return "IDENTITY";
+        }
+    };
+}
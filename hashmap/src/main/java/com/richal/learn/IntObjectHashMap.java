@@ -0,0 +1,293 @@
+package com.richal.learn;
+
+import java.util.Arrays;
+
+/**
+ * int 作为 key 的开放寻址哈希表
+ *
+ * 与 {@link MyHashMap} 不同，这里没有 Node 节点，也不需要把 key 装箱成 Integer：
+ * key 和 value 分别存放在两个平行数组 keys/values 中，冲突时用线性探测找下一个槽位。
+ * 删除时把后面同一探测序列上的元素向前挪（backward shift），因此不需要墓碑标记。
+ *
+ * key 为 0 的槽位表示"空"，所以 key 0 单独存放在 zeroValue 中。
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class IntObjectHashMap<V> {
+
+    /**
+     * 默认扩容因子，线性探测在半满时探测长度很短
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * 存放 key 的数组，0 表示空槽位
+     */
+    int[] keys;
+
+    /**
+     * 存放 value 的数组，下标与 keys 一一对应
+     */
+    Object[] values;
+
+    /**
+     * 是否存在 key 为 0 的键值对
+     */
+    private boolean hasZeroKey;
+
+    /**
+     * key 为 0 时对应的 value
+     */
+    private V zeroValue;
+
+    /**
+     * 键值对数量，包括 key 为 0 的那一个
+     */
+    private int size;
+
+    /**
+     * 数组长度 - 1，用于位运算取模
+     */
+    private int mask;
+
+    /**
+     * 扩容阈值
+     */
+    private int threshold;
+
+    /**
+     * 扩容因子
+     */
+    private final float loadFactor;
+
+    public IntObjectHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 预期存放的键值对数量，放入不超过该数量的元素时不会扩容
+     */
+    public IntObjectHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param expectedSize 预期存放的键值对数量
+     * @param loadFactor 扩容因子，取值范围 (0, 1)，开放寻址至少要保留一个空槽位
+     */
+    public IntObjectHashMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("非法的预期容量: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("非法的扩容因子: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * 添加键值对
+     *
+     * @return 如果 key 已存在，返回旧值；否则返回 null
+     */
+    public V put(int key, V value) {
+        if (key == 0) {
+            V old = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        int[] ks = keys;
+        int i = Hashing.mix32(key) & mask;
+        for (;;) {
+            int k = ks[i];
+            if (k == 0) {
+                ks[i] = key;
+                values[i] = value;
+                if (++size > threshold) {
+                    rehash(ks.length * 2);
+                }
+                return null;
+            }
+            if (k == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 根据 key 获取 value
+     *
+     * @return 找不到时返回 null
+     */
+    public V get(int key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int[] ks = keys;
+        int i = Hashing.mix32(key) & mask;
+        for (;;) {
+            int k = ks[i];
+            if (k == key) {
+                return (V) values[i];
+            }
+            if (k == 0) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 是否包含指定 key
+     */
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * 删除指定 key
+     *
+     * @return 被删除的 value，找不到时返回 null
+     */
+    public V remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return null;
+            }
+            V old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return old;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        shiftKeys(i);
+        size--;
+        return old;
+    }
+
+    /**
+     * 返回键值对数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空所有键值对，保留已分配的数组
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * 查找 key 所在的槽位
+     *
+     * @return 槽位下标，找不到时返回 -1
+     */
+    private int indexOf(int key) {
+        int[] ks = keys;
+        int i = Hashing.mix32(key) & mask;
+        for (;;) {
+            int k = ks[i];
+            if (k == key) {
+                return i;
+            }
+            if (k == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 删除 pos 处的元素后，把后面同一探测序列上的元素往前挪，填补空洞
+     * 一个元素可以挪到 last 的前提是：last 位于它的理想槽位和当前位置之间（按环形计算）
+     */
+    private void shiftKeys(int pos) {
+        int[] ks = keys;
+        for (;;) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int k;
+            for (;;) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                int slot = Hashing.mix32(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    /**
+     * 按新的数组长度重新放置所有元素
+     */
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        int[] ks = keys;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k == 0) {
+                continue;
+            }
+            int i = Hashing.mix32(k) & mask;
+            while (ks[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            ks[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    /**
+     * 计算能容纳 expectedSize 个元素的最小 2 的幂数组长度
+     */
+    static int capacityFor(int expectedSize, float loadFactor) {
+        int capacity = MyHashMap.tableSizeFor((long) Math.ceil(expectedSize / (double) loadFactor));
+        return Math.max(capacity, 2);
+    }
+}
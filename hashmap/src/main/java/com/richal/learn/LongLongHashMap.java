@@ -0,0 +1,326 @@
+package com.richal.learn;
+
+import java.util.Arrays;
+
+/**
+ * key 和 value 都是 long 的开放寻址哈希表
+ *
+ * 与 {@link MyHashMap} 不同，这里没有 Node 节点，key 和 value 都不需要装箱成 Long：
+ * key 和 value 分别存放在两个平行数组 keys/values 中，冲突时用线性探测找下一个槽位。
+ * 删除时把后面同一探测序列上的元素向前挪（backward shift），因此不需要墓碑标记。
+ *
+ * key 为 0 的槽位表示"空"，所以 key 0 单独存放在 zeroValue 中。
+ * 找不到 key 时 {@link #get(long)} 返回 0，需要区分时使用 {@link #containsKey(long)} 或 {@link #getOrDefault(long, long)}。
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class LongLongHashMap {
+
+    /**
+     * 默认扩容因子，线性探测在半满时探测长度很短
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * 存放 key 的数组，0 表示空槽位
+     */
+    long[] keys;
+
+    /**
+     * 存放 value 的数组，下标与 keys 一一对应
+     */
+    long[] values;
+
+    /**
+     * 是否存在 key 为 0 的键值对
+     */
+    private boolean hasZeroKey;
+
+    /**
+     * key 为 0 时对应的 value
+     */
+    private long zeroValue;
+
+    /**
+     * 键值对数量，包括 key 为 0 的那一个
+     */
+    private int size;
+
+    /**
+     * 数组长度 - 1，用于位运算取模
+     */
+    private int mask;
+
+    /**
+     * 扩容阈值
+     */
+    private int threshold;
+
+    /**
+     * 扩容因子
+     */
+    private final float loadFactor;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 预期存放的键值对数量，放入不超过该数量的元素时不会扩容
+     */
+    public LongLongHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param expectedSize 预期存放的键值对数量
+     * @param loadFactor 扩容因子，取值范围 (0, 1)，开放寻址至少要保留一个空槽位
+     */
+    public LongLongHashMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("非法的预期容量: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("非法的扩容因子: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(IntObjectHashMap.capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * 添加键值对
+     *
+     * @return 如果 key 已存在，返回旧值；否则返回 0
+     */
+    public long put(long key, long value) {
+        if (key == 0) {
+            long old = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        long[] ks = keys;
+        int i = Hashing.mix64(key) & mask;
+        for (;;) {
+            long k = ks[i];
+            if (k == 0) {
+                ks[i] = key;
+                values[i] = value;
+                if (++size > threshold) {
+                    rehash(ks.length * 2);
+                }
+                return 0;
+            }
+            if (k == key) {
+                long old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 根据 key 获取 value
+     *
+     * @return 找不到时返回 0
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * 根据 key 获取 value
+     *
+     * @return 找不到时返回 defaultValue
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        long[] ks = keys;
+        int i = Hashing.mix64(key) & mask;
+        for (;;) {
+            long k = ks[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == 0) {
+                return defaultValue;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 把 delta 累加到 key 对应的 value 上，key 不存在时视为 0，只做一次探测
+     * 适合计数、求和一类的聚合场景
+     *
+     * @return 累加后的值
+     */
+    public long addTo(long key, long delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return zeroValue += delta;
+        }
+        long[] ks = keys;
+        int i = Hashing.mix64(key) & mask;
+        for (;;) {
+            long k = ks[i];
+            if (k == key) {
+                return values[i] += delta;
+            }
+            if (k == 0) {
+                ks[i] = key;
+                values[i] = delta;
+                if (++size > threshold) {
+                    rehash(ks.length * 2);
+                }
+                return delta;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 是否包含指定 key
+     */
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * 删除指定 key
+     *
+     * @return 找到并删除时返回 true
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            return true;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return false;
+        }
+        shiftKeys(i);
+        size--;
+        return true;
+    }
+
+    /**
+     * 返回键值对数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空所有键值对，保留已分配的数组
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0L);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * 查找 key 所在的槽位
+     *
+     * @return 槽位下标，找不到时返回 -1
+     */
+    private int indexOf(long key) {
+        long[] ks = keys;
+        int i = Hashing.mix64(key) & mask;
+        for (;;) {
+            long k = ks[i];
+            if (k == key) {
+                return i;
+            }
+            if (k == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 删除 pos 处的元素后，把后面同一探测序列上的元素往前挪，填补空洞
+     * 一个元素可以挪到 last 的前提是：last 位于它的理想槽位和当前位置之间（按环形计算）
+     */
+    private void shiftKeys(int pos) {
+        long[] ks = keys;
+        for (;;) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            long k;
+            for (;;) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    values[last] = 0;
+                    return;
+                }
+                int slot = Hashing.mix64(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    /**
+     * 按新的数组长度重新放置所有元素
+     */
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        long[] ks = keys;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == 0) {
+                continue;
+            }
+            int i = Hashing.mix64(k) & mask;
+            while (ks[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            ks[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+}
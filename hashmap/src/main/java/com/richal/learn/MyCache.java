@@ -0,0 +1,467 @@
+package com.richal.learn;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于 {@link MyHashMap} 的有界缓存
+ *
+ * 容量按条目数或按权重限制，超出时按 {@link EvictionPolicy} 淘汰：
+ * - LRU：所有条目在一条访问顺序链表上，淘汰链表头部
+ * - W-TinyLFU：条目分布在窗口区（LRU，占 1%）、试用区和保护区（SLRU，保护区占主区 80%）三条链表上。
+ *   窗口区溢出的条目作为候选者进入试用区，和试用区头部的淘汰者比较 {@link FrequencySketch} 估计的频率，
+ *   频率低的被淘汰；试用区的条目再次被访问时晋升到保护区。
+ *
+ * 可选写入后过期：另外维护一条按写入时间排序的链表，每次读写时从头部清理已过期的条目。
+ * 所有淘汰和过期都只处理链表头部，每个条目最多被处理一次，get 不会扫描整个缓存。
+ *
+ * 非线程安全。
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyCache<K, V> {
+
+    /**
+     * 计算条目权重，权重不能为负数
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    /**
+     * 保护区占主区容量的比例
+     */
+    private static final double PROTECTED_PERCENT = 0.8;
+
+    private final MyHashMap<K, Entry<K, V>> data = new MyHashMap<>();
+
+    private final long maximum;
+
+    private final Weigher<? super K, ? super V> weigher;
+
+    /**
+     * 写入后过期的时间，0 表示永不过期
+     */
+    private final long expireAfterWriteNanos;
+
+    private final LongSupplier ticker;
+
+    /**
+     * 访问频率估计，LRU 模式下为 null
+     */
+    private final FrequencySketch sketch;
+
+    private final LinkedDeque<K, V> window = new LinkedDeque<>(false);
+    private final LinkedDeque<K, V> probation = new LinkedDeque<>(false);
+    private final LinkedDeque<K, V> protectedQueue = new LinkedDeque<>(false);
+    private final LinkedDeque<K, V> writeOrder = new LinkedDeque<>(true);
+
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    private long weightedSize;
+    private long windowWeight;
+    private long protectedWeight;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * 按条目数量限制容量，不过期
+     *
+     * @param maximumSize 最多缓存的条目数
+     * @param policy 淘汰策略
+     */
+    public MyCache(long maximumSize, EvictionPolicy policy) {
+        this(maximumSize, (key, value) -> 1, policy, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param maximumWeight 所有条目的权重之和的上限
+     * @param weigher 计算条目权重
+     * @param policy 淘汰策略
+     * @param expireAfterWrite 写入后多久过期，0 表示永不过期
+     * @param unit expireAfterWrite 的时间单位
+     */
+    public MyCache(long maximumWeight, Weigher<? super K, ? super V> weigher, EvictionPolicy policy,
+                   long expireAfterWrite, TimeUnit unit) {
+        this(maximumWeight, weigher, policy, expireAfterWrite, unit, System::nanoTime);
+    }
+
+    /**
+     * @param ticker 纳秒时钟，测试时替换为可控的时钟
+     */
+    MyCache(long maximumWeight, Weigher<? super K, ? super V> weigher, EvictionPolicy policy,
+            long expireAfterWrite, TimeUnit unit, LongSupplier ticker) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("非法的最大容量: " + maximumWeight);
+        }
+        if (expireAfterWrite < 0) {
+            throw new IllegalArgumentException("非法的过期时间: " + expireAfterWrite);
+        }
+        this.maximum = maximumWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.ticker = Objects.requireNonNull(ticker);
+        if (Objects.requireNonNull(policy) == EvictionPolicy.TINY_LFU) {
+            this.sketch = new FrequencySketch((int) Math.min(maximumWeight, 1 << 24));
+            this.windowMaximum = Math.min(maximumWeight, Math.max(1, maximumWeight / 100));
+        } else {
+            this.sketch = null;
+            this.windowMaximum = 0;
+        }
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENT);
+    }
+
+    /**
+     * 获取缓存的值，命中时更新条目的访问顺序
+     *
+     * @return 不存在或已过期时返回 null
+     */
+    public V get(K key) {
+        expireEntries(ticker.getAsLong());
+        Entry<K, V> e = data.get(key);
+        if (sketch != null) {
+            sketch.increment(MyHashMap.hash(key));
+        }
+        if (e == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(e);
+        return e.value;
+    }
+
+    /**
+     * 放入缓存，超出容量时淘汰其他条目（也可能是刚放入的条目）
+     *
+     * @return 如果 key 已存在，返回旧值；否则返回 null
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        long now = ticker.getAsLong();
+        expireEntries(now);
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("非法的权重: " + weight);
+        }
+        if (sketch != null) {
+            sketch.increment(MyHashMap.hash(key));
+        }
+
+        Entry<K, V> e = data.get(key);
+        if (e != null) {
+            V oldValue = e.value;
+            e.value = value;
+            setWeight(e, weight);
+            e.writeTime = now;
+            writeOrder.moveToEnd(e);
+            onAccess(e);
+            evictEntries();
+            return oldValue;
+        }
+
+        e = new Entry<>(key, value, weight, now);
+        data.put(key, e);
+        writeOrder.addLast(e);
+        weightedSize += weight;
+        if (sketch == null) {
+            e.queue = PROBATION;
+            probation.addLast(e);
+        } else {
+            e.queue = WINDOW;
+            window.addLast(e);
+            windowWeight += weight;
+        }
+        evictEntries();
+        return null;
+    }
+
+    /**
+     * 删除缓存的条目
+     *
+     * @return 被删除的值，不存在或已过期时返回 null
+     */
+    public V remove(K key) {
+        expireEntries(ticker.getAsLong());
+        Entry<K, V> e = data.remove(key);
+        if (e == null) {
+            return null;
+        }
+        unlink(e);
+        return e.value;
+    }
+
+    /**
+     * 当前缓存的条目数
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * 当前所有条目的权重之和
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * get 命中次数
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * get 未命中次数
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * 因容量或过期被淘汰的条目数
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 命中率，还没有 get 过时返回 1
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * 从写入顺序链表头部清理已过期的条目
+     */
+    private void expireEntries(long now) {
+        if (expireAfterWriteNanos == 0) {
+            return;
+        }
+        Entry<K, V> e;
+        while ((e = writeOrder.first) != null && now - e.writeTime >= expireAfterWriteNanos) {
+            evict(e);
+        }
+    }
+
+    /**
+     * 条目被访问后调整它所在的链表
+     */
+    private void onAccess(Entry<K, V> e) {
+        switch (e.queue) {
+            case WINDOW:
+                window.moveToEnd(e);
+                break;
+            case PROBATION:
+                if (sketch == null) {
+                    probation.moveToEnd(e);
+                    break;
+                }
+                // 试用区的条目再次被访问，晋升到保护区；保护区超出预算时把最久没访问的条目降回试用区
+                probation.remove(e);
+                e.queue = PROTECTED;
+                protectedQueue.addLast(e);
+                protectedWeight += e.weight;
+                while (protectedWeight > protectedMaximum) {
+                    Entry<K, V> demoted = protectedQueue.first;
+                    protectedQueue.remove(demoted);
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            default:
+                protectedQueue.moveToEnd(e);
+        }
+    }
+
+    /**
+     * 淘汰条目直到总权重不超过上限
+     * 窗口区溢出的条目移到试用区末尾成为候选者，之后每次从试用区头部取淘汰者与候选者比较频率，
+     * 频率更高的留下，相同时淘汰候选者，优先保护已经在主区的条目
+     */
+    private void evictEntries() {
+        Entry<K, V> candidate = null;
+        while (windowWeight > windowMaximum) {
+            Entry<K, V> e = window.first;
+            window.remove(e);
+            windowWeight -= e.weight;
+            e.queue = PROBATION;
+            probation.addLast(e);
+            if (candidate == null) {
+                candidate = e;
+            }
+        }
+
+        while (weightedSize > maximum) {
+            Entry<K, V> victim = probation.first;
+            if (victim == null) {
+                victim = protectedQueue.first;
+            }
+            if (victim == null) {
+                victim = window.first;
+            }
+            if (candidate == null || candidate == victim) {
+                if (candidate == victim) {
+                    candidate = candidate.accessNext;
+                }
+                evict(victim);
+            } else if (sketch.frequency(MyHashMap.hash(candidate.key)) > sketch.frequency(MyHashMap.hash(victim.key))) {
+                evict(victim);
+            } else {
+                Entry<K, V> next = candidate.accessNext;
+                evict(candidate);
+                candidate = next;
+            }
+        }
+    }
+
+    private void evict(Entry<K, V> e) {
+        data.remove(e.key);
+        unlink(e);
+        evictionCount++;
+    }
+
+    /**
+     * 把条目从访问顺序链表和写入顺序链表中摘下，并扣除权重
+     */
+    private void unlink(Entry<K, V> e) {
+        switch (e.queue) {
+            case WINDOW:
+                window.remove(e);
+                windowWeight -= e.weight;
+                break;
+            case PROBATION:
+                probation.remove(e);
+                break;
+            default:
+                protectedQueue.remove(e);
+                protectedWeight -= e.weight;
+        }
+        writeOrder.remove(e);
+        weightedSize -= e.weight;
+    }
+
+    private void setWeight(Entry<K, V> e, int weight) {
+        int delta = weight - e.weight;
+        weightedSize += delta;
+        if (e.queue == WINDOW) {
+            windowWeight += delta;
+        } else if (e.queue == PROTECTED) {
+            protectedWeight += delta;
+        }
+        e.weight = weight;
+    }
+
+    /**
+     * 缓存条目，同时挂在一条访问顺序链表和写入顺序链表上
+     */
+    static final class Entry<K, V> {
+        final K key;
+        V value;
+        int weight;
+        long writeTime;
+        int queue;
+        Entry<K, V> accessPrev;
+        Entry<K, V> accessNext;
+        Entry<K, V> writePrev;
+        Entry<K, V> writeNext;
+
+        Entry(K key, V value, int weight, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * 侵入式双向链表，节点指针直接存放在 Entry 中，增删都是 O(1)
+     */
+    static final class LinkedDeque<K, V> {
+
+        /**
+         * true 时使用 writePrev/writeNext，否则使用 accessPrev/accessNext
+         */
+        private final boolean writeOrder;
+
+        Entry<K, V> first;
+        Entry<K, V> last;
+
+        LinkedDeque(boolean writeOrder) {
+            this.writeOrder = writeOrder;
+        }
+
+        void addLast(Entry<K, V> e) {
+            setPrev(e, last);
+            setNext(e, null);
+            if (last == null) {
+                first = e;
+            } else {
+                setNext(last, e);
+            }
+            last = e;
+        }
+
+        void remove(Entry<K, V> e) {
+            Entry<K, V> prev = prev(e);
+            Entry<K, V> next = next(e);
+            if (prev == null) {
+                first = next;
+            } else {
+                setNext(prev, next);
+            }
+            if (next == null) {
+                last = prev;
+            } else {
+                setPrev(next, prev);
+            }
+            setPrev(e, null);
+            setNext(e, null);
+        }
+
+        void moveToEnd(Entry<K, V> e) {
+            if (e != last) {
+                remove(e);
+                addLast(e);
+            }
+        }
+
+        private Entry<K, V> prev(Entry<K, V> e) {
+            return writeOrder ? e.writePrev : e.accessPrev;
+        }
+
+        private Entry<K, V> next(Entry<K, V> e) {
+            return writeOrder ? e.writeNext : e.accessNext;
+        }
+
+        private void setPrev(Entry<K, V> e, Entry<K, V> prev) {
+            if (writeOrder) {
+                e.writePrev = prev;
+            } else {
+                e.accessPrev = prev;
+            }
+        }
+
+        private void setNext(Entry<K, V> e, Entry<K, V> next) {
+            if (writeOrder) {
+                e.writeNext = next;
+            } else {
+                e.accessNext = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.richal.learn;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 手写 ConcurrentHashMap
+ * 与 {@link MyHashMap} 保持相同的 put/get/remove/size 接口，可以直接替换
+ *
+ * 并发设计：
+ * 1. 空桶用 CAS 直接放入新节点，不加锁
+ * 2. 桶不为空时只锁住桶的头节点，不同桶的写操作互不影响
+ * 3. 读操作完全无锁：数组槽位、节点的 value 和 next 都通过 volatile 语义读取
+ * 4. 扩容时旧桶迁移完成后放入 {@link ForwardingNode}，其他线程写到该桶时会先协助迁移，
+ *    多个线程按 {@link #MIN_TRANSFER_STRIDE} 个桶一段领取迁移任务
+ * 5. 元素数量用 {@link StripedCounter} 分段计数，避免所有写线程争抢同一个计数器
+ *
+ * 与 MyHashMap 的区别：key 和 value 都不能为 null；冲突严重时不树化。
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyConcurrentHashMap<K, V> {
+
+    /**
+     * 数组的最大长度
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 默认数组长度
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 每个线程一次领取的最少迁移桶数
+     */
+    static final int MIN_TRANSFER_STRIDE = 16;
+
+    /**
+     * sizeCtl 中扩容戳占用的位数
+     */
+    private static final int RESIZE_STAMP_BITS = 16;
+
+    /**
+     * 同时参与扩容的最大线程数
+     */
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    /**
+     * 扩容戳在 sizeCtl 中左移的位数
+     */
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+    /**
+     * ForwardingNode 的 hash，普通节点的 hash 总是非负数
+     */
+    static final int MOVED = -1;
+
+    /**
+     * 普通节点 hash 可用的位
+     */
+    private static final int HASH_BITS = 0x7fffffff;
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 桶数组，第一次 put 时才创建，长度总是 2 的幂
+     */
+    volatile Node<K, V>[] table;
+
+    /**
+     * 扩容中的新数组，只在扩容期间不为 null
+     */
+    private volatile Node<K, V>[] nextTable;
+
+    /**
+     * 数组初始化和扩容的控制字段：
+     * -1 表示正在初始化；
+     * 其他负数表示正在扩容，高 16 位是扩容戳，低 16 位是 1 + 参与扩容的线程数；
+     * 数组创建前为初始长度，创建后为下一次扩容的阈值
+     */
+    private volatile int sizeCtl;
+
+    /**
+     * 扩容时下一个待领取的旧桶下标（不含），从数组末尾向前领取
+     */
+    private volatile int transferIndex;
+
+    /**
+     * 元素数量
+     */
+    private final StripedCounter counter = new StripedCounter();
+
+    public MyConcurrentHashMap() {
+    }
+
+    /**
+     * @param expectedSize 预期存放的键值对数量，放入不超过该数量的元素时不会扩容
+     */
+    public MyConcurrentHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("非法的预期容量: " + expectedSize);
+        }
+        // 阈值是数组长度的 3/4，放入第 expectedSize 个元素时检查 size >= 阈值，
+        // 所以阈值必须严格大于 expectedSize；按 1.5 倍加 1 取整到 2 的幂，与 JDK 相同
+        this.sizeCtl = MyHashMap.tableSizeFor((long) expectedSize + (expectedSize >>> 1) + 1);
+    }
+
+    /**
+     * 计算 key 的哈希值，结果总是非负数，负数留给特殊节点
+     */
+    static int spread(int h) {
+        return Hashing.mix32(h) & HASH_BITS;
+    }
+
+    /**
+     * 根据 key 获取对应的 value，全程不加锁
+     *
+     * @param key 要查找的键
+     * @return 如果找到对应的 key，则返回其 value；否则返回 null
+     */
+    public V get(K key) {
+        int h = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        if (tab == null) {
+            return null;
+        }
+        Node<K, V> e = tabAt(tab, (tab.length - 1) & h);
+        if (e == null) {
+            return null;
+        }
+        int eh = e.hash;
+        K ek;
+        if (eh == h && ((ek = e.key) == key || key.equals(ek))) {
+            return e.val;
+        }
+        if (eh < 0) {
+            // 桶已经迁移，到新数组中查找
+            Node<K, V> p = e.find(h, key);
+            return p == null ? null : p.val;
+        }
+        while ((e = e.next) != null) {
+            if (e.hash == h && ((ek = e.key) == key || key.equals(ek))) {
+                return e.val;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 添加键值对
+     *
+     * @return 如果 key 已存在，则返回旧值；否则返回 null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        int hash = spread(key.hashCode());
+        int binCount = 0;
+        Node<K, V>[] tab = table;
+        for (;;) {
+            Node<K, V> f;
+            int n;
+            int i;
+            int fh;
+            if (tab == null || (n = tab.length) == 0) {
+                tab = initTable();
+            } else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                // 空桶：CAS 放入，不加锁
+                if (casTabAt(tab, i, null, new Node<>(hash, key, value, null))) {
+                    break;
+                }
+            } else if ((fh = f.hash) == MOVED) {
+                // 该桶正在迁移，先帮忙迁移再重试
+                tab = helpTransfer(tab, f);
+            } else {
+                V oldVal = null;
+                synchronized (f) {
+                    // 加锁后确认头节点没有变化
+                    if (tabAt(tab, i) == f) {
+                        binCount = 1;
+                        for (Node<K, V> e = f;; ++binCount) {
+                            K ek;
+                            if (e.hash == hash && ((ek = e.key) == key || key.equals(ek))) {
+                                oldVal = e.val;
+                                e.val = value;
+                                break;
+                            }
+                            Node<K, V> pred = e;
+                            if ((e = e.next) == null) {
+                                pred.next = new Node<>(hash, key, value, null);
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (oldVal != null) {
+                        return oldVal;
+                    }
+                    break;
+                }
+            }
+        }
+        addCount(1);
+        return null;
+    }
+
+    /**
+     * 删除指定 key 的键值对
+     *
+     * @return 如果找到并删除了键值对，则返回对应的 value；否则返回 null
+     */
+    public V remove(K key) {
+        int hash = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        for (;;) {
+            Node<K, V> f;
+            int n;
+            int i;
+            if (tab == null || (n = tab.length) == 0 || (f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                return null;
+            }
+            if (f.hash == MOVED) {
+                tab = helpTransfer(tab, f);
+                continue;
+            }
+            V oldVal = null;
+            boolean validated = false;
+            synchronized (f) {
+                if (tabAt(tab, i) == f) {
+                    validated = true;
+                    for (Node<K, V> e = f, pred = null; e != null; pred = e, e = e.next) {
+                        K ek;
+                        if (e.hash == hash && ((ek = e.key) == key || key.equals(ek))) {
+                            oldVal = e.val;
+                            if (pred != null) {
+                                pred.next = e.next;
+                            } else {
+                                setTabAt(tab, i, e.next);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (validated) {
+                if (oldVal != null) {
+                    addCount(-1);
+                }
+                return oldVal;
+            }
+        }
+    }
+
+    /**
+     * 返回键值对数量
+     * 并发修改时返回的是某个近似时刻的值
+     */
+    public int size() {
+        long n = counter.sum();
+        return n < 0 ? 0 : n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+    }
+
+    /**
+     * 初始化数组，只有一个线程能把 sizeCtl 改成 -1 并负责创建，其余线程让出 CPU 等待
+     */
+    private Node<K, V>[] initTable() {
+        Node<K, V>[] tab;
+        int sc;
+        while ((tab = table) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0) {
+                Thread.yield();
+            } else if (SIZE_CTL.compareAndSet(this, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length == 0) {
+                        int n = sc > 0 ? sc : DEFAULT_CAPACITY;
+                        tab = new Node[n];
+                        table = tab;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * 更新元素数量，新增元素后检查是否需要扩容（或协助正在进行的扩容）
+     */
+    private void addCount(long x) {
+        counter.add(x);
+        if (x <= 0) {
+            return;
+        }
+        long s = counter.sum();
+        Node<K, V>[] tab;
+        Node<K, V>[] nt;
+        int n;
+        int sc;
+        while (s >= (long) (sc = sizeCtl) && (tab = table) != null && (n = tab.length) < MAXIMUM_CAPACITY) {
+            int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+            if (sc < 0) {
+                // 已经在扩容，加入进来协助；扩容即将结束或者没有可领取的桶时退出
+                if (sc == rs + MAX_RESIZERS || sc == rs + 1 || (nt = nextTable) == null || transferIndex <= 0) {
+                    break;
+                }
+                if (SIZE_CTL.compareAndSet(this, sc, sc + 1)) {
+                    transfer(tab, nt);
+                }
+            } else if (SIZE_CTL.compareAndSet(this, sc, rs + 2)) {
+                // 第一个发起扩容的线程
+                transfer(tab, null);
+            }
+            s = counter.sum();
+        }
+    }
+
+    /**
+     * 写操作遇到 ForwardingNode 时协助迁移
+     *
+     * @return 迁移后应该继续使用的数组
+     */
+    private Node<K, V>[] helpTransfer(Node<K, V>[] tab, Node<K, V> f) {
+        Node<K, V>[] nextTab;
+        int sc;
+        if (f instanceof ForwardingNode && (nextTab = ((ForwardingNode<K, V>) f).nextTable) != null) {
+            int rs = resizeStamp(tab.length) << RESIZE_STAMP_SHIFT;
+            while (nextTab == nextTable && table == tab && (sc = sizeCtl) < 0) {
+                if (sc == rs + MAX_RESIZERS || sc == rs + 1 || transferIndex <= 0) {
+                    break;
+                }
+                if (SIZE_CTL.compareAndSet(this, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return table;
+    }
+
+    /**
+     * 扩容戳：由数组长度决定，同一轮扩容的所有线程得到的值相同
+     * 最高位为 1，左移 16 位后 sizeCtl 一定是负数
+     */
+    static int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    /**
+     * 把旧数组中的桶迁移到新数组
+     * 每个线程每次从 transferIndex 领取一段桶，从后往前逐个迁移；
+     * 迁移完的桶放入 ForwardingNode，读操作遇到它会转到新数组查找。
+     * 链表按 (hash &amp; n) 拆成 lo/hi 两条，末尾已经同属一侧的一段直接复用，其余节点复制，
+     * 这样正在遍历旧链表的读线程不会受影响
+     */
+    private void transfer(Node<K, V>[] tab, Node<K, V>[] nextTab) {
+        int n = tab.length;
+        int stride = NCPU > 1 ? (n >>> 3) / NCPU : n;
+        if (stride < MIN_TRANSFER_STRIDE) {
+            stride = MIN_TRANSFER_STRIDE;
+        }
+        if (nextTab == null) {
+            nextTab = new Node[n << 1];
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        int nextn = nextTab.length;
+        ForwardingNode<K, V> fwd = new ForwardingNode<>(nextTab);
+        boolean advance = true;
+        boolean finishing = false;
+        for (int i = 0, bound = 0;;) {
+            Node<K, V> f;
+            // 领取下一个要迁移的桶
+            while (advance) {
+                int nextIndex;
+                int nextBound;
+                if (--i >= bound || finishing) {
+                    advance = false;
+                } else if ((nextIndex = transferIndex) <= 0) {
+                    i = -1;
+                    advance = false;
+                } else if (TRANSFER_INDEX.compareAndSet(this, nextIndex,
+                        nextBound = nextIndex > stride ? nextIndex - stride : 0)) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if (i < 0 || i >= n || i + n >= nextn) {
+                if (finishing) {
+                    // 最后一个线程完成全表复查后，切换到新数组
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                int sc = sizeCtl;
+                if (SIZE_CTL.compareAndSet(this, sc, sc - 1)) {
+                    // 不是最后一个退出的线程，直接返回
+                    if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT) {
+                        return;
+                    }
+                    // 最后一个线程再从头检查一遍所有桶
+                    finishing = advance = true;
+                    i = n;
+                }
+            } else if ((f = tabAt(tab, i)) == null) {
+                advance = casTabAt(tab, i, null, fwd);
+            } else if (f.hash == MOVED) {
+                advance = true;
+            } else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        // 找出链表末尾新位置相同的最长一段，这段可以整体复用
+                        int runBit = f.hash & n;
+                        Node<K, V> lastRun = f;
+                        for (Node<K, V> p = f.next; p != null; p = p.next) {
+                            int b = p.hash & n;
+                            if (b != runBit) {
+                                runBit = b;
+                                lastRun = p;
+                            }
+                        }
+                        Node<K, V> ln;
+                        Node<K, V> hn;
+                        if (runBit == 0) {
+                            ln = lastRun;
+                            hn = null;
+                        } else {
+                            hn = lastRun;
+                            ln = null;
+                        }
+                        for (Node<K, V> p = f; p != lastRun; p = p.next) {
+                            if ((p.hash & n) == 0) {
+                                ln = new Node<>(p.hash, p.key, p.val, ln);
+                            } else {
+                                hn = new Node<>(p.hash, p.key, p.val, hn);
+                            }
+                        }
+                        setTabAt(nextTab, i, ln);
+                        setTabAt(nextTab, i + n, hn);
+                        setTabAt(tab, i, fwd);
+                        advance = true;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> Node<K, V> tabAt(Node<K, V>[] tab, int i) {
+        return (Node<K, V>) TABLE_ELEMENT.getAcquire(tab, i);
+    }
+
+    static <K, V> boolean casTabAt(Node<K, V>[] tab, int i, Node<K, V> expected, Node<K, V> v) {
+        return TABLE_ELEMENT.compareAndSet(tab, i, expected, v);
+    }
+
+    static <K, V> void setTabAt(Node<K, V>[] tab, int i, Node<K, V> v) {
+        TABLE_ELEMENT.setRelease(tab, i, v);
+    }
+
+    /**
+     * 键值对节点，value 和 next 是 volatile 的，读线程不加锁也能看到最新值
+     */
+    static class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V val;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V val, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+
+        /**
+         * 从当前节点开始查找 key
+         */
+        Node<K, V> find(int h, Object k) {
+            Node<K, V> e = this;
+            do {
+                K ek;
+                if (e.hash == h && ((ek = e.key) == k || k.equals(ek))) {
+                    return e;
+                }
+            } while ((e = e.next) != null);
+            return null;
+        }
+    }
+
+    /**
+     * 迁移完成的桶中放置的标记节点，指向新数组
+     */
+    static final class ForwardingNode<K, V> extends Node<K, V> {
+        final Node<K, V>[] nextTable;
+
+        ForwardingNode(Node<K, V>[] nextTable) {
+            super(MOVED, null, null, null);
+            this.nextTable = nextTable;
+        }
+
+        /**
+         * 到新数组中查找，新数组也可能正在迁移，需要循环跟随
+         */
+        @Override
+        Node<K, V> find(int h, Object k) {
+            Node<K, V>[] tab = nextTable;
+            outer:
+            for (;;) {
+                Node<K, V> e = tabAt(tab, (tab.length - 1) & h);
+                if (e == null) {
+                    return null;
+                }
+                for (;;) {
+                    int eh = e.hash;
+                    K ek;
+                    if (eh == h && ((ek = e.key) == k || k.equals(ek))) {
+                        return e;
+                    }
+                    if (eh < 0) {
+                        tab = ((ForwardingNode<K, V>) e).nextTable;
+                        continue outer;
+                    }
+                    if ((e = e.next) == null) {
+                        return null;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final VarHandle TABLE_ELEMENT = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle SIZE_CTL;
+    private static final VarHandle TRANSFER_INDEX;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SIZE_CTL = lookup.findVarHandle(MyConcurrentHashMap.class, "sizeCtl", int.class);
+            TRANSFER_INDEX = lookup.findVarHandle(MyConcurrentHashMap.class, "transferIndex", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -1,8 +1,55 @@
 package com.richal.learn;
 
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 /**
  * 手写 HashMap
- * 基于数组 + 链表实现的简易 HashMap
+ * 基于数组 + 链表 + 红黑树实现的简易 HashMap
+ *
+ * 当某个桶的链表长度达到 {@link #TREEIFY_THRESHOLD} 时，会把链表转换成红黑树（树化），
+ * 避免大量哈希冲突时查找退化为 O(n)；当树中的节点数降到 {@link #UNTREEIFY_THRESHOLD} 以下时，
+ * 再退化回链表。树中节点先按 hash 排序，hash 相同时再按 Comparable 排序。
+ *
+ * key 的 hashCode 会先经过 {@link #hash(Object)} 打散再定位桶，避免差异只在高位的 key
+ * （比如 Long ID、按页对齐的地址）挤进少数几个桶。
+ *
+ * 扩容时每个旧桶按新增的那一个 hash 位拆成 lo/hi 两条链，保持节点的相对顺序。
+ * 开启渐进式扩容后，扩容只分配新数组，之后每次 put 最多迁移 {@link #RESIZE_STRIDE} 个旧桶，
+ * 单次插入不会因为整表迁移而停顿；迁移期间新旧两个数组同时生效。
+ *
+ * {@link #snapshotTo} 把全部键值对写成快照文件，{@link #mapFrom} 以内存映射的方式重新加载：
+ * 加载时不读取任何键值对，读操作直接在映射上查找，直到第一次写入才把键值对搬到堆上。
+ * 写入前后查询的结果相同：序列化器写不出的 key 按不存在处理，null key 抛出 NullPointerException。
+ *
+ * {@link #keySet()}、{@link #values()}、{@link #entrySet()} 是基于原表的视图，迭代器是 fail-fast 的：
+ * 迭代期间如果不是通过迭代器自己的 remove 修改了结构，下一次访问会抛出 ConcurrentModificationException。
+ * {@link #compute}、{@link #computeIfAbsent}、{@link #merge} 只定位一次桶，读改写不需要重复计算 hash。
+ * {@link #parallelForEach}、{@link #parallelReduce}、{@link #parallelSearch} 把桶数组按区间拆分后在 ForkJoinPool 上并行扫描。
+ *
+ * key 的哈希和相等由构造时传入的 {@link HashingStrategy} 决定，默认使用 key 自己的 hashCode/equals。
+ * 每个节点缓存了打散后的 hash，查找时先比较 hash，再比较引用，最后才调用 equals；
+ * get 和覆盖已有 key 的 put 不分配任何对象。
  *
  * @author Richal
  * @since 2025/08/12
@@ -10,15 +57,170 @@ package com.richal.learn;
 public class MyHashMap<K, V> {
 
     /**
-     * 存储键值对的数组，每个位置存储一个链表头节点
+     * 链表长度达到该值时转换为红黑树
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * 树中节点数降到该值时退化为链表
+     * 比树化阈值小一些，避免在阈值附近反复转换
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * 允许树化的最小数组长度
+     * 数组太小时冲突多半是容量不足导致的，此时优先扩容而不是树化
+     */
+    static final int MIN_TREEIFY_CAPACITY = 64;
+
+    /**
+     * 默认数组长度
      */
-    Node<K, V>[] table = new Node[16];
-    
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * 数组的最大长度
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 默认扩容因子
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * 渐进式扩容时每次 put 最多迁移的旧桶数量
+     */
+    static final int RESIZE_STRIDE = 16;
+
+    /**
+     * 存储键值对的数组，每个位置存储一个链表头节点或一个树桶 {@link TreeBin}
+     * 长度总是 2 的幂
+     */
+    Node<K, V>[] table;
+
     /**
      * 当前 HashMap 中的键值对数量
      */
     private int size = 0;
 
+    /**
+     * 扩容因子
+     */
+    private final float loadFactor;
+
+    /**
+     * 扩容阈值，元素数量超过该值时扩容，等于 table.length * loadFactor
+     */
+    private int threshold;
+
+    /**
+     * 是否开启渐进式扩容
+     */
+    private final boolean incrementalResize;
+
+    /**
+     * 渐进式扩容中尚未迁移完的旧数组，不在迁移中时为 null
+     */
+    Node<K, V>[] oldTable;
+
+    /**
+     * 旧数组中已经迁移完成的桶数量，下标小于它的旧桶都已经搬到新数组
+     */
+    int transferIndex;
+
+    /**
+     * 从快照文件映射而来、尚未搬到堆上的键值对，不为 null 时 table 为空
+     */
+    private OffHeapHashMap<K, V> snapshot;
+
+    /**
+     * 结构修改次数（新增、删除键值对），迭代器据此发现并发修改
+     */
+    int modCount;
+
+    /**
+     * key 的哈希与相等策略
+     */
+    private final HashingStrategy<? super K> strategy;
+
+    /**
+     * 使用默认容量 16 和默认扩容因子 0.75 创建 HashMap
+     */
+    public MyHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.incrementalResize = false;
+        this.strategy = HashingStrategy.DEFAULT;
+        this.table = new Node[DEFAULT_INITIAL_CAPACITY];
+        this.threshold = (int) (DEFAULT_INITIAL_CAPACITY * DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * 按预期元素数量预先分配数组，使用默认扩容因子
+     *
+     * @param expectedSize 预期存放的键值对数量
+     */
+    public MyHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * 按预期元素数量和扩容因子预先分配数组
+     * 数组长度取能容纳 expectedSize 个元素的最小 2 的幂，放入不超过 expectedSize 个元素时不会发生扩容
+     *
+     * @param expectedSize 预期存放的键值对数量
+     * @param loadFactor 扩容因子
+     */
+    public MyHashMap(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, false);
+    }
+
+    /**
+     * 按预期元素数量和扩容因子预先分配数组，并指定是否开启渐进式扩容
+     * 渐进式扩容适合千万级的大表：扩容时不再一次性迁移全部桶，而是分摊到之后的每次 put 上
+     *
+     * @param expectedSize 预期存放的键值对数量
+     * @param loadFactor 扩容因子
+     * @param incrementalResize 是否开启渐进式扩容
+     */
+    public MyHashMap(int expectedSize, float loadFactor, boolean incrementalResize) {
+        this(expectedSize, loadFactor, incrementalResize, HashingStrategy.DEFAULT);
+    }
+
+    /**
+     * 使用默认容量和扩容因子，按指定策略计算 key 的哈希和相等
+     * 比如 {@link HashingStrategy#IDENTITY} 得到与 IdentityHashMap 相同语义的 HashMap
+     *
+     * @param strategy key 的哈希与相等策略
+     */
+    public MyHashMap(HashingStrategy<? super K> strategy) {
+        this(0, DEFAULT_LOAD_FACTOR, false, strategy);
+    }
+
+    /**
+     * 指定全部参数创建 HashMap
+     *
+     * @param expectedSize 预期存放的键值对数量
+     * @param loadFactor 扩容因子
+     * @param incrementalResize 是否开启渐进式扩容
+     * @param strategy key 的哈希与相等策略
+     */
+    public MyHashMap(int expectedSize, float loadFactor, boolean incrementalResize, HashingStrategy<? super K> strategy) {
+        Objects.requireNonNull(strategy);
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("非法的预期容量: " + expectedSize);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("非法的扩容因子: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.incrementalResize = incrementalResize;
+        this.strategy = strategy;
+        int capacity = tableSizeFor((long) Math.ceil(expectedSize / (double) loadFactor));
+        this.table = new Node[capacity];
+        this.threshold = thresholdFor(capacity);
+    }
+
     /**
      * 添加键值对到 HashMap 中
      * 1. 如果 key 已存在，则更新 value 并返回旧值
@@ -29,38 +231,63 @@ public class MyHashMap<K, V> {
      * @return 如果 key 已存在，则返回旧值；否则返回 null
      */
     public V put(K key, V value) {
-        // 检查是否需要扩容
-        resizeIfNecessary();
-        
-        // 计算 key 的哈希索引
-        int keyIndex = indexOf(key);
-        Node<K, V> nodeKV = table[keyIndex];
-        
+        if (snapshot != null) {
+            materialize();
+        }
+        // 渐进式扩容中，先顺带迁移一批旧桶
+        if (oldTable != null) {
+            transferSome();
+        }
+
+        // 计算 key 的哈希值和索引
+        int hash = spread(key);
+        Node<K, V>[] tab = tableFor(hash);
+        int keyIndex = indexOf(tab, hash);
+        Node<K, V> nodeKV = tab[keyIndex];
+
         // 情况1：该索引位置为空，直接创建新节点
         if (nodeKV == null) {
-            table[keyIndex] = new Node<>(key, value);
-            size++;
+            tab[keyIndex] = new Node<>(hash, key, value, null);
+            afterInsert();
             return null;
         }
-        
-        // 情况2：该索引位置已有节点，需要遍历链表
+
+        // 情况2：该索引位置是一棵红黑树，交给树桶处理
+        if (nodeKV instanceof TreeBin) {
+            TreeNode<K, V> existing = ((TreeBin<K, V>) nodeKV).putTreeVal(hash, key, value);
+            if (existing != null) {
+                V oldValue = existing.value;
+                existing.value = value;
+                return oldValue;
+            }
+            afterInsert();
+            return null;
+        }
+
+        // 情况3：该索引位置是链表，需要遍历链表
+        int binCount = 1;
         while (true) {
             // 如果找到相同的 key，更新 value 并返回旧值
-            if (nodeKV.key.equals(key)) {
+            if (matches(nodeKV, hash, key)) {
                 V oldValue = nodeKV.value;
                 nodeKV.value = value;
                 return oldValue;
             }
-            
+
             // 如果到达链表末尾，添加新节点
-            if (nodeKV.next == null){
-                nodeKV.next = new Node<>(key, value);
-                size++;
+            if (nodeKV.next == null) {
+                nodeKV.next = new Node<>(hash, key, value, null);
+                // 链表过长，转换为红黑树
+                if (binCount + 1 >= TREEIFY_THRESHOLD) {
+                    treeifyBin(tab, keyIndex);
+                }
+                afterInsert();
                 return null;
             }
-            
+
             // 继续遍历链表
             nodeKV = nodeKV.next;
+            binCount++;
         }
     }
 
@@ -71,13 +298,42 @@ public class MyHashMap<K, V> {
      * @return 如果找到对应的 key，则返回其 value；否则返回 null
      */
     public V get(K key) {
-        int keyIndex = indexOf(key);
-        Node<K, V> nodeKV = table[keyIndex];
-        
+        if (snapshot != null) {
+            return snapshot.getQuietly(key);
+        }
+        Node<K, V> node = getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * 是否包含指定 key
+     */
+    public boolean containsKey(K key) {
+        if (snapshot != null) {
+            return snapshot.containsKeyQuietly(key);
+        }
+        return getNode(key) != null;
+    }
+
+    /**
+     * 查找 key 所在的节点
+     *
+     * @return 找不到时返回 null
+     */
+    private Node<K, V> getNode(K key) {
+        int hash = spread(key);
+        Node<K, V>[] tab = tableFor(hash);
+        Node<K, V> nodeKV = tab[indexOf(tab, hash)];
+
+        // 树桶：在红黑树中查找，O(log n)
+        if (nodeKV instanceof TreeBin) {
+            return ((TreeBin<K, V>) nodeKV).find(hash, key);
+        }
+
         // 遍历链表查找匹配的 key
         while (nodeKV != null) {
-            if (nodeKV.key.equals(key)) {
-                return nodeKV.value;
+            if (matches(nodeKV, hash, key)) {
+                return nodeKV;
             }
             nodeKV = nodeKV.next;
         }
@@ -91,35 +347,57 @@ public class MyHashMap<K, V> {
      * @return 如果找到并删除了键值对，则返回对应的 value；否则返回 null
      */
     public V remove(K key) {
-        int keyIndex = indexOf(key);
-        Node<K, V> nodeKV = table[keyIndex];
-        
+        if (snapshot != null) {
+            materialize();
+        }
+        int hash = spread(key);
+        Node<K, V>[] tab = tableFor(hash);
+        int keyIndex = indexOf(tab, hash);
+        Node<K, V> nodeKV = tab[keyIndex];
+
         // 如果该位置为空，直接返回 null
         if (nodeKV == null) {
             return null;
         }
 
+        // 树桶：从红黑树中删除，节点数过少时退化为链表
+        if (nodeKV instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) nodeKV;
+            TreeNode<K, V> found = bin.find(hash, key);
+            if (found == null) {
+                return null;
+            }
+            if (bin.removeTreeNode(found)) {
+                tab[keyIndex] = TreeBin.untreeify(bin.first);
+            }
+            size--;
+            modCount++;
+            return found.value;
+        }
+
         // 特殊情况：如果要删除的是链表的第一个节点
-        if (nodeKV.key.equals(key)) {
-            table[keyIndex] = nodeKV.next; // 将头指针指向下一个节点
+        if (matches(nodeKV, hash, key)) {
+            tab[keyIndex] = nodeKV.next; // 将头指针指向下一个节点
             size--;
+            modCount++;
             return nodeKV.value;
         }
 
         // 一般情况：要删除的节点在链表中间或末尾
         Node<K, V> prev = nodeKV; // 记录前一个节点
         nodeKV = nodeKV.next;     // 从第二个节点开始查找
-        
+
         while (nodeKV != null) {
-            if (nodeKV.key.equals(key)) {
+            if (matches(nodeKV, hash, key)) {
                 prev.next = nodeKV.next; // 将前一个节点直接指向后一个节点，"跳过"当前节点
                 size--;
+                modCount++;
                 return nodeKV.value;
             }
             prev = nodeKV;
             nodeKV = nodeKV.next;
         }
-        
+
         // 如果遍历完整个链表都没找到，返回 null
         return null;
     }
@@ -130,87 +408,1652 @@ public class MyHashMap<K, V> {
      * @return 键值对数量
      */
     public int size() {
-        return this.size;
+        return snapshot != null ? (int) snapshot.size() : this.size;
+    }
+
+    /**
+     * 是否为空
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 删除所有键值对，保留当前数组长度
+     */
+    public void clear() {
+        if (snapshot != null) {
+            snapshot.close();
+            snapshot = null;
+        }
+        oldTable = null;
+        transferIndex = 0;
+        Arrays.fill(table, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * 放入 m 中的所有键值对
+     * 先按合并后的数量一次性扩容到位，放入过程中不会再逐级扩容
+     */
+    public void putAll(MyHashMap<? extends K, ? extends V> m) {
+        reserve((long) size() + m.size());
+        m.forEach(this::put);
+    }
+
+    /**
+     * 放入 m 中的所有键值对，与 {@link #putAll(MyHashMap)} 相同
+     */
+    public void putAll(Map<? extends K, ? extends V> m) {
+        reserve((long) size() + m.size());
+        m.forEach(this::put);
+    }
+
+    /**
+     * 确保放入 expectedSize 个键值对之前不需要扩容
+     */
+    private void reserve(long expectedSize) {
+        if (snapshot != null) {
+            materialize();
+        }
+        int capacity = tableSizeFor((long) Math.ceil(expectedSize / (double) loadFactor));
+        while (table.length < capacity) {
+            resize();
+        }
     }
 
     /**
-     * 计算 key 在数组中的索引位置
-     * 使用 key 的 hashCode 取模得到索引，并确保结果为非负数
+     * 根据 key 当前的值（不存在时为 null）计算新值，只定位一次桶
+     * 新值为 null 时删除 key，否则写入新值
      *
      * @param key 键
-     * @return 数组索引，范围在 [0, table.length-1]
+     * @param remappingFunction 根据 key 和旧值计算新值，执行期间不能修改本 HashMap
+     * @return 新值
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        if (snapshot != null) {
+            materialize();
+        }
+        if (oldTable != null) {
+            transferSome();
+        }
+        int hash = spread(key);
+        Node<K, V>[] tab = tableFor(hash);
+        int keyIndex = indexOf(tab, hash);
+        Node<K, V> head = tab[keyIndex];
+        int expectedModCount = modCount;
+
+        // 树桶：查找一次，再按结果更新、删除或插入
+        if (head instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) head;
+            TreeNode<K, V> found = bin.find(hash, key);
+            V newValue = remappingFunction.apply(key, found == null ? null : found.value);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (found != null && newValue != null) {
+                found.value = newValue;
+            } else if (found != null) {
+                if (bin.removeTreeNode(found)) {
+                    tab[keyIndex] = TreeBin.untreeify(bin.first);
+                }
+                size--;
+                modCount++;
+            } else if (newValue != null) {
+                bin.putTreeVal(hash, key, newValue);
+                afterInsert();
+            }
+            return newValue;
+        }
+
+        // 链表：遍历时记住前驱节点，删除和在末尾插入都不需要再遍历一次
+        Node<K, V> prev = null;
+        Node<K, V> nodeKV = head;
+        int binCount = 0;
+        while (nodeKV != null && !matches(nodeKV, hash, key)) {
+            prev = nodeKV;
+            nodeKV = nodeKV.next;
+            binCount++;
+        }
+        V newValue = remappingFunction.apply(key, nodeKV == null ? null : nodeKV.value);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (nodeKV != null && newValue != null) {
+            nodeKV.value = newValue;
+        } else if (nodeKV != null) {
+            if (prev == null) {
+                tab[keyIndex] = nodeKV.next;
+            } else {
+                prev.next = nodeKV.next;
+            }
+            size--;
+            modCount++;
+        } else if (newValue != null) {
+            Node<K, V> created = new Node<>(hash, key, newValue, null);
+            if (prev == null) {
+                tab[keyIndex] = created;
+            } else {
+                prev.next = created;
+            }
+            if (binCount + 1 >= TREEIFY_THRESHOLD) {
+                treeifyBin(tab, keyIndex);
+            }
+            afterInsert();
+        }
+        return newValue;
+    }
+
+    /**
+     * key 不存在（或值为 null）时用 mappingFunction 计算值并放入，只定位一次桶
+     *
+     * @return 已有的值或新计算的值，mappingFunction 返回 null 时不放入并返回 null
      */
-    private int indexOf(Object key) {
-        // 使用 Math.abs 确保索引为非负数，或者使用位运算
-        return key.hashCode() & (table.length - 1);
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        return compute(key, (k, oldValue) -> oldValue != null ? oldValue : mappingFunction.apply(k));
     }
 
     /**
-     * 检查并在必要时扩容哈希表
-     * 当元素数量达到数组长度的 75% 时进行扩容，新数组大小为原来的 2 倍
-     * 扩容后需要重新计算所有键值对的位置并重新分配
+     * key 不存在时放入 value，存在时用 remappingFunction 合并旧值和 value，只定位一次桶
+     * 适合计数、求和：{@code map.merge(word, 1, Integer::sum)}
+     *
+     * @return 合并后的值，remappingFunction 返回 null 时删除 key 并返回 null
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return compute(key, (k, oldValue) -> oldValue == null ? value : remappingFunction.apply(oldValue, value));
+    }
+
+    /**
+     * 遍历所有键值对，action 执行期间修改了结构时抛出 ConcurrentModificationException
      */
-    private void resizeIfNecessary() {
-        // 如果当前元素数量小于数组长度的 75%，不需要扩容
-        if (this.size < table.length * 0.75) {
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        if (snapshot != null) {
+            snapshot.forEach(action);
             return;
         }
-        
-        // 创建一个新的数组，大小为原来的 2 倍
-        Node<K, V>[] newTable = new Node[this.table.length * 2];
-        
-        // 遍历原数组中的每个桶（链表）
-        for (Node<K, V> head : this.table) {
-            // 如果桶为空，跳过
-            if (head == null) {
-                continue;
-            }
-            
-            // 遍历链表中的每个节点
-            Node<K, V> current = head;
-            while (current != null) {
-                // 计算节点在新数组中的索引
-                int newIndex = current.key.hashCode() & (newTable.length - 1);
-                
-                // 情况1：新位置为空，直接放入
-                if (newTable[newIndex] == null) {
-                    // 保存当前节点的下一个节点
-                    Node<K, V> next = current.next;
-                    // 将当前节点放入新数组
-                    newTable[newIndex] = current;
-                    // 断开当前节点与原链表的连接
-                    current.next = null;
-                    // 继续处理下一个节点
-                    current = next;
-                } else {
-                    // 情况2：新位置已有节点，采用头插法
-                    // 保存当前节点的下一个节点
-                    Node<K, V> next = current.next;
-                    // 将当前节点插入到新位置的链表头部
-                    current.next = newTable[newIndex];
-                    newTable[newIndex] = current;
-                    // 继续处理下一个节点
-                    current = next;
+        if (oldTable != null) {
+            finishTransfer();
+        }
+        int expectedModCount = modCount;
+        for (Node<K, V> head : table) {
+            Node<K, V> node = head instanceof TreeBin ? ((TreeBin<K, V>) head).first : head;
+            for (; node != null; node = node.next) {
+                action.accept(node.key, node.value);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * 所有 key 组成的视图，删除视图中的元素会删除对应的键值对
+     */
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new HashIterator<K>() {
+                    @Override
+                    K extract(Node<K, V> node) {
+                        return node.key;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return MyHashMap.this.size();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                return containsKey((K) o);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean remove(Object o) {
+                if (!containsKey((K) o)) {
+                    return false;
+                }
+                MyHashMap.this.remove((K) o);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                MyHashMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * 所有 value 组成的视图
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new HashIterator<V>() {
+                    @Override
+                    V extract(Node<K, V> node) {
+                        return node.value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return MyHashMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                MyHashMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * 所有键值对组成的视图，通过 {@link Map.Entry#setValue} 可以直接修改值
+     */
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new HashIterator<Map.Entry<K, V>>() {
+                    @Override
+                    Map.Entry<K, V> extract(Node<K, V> node) {
+                        return node;
+                    }
+                };
+            }
+
+            @Override
+            public Spliterator<Map.Entry<K, V>> spliterator() {
+                return MyHashMap.this.spliterator();
+            }
+
+            @Override
+            public int size() {
+                return MyHashMap.this.size();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry)) {
+                    return false;
                 }
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                K key = (K) e.getKey();
+                if (!containsKey(key)) {
+                    return false;
+                }
+                return Objects.equals(get(key), e.getValue());
+            }
+
+            @Override
+            public void clear() {
+                MyHashMap.this.clear();
             }
+        };
+    }
+
+    /**
+     * 可拆分的键值对 Spliterator，按桶下标区间对半拆分，供并行流和并行批量操作使用
+     * 从快照加载的 HashMap 会先把键值对搬到堆上
+     */
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        prepareScan();
+        return new EntrySpliterator<>(this, table, 0, table.length, size, modCount);
+    }
+
+    /**
+     * 并行遍历所有键值对，action 需要是线程安全的
+     *
+     * @param parallelismThreshold 单个任务处理的键值对数量（估计值）不超过该值时不再拆分，
+     *                             Long.MAX_VALUE 表示单线程执行，1 表示尽可能拆分
+     * @param action 对每个键值对执行的操作
+     */
+    public void parallelForEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        EntrySpliterator<K, V> sp = parallelSpliterator(parallelismThreshold);
+        new ForEachTask<>(sp, parallelismThreshold, action).invoke();
+        sp.checkForComodification();
+    }
+
+    /**
+     * 并行地把每个键值对转换成结果，再两两合并
+     *
+     * @param parallelismThreshold 不再拆分任务的键值对数量，含义同 {@link #parallelForEach}
+     * @param transformer 把键值对转换成结果，返回 null 表示跳过该键值对
+     * @param reducer 合并两个非 null 的结果，需要满足结合律
+     * @return 合并后的结果，没有任何非 null 结果时返回 null
+     */
+    public <U> U parallelReduce(long parallelismThreshold,
+                                BiFunction<? super K, ? super V, ? extends U> transformer,
+                                BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        EntrySpliterator<K, V> sp = parallelSpliterator(parallelismThreshold);
+        U result = new ReduceTask<K, V, U>(sp, parallelismThreshold, transformer, reducer).invoke();
+        sp.checkForComodification();
+        return result;
+    }
+
+    /**
+     * 并行查找，返回任意一个非 null 的结果，找到后其他任务尽快停止
+     *
+     * @param parallelismThreshold 不再拆分任务的键值对数量，含义同 {@link #parallelForEach}
+     * @param searchFunction 对键值对求值，返回非 null 表示找到
+     * @return 找到的结果，找不到时返回 null
+     */
+    public <U> U parallelSearch(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Objects.requireNonNull(searchFunction);
+        EntrySpliterator<K, V> sp = parallelSpliterator(parallelismThreshold);
+        AtomicReference<U> result = new AtomicReference<>();
+        new SearchTask<>(sp, parallelismThreshold, searchFunction, result).invoke();
+        return result.get();
+    }
+
+    private EntrySpliterator<K, V> parallelSpliterator(long parallelismThreshold) {
+        if (parallelismThreshold <= 0) {
+            throw new IllegalArgumentException("非法的并行阈值: " + parallelismThreshold);
         }
-        
-        // 更新哈希表数组引用
-        this.table = newTable;
+        return (EntrySpliterator<K, V>) spliterator();
     }
 
     /**
-     * 键值对节点类，形成单向链表结构
-     * 用于解决哈希冲突（不同的 key 可能有相同的哈希值）
+     * 全表扫描前的准备：把快照中的键值对搬到堆上，并完成渐进式扩容，保证只需要扫描 table
      */
-    class Node<K, V> {
-        K key;            // 键
-        V value;          // 值
-        Node<K, V> next;  // 指向下一个节点的引用，用于形成链表
+    private void prepareScan() {
+        if (snapshot != null) {
+            materialize();
+        }
+        if (oldTable != null) {
+            finishTransfer();
+        }
+    }
 
-        public Node(K key, V value) {
-            this.key = key;
-            this.value = value;
+    /**
+     * 按桶下标区间 [index, fence) 遍历的 Spliterator
+     * 拆分只发生在桶的边界上，已经开始遍历某个桶之后不再拆分
+     */
+    static final class EntrySpliterator<K, V> implements Spliterator<Map.Entry<K, V>> {
+        private final MyHashMap<K, V> map;
+        private final Node<K, V>[] tab;
+        private int index;
+        private final int fence;
+        private long est;
+        private final int expectedModCount;
+
+        /**
+         * 当前桶中下一个要返回的节点
+         */
+        private Node<K, V> current;
+
+        EntrySpliterator(MyHashMap<K, V> map, Node<K, V>[] tab, int index, int fence, long est, int expectedModCount) {
+            this.map = map;
+            this.tab = tab;
+            this.index = index;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public EntrySpliterator<K, V> trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            if (lo >= mid || current != null) {
+                return null;
+            }
+            index = mid;
+            est >>>= 1;
+            return new EntrySpliterator<>(map, tab, lo, mid, est, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            Objects.requireNonNull(action);
+            Node<K, V> e = nextNode();
+            if (e == null) {
+                return false;
+            }
+            action.accept(e);
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            Objects.requireNonNull(action);
+            for (Node<K, V> e; (e = nextNode()) != null; ) {
+                action.accept(e);
+            }
+            checkForComodification();
+        }
+
+        /**
+         * 返回下一个节点并前进，区间遍历完时返回 null
+         */
+        Node<K, V> nextNode() {
+            while (current == null) {
+                if (index >= fence) {
+                    return null;
+                }
+                Node<K, V> head = tab[index++];
+                current = head instanceof TreeBin ? ((TreeBin<K, V>) head).first : head;
+            }
+            Node<K, V> e = current;
+            current = e.next;
+            return e;
+        }
+
+        void checkForComodification() {
+            if (map.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * 并行遍历任务：估计数量超过阈值时对半拆分，否则直接遍历
+     */
+    @SuppressWarnings("serial")
+    static final class ForEachTask<K, V> extends RecursiveAction {
+        private final EntrySpliterator<K, V> sp;
+        private final long threshold;
+        private final BiConsumer<? super K, ? super V> action;
+
+        ForEachTask(EntrySpliterator<K, V> sp, long threshold, BiConsumer<? super K, ? super V> action) {
+            this.sp = sp;
+            this.threshold = threshold;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            EntrySpliterator<K, V> prefix;
+            if (sp.estimateSize() > threshold && (prefix = sp.trySplit()) != null) {
+                invokeAll(new ForEachTask<>(prefix, threshold, action), new ForEachTask<>(sp, threshold, action));
+                return;
+            }
+            for (Node<K, V> e; (e = sp.nextNode()) != null; ) {
+                action.accept(e.key, e.value);
+            }
+        }
+    }
+
+    /**
+     * 并行归约任务：左右两半分别归约后再合并
+     */
+    @SuppressWarnings("serial")
+    static final class ReduceTask<K, V, U> extends RecursiveTask<U> {
+        private final EntrySpliterator<K, V> sp;
+        private final long threshold;
+        private final BiFunction<? super K, ? super V, ? extends U> transformer;
+        private final BiFunction<? super U, ? super U, ? extends U> reducer;
+
+        ReduceTask(EntrySpliterator<K, V> sp, long threshold,
+                   BiFunction<? super K, ? super V, ? extends U> transformer,
+                   BiFunction<? super U, ? super U, ? extends U> reducer) {
+            this.sp = sp;
+            this.threshold = threshold;
+            this.transformer = transformer;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected U compute() {
+            EntrySpliterator<K, V> prefix;
+            if (sp.estimateSize() > threshold && (prefix = sp.trySplit()) != null) {
+                ReduceTask<K, V, U> left = new ReduceTask<>(prefix, threshold, transformer, reducer);
+                left.fork();
+                U right = new ReduceTask<>(sp, threshold, transformer, reducer).compute();
+                return combine(left.join(), right);
+            }
+            U result = null;
+            for (Node<K, V> e; (e = sp.nextNode()) != null; ) {
+                result = combine(result, transformer.apply(e.key, e.value));
+            }
+            return result;
+        }
+
+        private U combine(U a, U b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null ? a : reducer.apply(a, b);
+        }
+    }
+
+    /**
+     * 并行查找任务：任意一个任务找到结果后写入 result，其他任务看到后停止
+     */
+    @SuppressWarnings("serial")
+    static final class SearchTask<K, V, U> extends RecursiveAction {
+        private final EntrySpliterator<K, V> sp;
+        private final long threshold;
+        private final BiFunction<? super K, ? super V, ? extends U> searchFunction;
+        private final AtomicReference<U> result;
+
+        SearchTask(EntrySpliterator<K, V> sp, long threshold,
+                   BiFunction<? super K, ? super V, ? extends U> searchFunction, AtomicReference<U> result) {
+            this.sp = sp;
+            this.threshold = threshold;
+            this.searchFunction = searchFunction;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (result.get() != null) {
+                return;
+            }
+            EntrySpliterator<K, V> prefix;
+            if (sp.estimateSize() > threshold && (prefix = sp.trySplit()) != null) {
+                invokeAll(new SearchTask<>(prefix, threshold, searchFunction, result),
+                        new SearchTask<>(sp, threshold, searchFunction, result));
+                return;
+            }
+            for (Node<K, V> e; result.get() == null && (e = sp.nextNode()) != null; ) {
+                U u = searchFunction.apply(e.key, e.value);
+                if (u != null) {
+                    result.compareAndSet(null, u);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * fail-fast 迭代器，按桶下标顺序遍历，树桶按其内部链表遍历
+     * 从快照加载的 HashMap 创建迭代器时会先把键值对搬到堆上
+     */
+    private abstract class HashIterator<T> implements Iterator<T> {
+        private Node<K, V> next;
+        private Node<K, V> current;
+        private int index;
+        private int expectedModCount;
+
+        HashIterator() {
+            prepareScan();
+            expectedModCount = modCount;
+            advance();
+        }
+
+        abstract T extract(Node<K, V> node);
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Node<K, V> e = next;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            current = e;
+            next = e.next;
+            if (next == null) {
+                advance();
+            }
+            return extract(e);
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            MyHashMap.this.remove(current.key);
+            current = null;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * 找到下一个非空桶的第一个节点
+         */
+        private void advance() {
+            Node<K, V>[] tab = table;
+            while (index < tab.length) {
+                Node<K, V> head = tab[index++];
+                if (head instanceof TreeBin) {
+                    head = ((TreeBin<K, V>) head).first;
+                }
+                if (head != null) {
+                    next = head;
+                    return;
+                }
+            }
+            next = null;
+        }
+    }
+
+    /**
+     * 把全部键值对写入快照文件，文件已存在时原子替换
+     * 文件格式见 {@link SnapshotFile}，key 按序列化后的字节定位，加载时必须使用相同的序列化器
+     * 快照里的 key 按字节判断相等，加载回来的 HashMap 总是使用 {@link HashingStrategy#DEFAULT}
+     *
+     * @param path 快照文件路径
+     * @param keySerializer key 的序列化器
+     * @param valueSerializer value 的序列化器
+     */
+    public void snapshotTo(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        SnapshotFile.write(path, keySerializer, valueSerializer, size(), this::forEach);
+    }
+
+    /**
+     * 以内存映射的方式加载快照文件
+     * 只读取文件头，耗时与键值对数量无关；get 直接在映射上查找并反序列化，
+     * 第一次 put/remove 时才把全部键值对搬到堆上，之后与普通 MyHashMap 完全相同
+     *
+     * @param path 由 {@link #snapshotTo} 写出的快照文件
+     * @param keySerializer key 的序列化器，必须与写快照时一致
+     * @param valueSerializer value 的序列化器，必须与写快照时一致
+     */
+    public static <K, V> MyHashMap<K, V> mapFrom(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        MyHashMap<K, V> map = new MyHashMap<>(0);
+        map.snapshot = SnapshotFile.open(path, keySerializer, valueSerializer);
+        return map;
+    }
+
+    /**
+     * 把映射中的键值对全部搬到堆上，并解除映射
+     */
+    private void materialize() {
+        OffHeapHashMap<K, V> mapped = snapshot;
+        snapshot = null;
+        int capacity = tableSizeFor((long) Math.ceil(mapped.size() / (double) loadFactor));
+        table = new Node[capacity];
+        threshold = thresholdFor(capacity);
+        mapped.forEach(this::put);
+        mapped.close();
+    }
+
+    /**
+     * 计算 key 的哈希值
+     * 使用 MurmurHash3 的 fmix32 把 hashCode 的每一位都扩散到低位，
+     * 这样只用低位定位桶时，差异只在高位的 key 也能分散开
+     *
+     * @param key 键
+     * @return 打散后的哈希值
+     */
+    static int hash(Object key) {
+        return Hashing.mix32(key.hashCode());
+    }
+
+    /**
+     * 按本表的策略计算 key 打散后的哈希值
+     */
+    private int spread(K key) {
+        return Hashing.mix32(strategy.hashCode(key));
+    }
+
+    /**
+     * 节点是否就是要找的 key
+     * 先比较缓存的 hash，再比较引用，最后才调用策略的 equals
+     */
+    private boolean matches(Node<K, V> node, int hash, K key) {
+        K k;
+        return node.hash == hash && ((k = node.key) == key || strategy.equals(k, key));
+    }
+
+    /**
+     * 返回不小于 cap 的最小 2 的幂，最小为 1，最大为 {@link #MAXIMUM_CAPACITY}
+     */
+    static int tableSizeFor(long cap) {
+        if (cap >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        if (cap <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit((int) cap - 1) << 1;
+    }
+
+    /**
+     * 计算指定数组长度下的扩容阈值，数组已达最大长度时不再扩容
+     */
+    private int thresholdFor(int capacity) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.min(capacity * (double) loadFactor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 计算哈希值在数组中的索引位置
+     * 数组长度总是 2 的幂，用位运算代替取模，结果一定为非负数
+     *
+     * @param tab 哈希值所在的数组
+     * @param hash 键的哈希值
+     * @return 数组索引，范围在 [0, tab.length-1]
+     */
+    private static int indexOf(Node<?, ?>[] tab, int hash) {
+        return hash & (tab.length - 1);
+    }
+
+    /**
+     * 返回哈希值当前所在的数组
+     * 渐进式扩容期间，所在旧桶还没迁移的 key 仍然在旧数组里
+     */
+    private Node<K, V>[] tableFor(int hash) {
+        Node<K, V>[] old = oldTable;
+        if (old != null && (hash & (old.length - 1)) >= transferIndex) {
+            return old;
+        }
+        return table;
+    }
+
+    /**
+     * 新增键值对之后更新数量，并检查是否需要扩容
+     * 当元素数量超过 table.length * loadFactor 时进行扩容
+     */
+    private void afterInsert() {
+        modCount++;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    /**
+     * 扩容哈希表，新数组大小为原来的 2 倍
+     * 普通模式下立即迁移全部桶；渐进式模式下只分配新数组，迁移工作交给之后的 put
+     */
+    private void resize() {
+        // 上一轮渐进式扩容还没结束，先把剩下的桶迁移完
+        if (oldTable != null) {
+            finishTransfer();
+        }
+        if (this.table.length >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        // 创建一个新的数组，大小为原来的 2 倍
+        Node<K, V>[] oldTab = this.table;
+        Node<K, V>[] newTable = new Node[oldTab.length * 2];
+
+        // 更新哈希表数组引用
+        this.table = newTable;
+        this.threshold = thresholdFor(newTable.length);
+
+        if (incrementalResize) {
+            this.oldTable = oldTab;
+            this.transferIndex = 0;
+            return;
+        }
+        // 遍历原数组中的每个桶（链表或红黑树），拆分到新数组
+        for (int j = 0; j < oldTab.length; j++) {
+            splitBucket(oldTab, j, newTable);
+        }
+    }
+
+    /**
+     * 渐进式扩容：迁移至多 {@link #RESIZE_STRIDE} 个旧桶
+     */
+    private void transferSome() {
+        Node<K, V>[] old = oldTable;
+        int end = Math.min(transferIndex + RESIZE_STRIDE, old.length);
+        for (int j = transferIndex; j < end; j++) {
+            splitBucket(old, j, table);
+            // 迁移完一个桶后再推进下标，保证查找总能在正确的数组里找到 key
+            transferIndex = j + 1;
+        }
+        if (transferIndex == old.length) {
+            oldTable = null;
+            transferIndex = 0;
+        }
+    }
+
+    /**
+     * 一次性迁移剩余的所有旧桶
+     */
+    private void finishTransfer() {
+        while (oldTable != null) {
+            transferSome();
+        }
+    }
+
+    /**
+     * 把旧数组第 j 个桶拆分到新数组的 j 和 j + oldCap 两个位置
+     * 新数组长度是旧数组的 2 倍，节点的新位置只取决于 hash 中新增的那一位 (hash &amp; oldCap)，
+     * 所以不需要重新计算下标，只需按这一位把链表拆成 lo/hi 两条，并保持原有的相对顺序
+     *
+     * @param oldTab 旧数组
+     * @param j 旧桶下标
+     * @param newTab 新数组
+     */
+    private static <K, V> void splitBucket(Node<K, V>[] oldTab, int j, Node<K, V>[] newTab) {
+        Node<K, V> head = oldTab[j];
+        if (head == null) {
+            return;
+        }
+        oldTab[j] = null;
+        int oldCap = oldTab.length;
+
+        // 树桶单独拆分
+        if (head instanceof TreeBin) {
+            ((TreeBin<K, V>) head).split(newTab, j, oldCap);
+            return;
+        }
+
+        // 单个节点无需拆分
+        if (head.next == null) {
+            newTab[head.hash & (newTab.length - 1)] = head;
+            return;
+        }
+
+        // lo 链留在原下标 j，hi 链移动到 j + oldCap，两条链都用尾插法保持顺序
+        Node<K, V> loHead = null;
+        Node<K, V> loTail = null;
+        Node<K, V> hiHead = null;
+        Node<K, V> hiTail = null;
+        Node<K, V> next;
+        for (Node<K, V> current = head; current != null; current = next) {
+            next = current.next;
+            if ((current.hash & oldCap) == 0) {
+                if (loTail == null) {
+                    loHead = current;
+                } else {
+                    loTail.next = current;
+                }
+                loTail = current;
+            } else {
+                if (hiTail == null) {
+                    hiHead = current;
+                } else {
+                    hiTail.next = current;
+                }
+                hiTail = current;
+            }
+        }
+        if (loTail != null) {
+            loTail.next = null;
+            newTab[j] = loHead;
+        }
+        if (hiTail != null) {
+            hiTail.next = null;
+            newTab[j + oldCap] = hiHead;
+        }
+    }
+
+    /**
+     * 把指定位置的链表转换为红黑树
+     * 如果数组长度还很小，冲突更可能是容量不足导致的，此时改为扩容
+     *
+     * @param tab 链表所在的数组
+     * @param index 桶的索引
+     */
+    private void treeifyBin(Node<K, V>[] tab, int index) {
+        if (table.length < MIN_TREEIFY_CAPACITY) {
+            resize();
+            return;
+        }
+        Node<K, V> head = tab[index];
+        if (head == null || head instanceof TreeBin) {
+            return;
+        }
+        // 先把链表节点换成树节点，保持原有顺序，再建树
+        TreeNode<K, V> hd = null;
+        TreeNode<K, V> tl = null;
+        for (Node<K, V> node = head; node != null; node = node.next) {
+            TreeNode<K, V> p = new TreeNode<>(node.hash, node.key, node.value, null);
+            if ((p.prev = tl) == null) {
+                hd = p;
+            } else {
+                tl.next = p;
+            }
+            tl = p;
+        }
+        tab[index] = new TreeBin<>(hd, strategy);
+    }
+
+    /**
+     * 如果 x 的类型形如 "class C implements Comparable&lt;C&gt;"，返回 C，否则返回 null
+     * 只有同一个 Comparable 类型的 key 之间才能安全地调用 compareTo
+     */
+    static Class<?> comparableClassFor(Object x) {
+        if (!(x instanceof Comparable)) {
+            return null;
+        }
+        Class<?> c = x.getClass();
+        if (c == String.class) {
+            return c;
+        }
+        for (Type t : c.getGenericInterfaces()) {
+            if (t instanceof ParameterizedType) {
+                ParameterizedType p = (ParameterizedType) t;
+                Type[] as = p.getActualTypeArguments();
+                if (p.getRawType() == Comparable.class && as.length == 1 && as[0] == c) {
+                    return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 如果 x 和 k 属于同一个 Comparable 类型 kc，返回 k.compareTo(x)，否则返回 0
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareComparables(Class<?> kc, Object k, Object x) {
+        return x == null || x.getClass() != kc ? 0 : ((Comparable) k).compareTo(x);
+    }
+
+    /**
+     * hash 相同且无法通过 Comparable 比较时的兜底排序
+     * 只用于插入时决定方向，查找时这种情况需要两边子树都搜索
+     */
+    static int tieBreakOrder(Object a, Object b) {
+        int d = 0;
+        if (a != null && b != null) {
+            d = a.getClass().getName().compareTo(b.getClass().getName());
+        }
+        if (d == 0) {
+            d = System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1;
+        }
+        return d;
+    }
+
+    /**
+     * 键值对节点类，形成单向链表结构
+     * 用于解决哈希冲突（不同的 key 可能有相同的哈希值）
+     */
+    static class Node<K, V> implements Map.Entry<K, V> {
+        final int hash;   // 键的哈希值，缓存起来避免重复计算
+        final K key;      // 键
+        V value;          // 值
+        Node<K, V> next;  // 指向下一个节点的引用，用于形成链表
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 红黑树节点
+     * 除了树指针外，还通过 next/prev 维护一条双向链表，用于遍历和退化回链表
+     */
+    static final class TreeNode<K, V> extends Node<K, V> {
+        TreeNode<K, V> parent;
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
+        TreeNode<K, V> prev;
+        boolean red;
+
+        TreeNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    /**
+     * 树桶，放在数组槽位上代表整棵红黑树
+     * 树按 hash 排序，hash 相同时按 Comparable 排序，再相同时用 {@link #tieBreakOrder} 兜底
+     * 使用非默认的 {@link HashingStrategy} 时，compareTo 与策略的相等不一定一致，hash 相同时只用兜底顺序
+     */
+    static final class TreeBin<K, V> extends Node<K, V> {
+        /**
+         * key 的相等策略，与所属 HashMap 相同
+         */
+        final HashingStrategy<? super K> strategy;
+
+        /**
+         * 红黑树根节点
+         */
+        TreeNode<K, V> root;
+
+        /**
+         * 双向链表头节点，链表包含树中的所有节点
+         */
+        TreeNode<K, V> first;
+
+        /**
+         * 树中的节点数量
+         */
+        int count;
+
+        TreeBin(HashingStrategy<? super K> strategy) {
+            super(0, null, null, null);
+            this.strategy = strategy;
+        }
+
+        /**
+         * 用一条已经串好 next/prev 的树节点链表建树
+         */
+        TreeBin(TreeNode<K, V> head, HashingStrategy<? super K> strategy) {
+            super(0, null, null, null);
+            this.strategy = strategy;
+            treeify(head);
+        }
+
+        /**
+         * 只有默认策略下才能用 Comparable 给 hash 相同的 key 排序
+         */
+        private Class<?> comparableClassOf(Object k) {
+            return strategy == HashingStrategy.DEFAULT ? comparableClassFor(k) : null;
+        }
+
+        /**
+         * 把链表中的节点逐个插入红黑树，链表中的 key 互不相同，插入时不需要查重
+         */
+        private void treeify(TreeNode<K, V> head) {
+            first = head;
+            root = null;
+            count = 0;
+            for (TreeNode<K, V> x = head; x != null; x = (TreeNode<K, V>) x.next) {
+                x.left = x.right = null;
+                count++;
+                if (root == null) {
+                    x.parent = null;
+                    x.red = false;
+                    root = x;
+                    continue;
+                }
+                K k = x.key;
+                int h = x.hash;
+                Class<?> kc = null;
+                for (TreeNode<K, V> p = root;;) {
+                    int dir;
+                    int ph = p.hash;
+                    K pk = p.key;
+                    if (ph > h) {
+                        dir = -1;
+                    } else if (ph < h) {
+                        dir = 1;
+                    } else if ((kc == null && (kc = comparableClassOf(k)) == null)
+                            || (dir = compareComparables(kc, k, pk)) == 0) {
+                        dir = tieBreakOrder(k, pk);
+                    }
+                    TreeNode<K, V> xp = p;
+                    if ((p = dir <= 0 ? p.left : p.right) == null) {
+                        x.parent = xp;
+                        if (dir <= 0) {
+                            xp.left = x;
+                        } else {
+                            xp.right = x;
+                        }
+                        root = balanceInsertion(root, x);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 扩容时把树桶拆分到新数组的 j 和 j + oldCap 两个位置
+         * 按链表顺序拆成 lo/hi 两条，节点数不超过退化阈值的一侧退化为链表，其余重新建树
+         */
+        void split(Node<K, V>[] newTab, int j, int oldCap) {
+            TreeNode<K, V> loHead = null;
+            TreeNode<K, V> loTail = null;
+            TreeNode<K, V> hiHead = null;
+            TreeNode<K, V> hiTail = null;
+            int lc = 0;
+            int hc = 0;
+            TreeNode<K, V> next;
+            for (TreeNode<K, V> e = first; e != null; e = next) {
+                next = (TreeNode<K, V>) e.next;
+                e.next = null;
+                if ((e.hash & oldCap) == 0) {
+                    if ((e.prev = loTail) == null) {
+                        loHead = e;
+                    } else {
+                        loTail.next = e;
+                    }
+                    loTail = e;
+                    lc++;
+                } else {
+                    if ((e.prev = hiTail) == null) {
+                        hiHead = e;
+                    } else {
+                        hiTail.next = e;
+                    }
+                    hiTail = e;
+                    hc++;
+                }
+            }
+            if (loHead != null) {
+                if (hiHead == null) {
+                    // 所有节点都留在原位置，树结构不变，直接复用
+                    newTab[j] = this;
+                } else {
+                    newTab[j] = lc <= UNTREEIFY_THRESHOLD ? untreeify(loHead) : new TreeBin<>(loHead, strategy);
+                }
+            }
+            if (hiHead != null) {
+                if (loHead == null) {
+                    newTab[j + oldCap] = this;
+                } else {
+                    newTab[j + oldCap] = hc <= UNTREEIFY_THRESHOLD ? untreeify(hiHead) : new TreeBin<>(hiHead, strategy);
+                }
+            }
+        }
+
+        /**
+         * 查找 key 对应的树节点
+         *
+         * @return 找到的节点，没有则返回 null
+         */
+        TreeNode<K, V> find(int hash, K key) {
+            return find(root, hash, key, null);
+        }
+
+        /**
+         * 从节点 p 开始查找
+         * hash 相同且无法用 Comparable 区分大小时，需要同时搜索左右两棵子树
+         */
+        private TreeNode<K, V> find(TreeNode<K, V> p, int h, K k, Class<?> kc) {
+            while (p != null) {
+                int ph = p.hash;
+                int dir;
+                K pk = p.key;
+                TreeNode<K, V> pl = p.left;
+                TreeNode<K, V> pr = p.right;
+                if (ph > h) {
+                    p = pl;
+                } else if (ph < h) {
+                    p = pr;
+                } else if (pk == k || strategy.equals(k, pk)) {
+                    return p;
+                } else if (pl == null) {
+                    p = pr;
+                } else if (pr == null) {
+                    p = pl;
+                } else if ((kc != null || (kc = comparableClassOf(k)) != null)
+                        && (dir = compareComparables(kc, k, pk)) != 0) {
+                    p = dir < 0 ? pl : pr;
+                } else {
+                    TreeNode<K, V> q = find(pr, h, k, kc);
+                    if (q != null) {
+                        return q;
+                    }
+                    p = pl;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 插入键值对
+         *
+         * @return 如果 key 已经存在，返回已有节点（由调用方更新 value）；否则插入新节点并返回 null
+         */
+        TreeNode<K, V> putTreeVal(int h, K k, V v) {
+            if (root == null) {
+                first = root = new TreeNode<>(h, k, v, null);
+                root.red = false;
+                count = 1;
+                return null;
+            }
+            Class<?> kc = null;
+            boolean searched = false;
+            TreeNode<K, V> p = root;
+            for (;;) {
+                int dir;
+                int ph = p.hash;
+                K pk = p.key;
+                if (ph > h) {
+                    dir = -1;
+                } else if (ph < h) {
+                    dir = 1;
+                } else if (pk == k || strategy.equals(k, pk)) {
+                    return p;
+                } else if ((kc == null && (kc = comparableClassOf(k)) == null)
+                        || (dir = compareComparables(kc, k, pk)) == 0) {
+                    // 无法区分大小，先确认整棵子树里确实没有这个 key，再用兜底顺序决定方向
+                    if (!searched) {
+                        searched = true;
+                        TreeNode<K, V> q;
+                        if ((q = find(p.left, h, k, kc)) != null || (q = find(p.right, h, k, kc)) != null) {
+                            return q;
+                        }
+                    }
+                    dir = tieBreakOrder(k, pk);
+                }
+
+                TreeNode<K, V> xp = p;
+                p = dir <= 0 ? p.left : p.right;
+                if (p == null) {
+                    // 新节点挂到链表头部
+                    TreeNode<K, V> x = new TreeNode<>(h, k, v, first);
+                    first.prev = x;
+                    first = x;
+                    x.parent = xp;
+                    if (dir <= 0) {
+                        xp.left = x;
+                    } else {
+                        xp.right = x;
+                    }
+                    root = balanceInsertion(root, x);
+                    count++;
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * 删除树节点
+         * 如果删除后节点数降到退化阈值，只从链表中摘除，不再调整树结构，由调用方退化为链表
+         *
+         * @return true 表示需要退化为链表
+         */
+        boolean removeTreeNode(TreeNode<K, V> p) {
+            // 先从双向链表中摘除
+            TreeNode<K, V> succ = (TreeNode<K, V>) p.next;
+            TreeNode<K, V> pred = p.prev;
+            if (pred == null) {
+                first = succ;
+            } else {
+                pred.next = succ;
+            }
+            if (succ != null) {
+                succ.prev = pred;
+            }
+            if (--count <= UNTREEIFY_THRESHOLD) {
+                return true;
+            }
+
+            // 再从红黑树中摘除：有两个子节点时，与后继节点交换位置
+            TreeNode<K, V> pl = p.left;
+            TreeNode<K, V> pr = p.right;
+            TreeNode<K, V> replacement;
+            if (pl != null && pr != null) {
+                TreeNode<K, V> s = pr;
+                TreeNode<K, V> sl;
+                while ((sl = s.left) != null) {
+                    s = sl;
+                }
+                boolean c = s.red;
+                s.red = p.red;
+                p.red = c;
+                TreeNode<K, V> sr = s.right;
+                TreeNode<K, V> pp = p.parent;
+                if (s == pr) {
+                    // p 是 s 的直接父节点
+                    p.parent = s;
+                    s.right = p;
+                } else {
+                    TreeNode<K, V> sp = s.parent;
+                    if ((p.parent = sp) != null) {
+                        if (s == sp.left) {
+                            sp.left = p;
+                        } else {
+                            sp.right = p;
+                        }
+                    }
+                    if ((s.right = pr) != null) {
+                        pr.parent = s;
+                    }
+                }
+                p.left = null;
+                if ((p.right = sr) != null) {
+                    sr.parent = p;
+                }
+                if ((s.left = pl) != null) {
+                    pl.parent = s;
+                }
+                if ((s.parent = pp) == null) {
+                    root = s;
+                } else if (p == pp.left) {
+                    pp.left = s;
+                } else {
+                    pp.right = s;
+                }
+                replacement = sr != null ? sr : p;
+            } else if (pl != null) {
+                replacement = pl;
+            } else if (pr != null) {
+                replacement = pr;
+            } else {
+                replacement = p;
+            }
+
+            if (replacement != p) {
+                TreeNode<K, V> pp = replacement.parent = p.parent;
+                if (pp == null) {
+                    (root = replacement).red = false;
+                } else if (p == pp.left) {
+                    pp.left = replacement;
+                } else {
+                    pp.right = replacement;
+                }
+                p.left = p.right = p.parent = null;
+            }
+
+            TreeNode<K, V> r = p.red ? root : balanceDeletion(root, replacement);
+
+            if (replacement == p) {
+                // p 没有子节点，直接与父节点断开
+                TreeNode<K, V> pp = p.parent;
+                p.parent = null;
+                if (pp != null) {
+                    if (p == pp.left) {
+                        pp.left = null;
+                    } else if (p == pp.right) {
+                        pp.right = null;
+                    }
+                }
+            }
+            root = r;
+            return false;
+        }
+
+        /**
+         * 把一条树节点链表退化为普通链表，保持原有顺序
+         *
+         * @return 链表头节点
+         */
+        static <K, V> Node<K, V> untreeify(TreeNode<K, V> list) {
+            Node<K, V> head = null;
+            Node<K, V> tail = null;
+            for (Node<K, V> q = list; q != null; q = q.next) {
+                Node<K, V> node = new Node<>(q.hash, q.key, q.value, null);
+                if (tail == null) {
+                    head = node;
+                } else {
+                    tail.next = node;
+                }
+                tail = node;
+            }
+            return head;
+        }
+
+        static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> p) {
+            TreeNode<K, V> r;
+            TreeNode<K, V> pp;
+            TreeNode<K, V> rl;
+            if (p != null && (r = p.right) != null) {
+                if ((rl = p.right = r.left) != null) {
+                    rl.parent = p;
+                }
+                if ((pp = r.parent = p.parent) == null) {
+                    (root = r).red = false;
+                } else if (pp.left == p) {
+                    pp.left = r;
+                } else {
+                    pp.right = r;
+                }
+                r.left = p;
+                p.parent = r;
+            }
+            return root;
+        }
+
+        static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> p) {
+            TreeNode<K, V> l;
+            TreeNode<K, V> pp;
+            TreeNode<K, V> lr;
+            if (p != null && (l = p.left) != null) {
+                if ((lr = p.left = l.right) != null) {
+                    lr.parent = p;
+                }
+                if ((pp = l.parent = p.parent) == null) {
+                    (root = l).red = false;
+                } else if (pp.right == p) {
+                    pp.right = l;
+                } else {
+                    pp.left = l;
+                }
+                l.right = p;
+                p.parent = l;
+            }
+            return root;
+        }
+
+        /**
+         * 插入后的平衡调整
+         *
+         * @return 调整后的根节点
+         */
+        static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> x) {
+            x.red = true;
+            for (TreeNode<K, V> xp, xpp, xppl, xppr;;) {
+                if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                } else if (!xp.red || (xpp = xp.parent) == null) {
+                    return root;
+                }
+                if (xp == (xppl = xpp.left)) {
+                    if ((xppr = xpp.right) != null && xppr.red) {
+                        // 叔叔节点是红色：变色后继续向上调整
+                        xppr.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    } else {
+                        if (x == xp.right) {
+                            root = rotateLeft(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateRight(root, xpp);
+                            }
+                        }
+                    }
+                } else {
+                    if (xppl != null && xppl.red) {
+                        xppl.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    } else {
+                        if (x == xp.left) {
+                            root = rotateRight(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateLeft(root, xpp);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * 删除后的平衡调整
+         *
+         * @return 调整后的根节点
+         */
+        static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> x) {
+            for (TreeNode<K, V> xp, xpl, xpr;;) {
+                if (x == null || x == root) {
+                    return root;
+                } else if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                } else if (x.red) {
+                    x.red = false;
+                    return root;
+                } else if ((xpl = xp.left) == x) {
+                    if ((xpr = xp.right) != null && xpr.red) {
+                        xpr.red = false;
+                        xp.red = true;
+                        root = rotateLeft(root, xp);
+                        xpr = (xp = x.parent) == null ? null : xp.right;
+                    }
+                    if (xpr == null) {
+                        x = xp;
+                    } else {
+                        TreeNode<K, V> sl = xpr.left;
+                        TreeNode<K, V> sr = xpr.right;
+                        if ((sr == null || !sr.red) && (sl == null || !sl.red)) {
+                            xpr.red = true;
+                            x = xp;
+                        } else {
+                            if (sr == null || !sr.red) {
+                                if (sl != null) {
+                                    sl.red = false;
+                                }
+                                xpr.red = true;
+                                root = rotateRight(root, xpr);
+                                xpr = (xp = x.parent) == null ? null : xp.right;
+                            }
+                            if (xpr != null) {
+                                xpr.red = xp != null && xp.red;
+                                if ((sr = xpr.right) != null) {
+                                    sr.red = false;
+                                }
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateLeft(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                } else {
+                    if (xpl != null && xpl.red) {
+                        xpl.red = false;
+                        xp.red = true;
+                        root = rotateRight(root, xp);
+                        xpl = (xp = x.parent) == null ? null : xp.left;
+                    }
+                    if (xpl == null) {
+                        x = xp;
+                    } else {
+                        TreeNode<K, V> sl = xpl.left;
+                        TreeNode<K, V> sr = xpl.right;
+                        if ((sl == null || !sl.red) && (sr == null || !sr.red)) {
+                            xpl.red = true;
+                            x = xp;
+                        } else {
+                            if (sl == null || !sl.red) {
+                                if (sr != null) {
+                                    sr.red = false;
+                                }
+                                xpl.red = true;
+                                root = rotateLeft(root, xpl);
+                                xpl = (xp = x.parent) == null ? null : xp.left;
+                            }
+                            if (xpl != null) {
+                                xpl.red = xp != null && xp.red;
+                                if ((sl = xpl.left) != null) {
+                                    sl.red = false;
+                                }
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateRight(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * 校验红黑树和双向链表的结构是否正确，仅用于测试
+         */
+        boolean checkInvariants() {
+            int n = 0;
+            for (TreeNode<K, V> q = first; q != null; q = (TreeNode<K, V>) q.next) {
+                if (q.next != null && ((TreeNode<K, V>) q.next).prev != q) {
+                    return false;
+                }
+                n++;
+            }
+            return n == count && root != null && !root.red && root.parent == null
+                    && blackHeight(root) >= 0 && treeSize(root) == count;
+        }
+
+        private static <K, V> int blackHeight(TreeNode<K, V> t) {
+            if (t == null) {
+                return 0;
+            }
+            TreeNode<K, V> l = t.left;
+            TreeNode<K, V> r = t.right;
+            if ((l != null && (l.parent != t || l.hash > t.hash))
+                    || (r != null && (r.parent != t || r.hash < t.hash))
+                    || (t.red && ((l != null && l.red) || (r != null && r.red)))) {
+                return -1;
+            }
+            int lh = blackHeight(l);
+            int rh = blackHeight(r);
+            if (lh < 0 || lh != rh) {
+                return -1;
+            }
+            return lh + (t.red ? 0 : 1);
+        }
+
+        private static <K, V> int treeSize(TreeNode<K, V> t) {
+            return t == null ? 0 : 1 + treeSize(t.left) + treeSize(t.right);
         }
     }
 }
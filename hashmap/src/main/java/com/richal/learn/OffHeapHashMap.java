@@ -0,0 +1,542 @@
+package com.richal.learn;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * 堆外开放寻址哈希表
+ *
+ * 键值对不再是堆上的 Node 对象，而是按 {@link Serializer} 序列化成定长字节，存放在直接内存（direct ByteBuffer）中，
+ * 堆上只剩下几个 slab 引用，GC 扫描时完全看不到这些键值对。
+ *
+ * 每个槽位的布局：[4 字节 hash 标记][key 字节][value 字节]，标记为 0 表示空槽位。
+ * hash 直接对 key 序列化后的字节计算，比较 key 时也只比较字节，不需要反序列化。
+ * 冲突时线性探测，删除时 backward shift，扩容时利用槽位里保存的 hash 直接搬运字节，不需要重新计算。
+ *
+ * 单个 ByteBuffer 最多 2GB，所以槽位被切分到多个 slab 中，总容量可以超过 2GB。
+ * 用完后必须调用 {@link #close()} 释放直接内存；非线程安全。
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class OffHeapHashMap<K, V> implements AutoCloseable {
+
+    /**
+     * 默认扩容因子
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * 单个 slab 的最大字节数
+     */
+    static final int MAX_SLAB_BYTES = 1 << 30;
+
+    /**
+     * 槽位头部 hash 标记占用的字节数
+     */
+    private static final int TAG_BYTES = Integer.BYTES;
+
+    private final Serializer<K> keySerializer;
+
+    private final Serializer<V> valueSerializer;
+
+    private final int keySize;
+
+    /**
+     * 每个槽位的字节数，按 4 字节对齐
+     */
+    private final int slotSize;
+
+    /**
+     * 每个 slab 能放下的槽位数，2 的幂
+     */
+    private final int slotsPerSlab;
+
+    private final int slabShift;
+
+    private final float loadFactor;
+
+    /**
+     * 存放槽位的直接内存，关闭后为 null
+     */
+    ByteBuffer[] slabs;
+
+    /**
+     * 槽位总数 - 1，槽位总数为 2 的幂
+     */
+    private long mask;
+
+    private long size;
+
+    private long threshold;
+
+    /**
+     * 序列化待查找 key 的临时缓冲区，复用以避免每次操作都分配
+     */
+    private final ByteBuffer scratch;
+
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(keySerializer, valueSerializer, 16);
+    }
+
+    /**
+     * @param expectedSize 预期存放的键值对数量，放入不超过该数量的元素时不会扩容
+     */
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, long expectedSize) {
+        this(keySerializer, valueSerializer, expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param expectedSize 预期存放的键值对数量
+     * @param loadFactor 扩容因子，取值范围 (0, 1)
+     */
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, long expectedSize, float loadFactor) {
+        this(keySerializer, valueSerializer, expectedSize, loadFactor, MAX_SLAB_BYTES);
+    }
+
+    /**
+     * @param maxSlabBytes 单个 slab 的最大字节数，测试时调小以覆盖多个 slab 的情况
+     */
+    OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, long expectedSize, float loadFactor, int maxSlabBytes) {
+        this(keySerializer, valueSerializer, loadFactor, maxSlabBytes);
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("非法的预期容量: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * 只计算槽位布局，不分配内存，之后需要通过 {@link #attach} 挂上 slab
+     * 供 {@link SnapshotFile} 把内存映射的文件直接作为 slab 使用
+     */
+    OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, float loadFactor, int maxSlabBytes) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("非法的扩容因子: " + loadFactor);
+        }
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        this.keySize = keySerializer.size();
+        this.slotSize = (TAG_BYTES + keySize + valueSerializer.size() + 3) & ~3;
+        if (slotSize > maxSlabBytes) {
+            throw new IllegalArgumentException("槽位大小超过 slab 大小: " + slotSize);
+        }
+        this.slotsPerSlab = Integer.highestOneBit(maxSlabBytes / slotSize);
+        this.slabShift = Integer.numberOfTrailingZeros(slotsPerSlab);
+        this.loadFactor = loadFactor;
+        this.scratch = ByteBuffer.allocate(keySize).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * 添加键值对
+     *
+     * @return 如果 key 已存在，返回旧值；否则返回 null
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        int tag = prepareKey(key);
+        long i = home(tag);
+        for (;;) {
+            ByteBuffer slab = slabOf(i);
+            int offset = offsetOf(i);
+            int t = slab.getInt(offset);
+            if (t == 0) {
+                slab.putInt(offset, tag);
+                slab.put(offset + TAG_BYTES, scratch, 0, keySize);
+                valueSerializer.write(value, slab, offset + TAG_BYTES + keySize);
+                if (++size > threshold) {
+                    rehash((mask + 1) << 1);
+                }
+                return null;
+            }
+            if (t == tag && keyEquals(slab, offset)) {
+                int valueOffset = offset + TAG_BYTES + keySize;
+                V old = valueSerializer.read(slab, valueOffset);
+                valueSerializer.write(value, slab, valueOffset);
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 根据 key 获取 value，每次都会从堆外反序列化出一个新对象
+     *
+     * @return 找不到时返回 null
+     */
+    public V get(K key) {
+        long i = indexOf(prepareKey(key));
+        if (i < 0) {
+            return null;
+        }
+        return valueSerializer.read(slabOf(i), offsetOf(i) + TAG_BYTES + keySize);
+    }
+
+    /**
+     * 是否包含指定 key
+     */
+    public boolean containsKey(K key) {
+        return indexOf(prepareKey(key)) >= 0;
+    }
+
+    /**
+     * 同 {@link #get}，但 key 无法序列化时返回 null 而不是抛异常：这样的 key 不可能在表中
+     * 供快照加载的 MyHashMap 使用，保持与堆上的 HashMap 相同的语义；key 为 null 时与堆上一样抛出 NullPointerException
+     */
+    V getQuietly(K key) {
+        int tag = tryPrepareKey(key);
+        long i = tag == 0 ? -1 : indexOf(tag);
+        if (i < 0) {
+            return null;
+        }
+        return valueSerializer.read(slabOf(i), offsetOf(i) + TAG_BYTES + keySize);
+    }
+
+    /**
+     * 同 {@link #containsKey}，但 key 无法序列化时返回 false
+     */
+    boolean containsKeyQuietly(K key) {
+        int tag = tryPrepareKey(key);
+        return tag != 0 && indexOf(tag) >= 0;
+    }
+
+    /**
+     * 删除指定 key
+     *
+     * @return 被删除的 value，找不到时返回 null
+     */
+    public V remove(K key) {
+        long i = indexOf(prepareKey(key));
+        if (i < 0) {
+            return null;
+        }
+        V old = valueSerializer.read(slabOf(i), offsetOf(i) + TAG_BYTES + keySize);
+        shiftKeys(i);
+        size--;
+        return old;
+    }
+
+    /**
+     * 返回键值对数量
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空所有键值对，保留已分配的直接内存
+     */
+    public void clear() {
+        ensureOpen();
+        for (long i = 0; i <= mask; i++) {
+            slabOf(i).putInt(offsetOf(i), 0);
+        }
+        size = 0;
+    }
+
+    /**
+     * 按槽位顺序遍历所有键值对，key 和 value 都是新反序列化出来的对象
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        ensureOpen();
+        for (long i = 0; i <= mask; i++) {
+            ByteBuffer slab = slabOf(i);
+            int offset = offsetOf(i);
+            if (slab.getInt(offset) != 0) {
+                action.accept(keySerializer.read(slab, offset + TAG_BYTES),
+                        valueSerializer.read(slab, offset + TAG_BYTES + keySize));
+            }
+        }
+    }
+
+    /**
+     * 已分配的直接内存字节数
+     */
+    public long allocatedBytes() {
+        if (slabs == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (ByteBuffer slab : slabs) {
+            bytes += slab.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * 实际被键值对占用的直接内存字节数
+     */
+    public long usedBytes() {
+        return size * slotSize;
+    }
+
+    /**
+     * 释放全部直接内存，之后除 {@link #size()}、{@link #allocatedBytes()} 外的操作都会抛出 IllegalStateException
+     * 重复调用没有影响
+     */
+    @Override
+    public void close() {
+        ByteBuffer[] ss = slabs;
+        if (ss == null) {
+            return;
+        }
+        slabs = null;
+        size = 0;
+        for (ByteBuffer slab : ss) {
+            free(slab);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapHashMap{size=" + size + ", slots=" + (slabs == null ? 0 : mask + 1)
+                + ", slotSize=" + slotSize + ", allocatedBytes=" + allocatedBytes() + ", usedBytes=" + usedBytes() + "}";
+    }
+
+    /**
+     * 把 key 序列化到 scratch 中，并返回非 0 的 hash 标记
+     */
+    private int prepareKey(K key) {
+        Objects.requireNonNull(key);
+        ensureOpen();
+        keySerializer.write(key, scratch, 0);
+        int h = hashBytes(scratch, keySize);
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 同 {@link #prepareKey}，序列化器拒绝写入时返回 0
+     */
+    private int tryPrepareKey(K key) {
+        Objects.requireNonNull(key);
+        ensureOpen();
+        try {
+            keySerializer.write(key, scratch, 0);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        int h = hashBytes(scratch, keySize);
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 按 8 字节一组对序列化后的 key 计算 hash，尾部不足 8 字节的逐字节处理
+     */
+    private static int hashBytes(ByteBuffer buf, int length) {
+        long h = length;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            h = Long.rotateLeft(h ^ buf.getLong(i) * 0x9E3779B97F4A7C15L, 31) * 0xBF58476D1CE4E5B9L;
+        }
+        for (; i < length; i++) {
+            h = (h ^ buf.get(i)) * 0x94D049BB133111EBL;
+        }
+        return Hashing.mix64(h);
+    }
+
+    /**
+     * 比较槽位中的 key 字节与 scratch 是否相同
+     */
+    private boolean keyEquals(ByteBuffer slab, int offset) {
+        int base = offset + TAG_BYTES;
+        int i = 0;
+        for (; i + Long.BYTES <= keySize; i += Long.BYTES) {
+            if (slab.getLong(base + i) != scratch.getLong(i)) {
+                return false;
+            }
+        }
+        for (; i < keySize; i++) {
+            if (slab.get(base + i) != scratch.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找 scratch 中的 key 所在的槽位
+     *
+     * @return 槽位下标，找不到时返回 -1
+     */
+    private long indexOf(int tag) {
+        long i = home(tag);
+        for (;;) {
+            ByteBuffer slab = slabOf(i);
+            int offset = offsetOf(i);
+            int t = slab.getInt(offset);
+            if (t == 0) {
+                return -1;
+            }
+            if (t == tag && keyEquals(slab, offset)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 删除 pos 处的元素后，把后面同一探测序列上的元素往前挪，与 {@link LongLongHashMap} 相同
+     */
+    private void shiftKeys(long pos) {
+        for (;;) {
+            long last = pos;
+            pos = (pos + 1) & mask;
+            for (;;) {
+                int t = slabOf(pos).getInt(offsetOf(pos));
+                if (t == 0) {
+                    slabOf(last).putInt(offsetOf(last), 0);
+                    return;
+                }
+                long slot = home(t);
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            slabOf(last).put(offsetOf(last), slabOf(pos), offsetOf(pos), slotSize);
+        }
+    }
+
+    /**
+     * 按新的槽位数重新放置所有元素，直接按槽位里保存的 hash 搬运字节
+     */
+    private void rehash(long newCapacity) {
+        ByteBuffer[] oldSlabs = slabs;
+        long oldCapacity = mask + 1;
+        allocate(newCapacity);
+        for (long j = 0; j < oldCapacity; j++) {
+            ByteBuffer from = oldSlabs[(int) (j >>> slabShift)];
+            int fromOffset = (int) (j & (slotsPerSlab - 1)) * slotSize;
+            int t = from.getInt(fromOffset);
+            if (t == 0) {
+                continue;
+            }
+            long i = home(t);
+            while (slabOf(i).getInt(offsetOf(i)) != 0) {
+                i = (i + 1) & mask;
+            }
+            slabOf(i).put(offsetOf(i), from, fromOffset, slotSize);
+        }
+        for (ByteBuffer slab : oldSlabs) {
+            free(slab);
+        }
+    }
+
+    private void allocate(long capacity) {
+        int slabBytes = slabBytes(capacity);
+        ByteBuffer[] ss = new ByteBuffer[(int) (capacity * slotSize / slabBytes)];
+        for (int s = 0; s < ss.length; s++) {
+            ss[s] = ByteBuffer.allocateDirect(slabBytes);
+        }
+        attach(ss, capacity, size);
+    }
+
+    /**
+     * 使用给定的 slab 作为槽位存储，slab 的划分必须与 {@link #slabBytes(long)} 一致
+     *
+     * @param ss 存放槽位的 slab
+     * @param capacity 槽位总数，2 的幂
+     * @param size slab 中已有的键值对数量
+     */
+    void attach(ByteBuffer[] ss, long capacity, long size) {
+        for (ByteBuffer slab : ss) {
+            slab.order(ByteOrder.nativeOrder());
+        }
+        slabs = ss;
+        mask = capacity - 1;
+        this.size = size;
+        threshold = Math.min(capacity - 1, (long) (capacity * (double) loadFactor));
+    }
+
+    /**
+     * 槽位总数为 capacity 时每个 slab 的字节数，槽位不多时只用一个 slab
+     */
+    int slabBytes(long capacity) {
+        return (int) Math.min(capacity, slotsPerSlab) * slotSize;
+    }
+
+    int slotSize() {
+        return slotSize;
+    }
+
+    int slotsPerSlab() {
+        return slotsPerSlab;
+    }
+
+    long capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * hash 标记对应的理想槽位，按无符号数取模
+     */
+    private long home(int tag) {
+        return (tag & 0xFFFFFFFFL) & mask;
+    }
+
+    private ByteBuffer slabOf(long i) {
+        return slabs[(int) (i >>> slabShift)];
+    }
+
+    private int offsetOf(long i) {
+        return (int) (i & (slotsPerSlab - 1)) * slotSize;
+    }
+
+    private void ensureOpen() {
+        if (slabs == null) {
+            throw new IllegalStateException("哈希表已关闭");
+        }
+    }
+
+    /**
+     * 计算能放下 expectedSize 个元素的槽位数，至少为 2
+     */
+    static long capacityFor(long expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        return Math.max(2, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    /**
+     * 立即释放直接内存，不等待 GC 回收 ByteBuffer 对象
+     * 通过 sun.misc.Unsafe#invokeCleaner 实现；拿不到时退化为等待 GC
+     */
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // 释放失败时交给 GC 处理
+        }
+    }
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 不支持时 close() 只丢弃引用
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+}
@@ -0,0 +1,119 @@
+package com.richal.learn;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 定长序列化接口
+ * 堆外哈希表按固定大小的槽位存放 key 和 value，所以每种类型序列化后的字节数必须固定
+ *
+ * 约定：相等的对象序列化后的字节完全相同，哈希表直接比较字节来判断 key 是否相等
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public interface Serializer<T> {
+
+    /**
+     * 序列化后占用的字节数，对所有值都相同
+     */
+    int size();
+
+    /**
+     * 把 value 写入 buf 的 offset 处，不修改 buf 的 position
+     */
+    void write(T value, ByteBuffer buf, int offset);
+
+    /**
+     * 从 buf 的 offset 处读出一个值，不修改 buf 的 position
+     */
+    T read(ByteBuffer buf, int offset);
+
+    Serializer<Integer> INT = new Serializer<Integer>() {
+        @Override
+        public int size() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer value, ByteBuffer buf, int offset) {
+            buf.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buf, int offset) {
+            return buf.getInt(offset);
+        }
+    };
+
+    Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public int size() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long value, ByteBuffer buf, int offset) {
+            buf.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buf, int offset) {
+            return buf.getLong(offset);
+        }
+    };
+
+    Serializer<Double> DOUBLE = new Serializer<Double>() {
+        @Override
+        public int size() {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void write(Double value, ByteBuffer buf, int offset) {
+            buf.putDouble(offset, value);
+        }
+
+        @Override
+        public Double read(ByteBuffer buf, int offset) {
+            return buf.getDouble(offset);
+        }
+    };
+
+    /**
+     * UTF-8 字符串序列化：2 字节长度 + 内容，不足 maxBytes 的部分补 0
+     *
+     * @param maxBytes UTF-8 编码后的最大字节数
+     */
+    static Serializer<String> utf8(int maxBytes) {
+        if (maxBytes <= 0 || maxBytes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("非法的最大长度: " + maxBytes);
+        }
+        return new Serializer<String>() {
+            @Override
+            public int size() {
+                return Short.BYTES + maxBytes;
+            }
+
+            @Override
+            public void write(String value, ByteBuffer buf, int offset) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > maxBytes) {
+                    throw new IllegalArgumentException("字符串超过 " + maxBytes + " 字节: " + value);
+                }
+                buf.putShort(offset, (short) bytes.length);
+                buf.put(offset + Short.BYTES, bytes);
+                for (int i = offset + Short.BYTES + bytes.length; i < offset + size(); i++) {
+                    buf.put(i, (byte) 0);
+                }
+            }
+
+            @Override
+            public String read(ByteBuffer buf, int offset) {
+                byte[] bytes = new byte[buf.getShort(offset)];
+                buf.get(offset + Short.BYTES, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package com.richal.learn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 哈希表快照文件
+ *
+ * 文件由 64 字节的文件头和 {@link OffHeapHashMap} 的全部槽位组成，槽位布局与内存中完全相同，
+ * 所以加载时不需要解析，把文件按 slab 切块做内存映射后直接交给 OffHeapHashMap 查询即可。
+ *
+ * 文件头（大端序）：
+ * [0] 魔数 [4] 版本号 [8] 槽位字节序 [12] key 字节数 [16] value 字节数
+ * [20] 槽位字节数 [24] 每个 slab 的槽位数 [32] 槽位总数 [40] 键值对数量
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x4D484D53;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 64;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * 把键值对写入快照文件
+     * 先写到同目录下的临时文件，全部落盘后再原子替换，写到一半失败不会破坏已有的快照
+     *
+     * @param size 键值对数量，用于确定槽位总数
+     * @param entries 接收一个回调，把所有键值对逐个交给它
+     */
+    static <K, V> void write(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                             long size, Consumer<BiConsumer<K, V>> entries) throws IOException {
+        OffHeapHashMap<K, V> layout = new OffHeapHashMap<>(keySerializer, valueSerializer,
+                OffHeapHashMap.DEFAULT_LOAD_FACTOR, OffHeapHashMap.MAX_SLAB_BYTES);
+        long capacity = OffHeapHashMap.capacityFor(size, OffHeapHashMap.DEFAULT_LOAD_FACTOR);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // 新映射的文件区域全部为 0，正好是空槽位，直接在映射上插入
+                layout.attach(map(channel, FileChannel.MapMode.READ_WRITE, layout, capacity), capacity, 0);
+                entries.accept(layout::put);
+                for (ByteBuffer slab : layout.slabs) {
+                    ((MappedByteBuffer) slab).force();
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+                header.putInt(0, MAGIC)
+                        .putInt(4, VERSION)
+                        .putInt(8, ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? 0 : 1)
+                        .putInt(12, keySerializer.size())
+                        .putInt(16, valueSerializer.size())
+                        .putInt(20, layout.slotSize())
+                        .putInt(24, layout.slotsPerSlab())
+                        .putLong(32, capacity)
+                        .putLong(40, layout.size());
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            } finally {
+                layout.close();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Throwable e) {
+            // 写到一半失败（序列化不了的键值对、磁盘满等），删掉临时文件，不留垃圾
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 以只读方式映射快照文件
+     * 返回的 OffHeapHashMap 只能读，关闭它会解除映射
+     */
+    static <K, V> OffHeapHashMap<K, V> open(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("不是哈希表快照文件: " + path);
+                }
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("不是哈希表快照文件: " + path);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("不支持的快照版本: " + header.getInt(4));
+            }
+            if ((header.getInt(8) == 0) != (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN)) {
+                throw new IOException("快照文件的字节序与当前平台不同: " + path);
+            }
+            if (header.getInt(12) != keySerializer.size() || header.getInt(16) != valueSerializer.size()) {
+                throw new IOException("序列化器与快照不匹配，快照中 key/value 字节数为 "
+                        + header.getInt(12) + "/" + header.getInt(16));
+            }
+            int slotSize = header.getInt(20);
+            int slotsPerSlab = header.getInt(24);
+            long capacity = header.getLong(32);
+            long size = header.getLong(40);
+            OffHeapHashMap<K, V> snapshot = new OffHeapHashMap<>(keySerializer, valueSerializer,
+                    OffHeapHashMap.DEFAULT_LOAD_FACTOR, slotsPerSlab * slotSize);
+            if (snapshot.slotSize() != slotSize || Long.bitCount(capacity) != 1
+                    || channel.size() != HEADER_BYTES + capacity * slotSize) {
+                throw new IOException("快照文件已损坏: " + path);
+            }
+            snapshot.attach(map(channel, FileChannel.MapMode.READ_ONLY, snapshot, capacity), capacity, size);
+            return snapshot;
+        }
+    }
+
+    /**
+     * 按 OffHeapHashMap 的 slab 划分把文件槽位区域分块映射
+     */
+    private static ByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode,
+                                    OffHeapHashMap<?, ?> layout, long capacity) throws IOException {
+        int slabBytes = layout.slabBytes(capacity);
+        ByteBuffer[] slabs = new ByteBuffer[(int) (capacity * layout.slotSize() / slabBytes)];
+        for (int s = 0; s < slabs.length; s++) {
+            slabs[s] = channel.map(mode, HEADER_BYTES + (long) s * slabBytes, slabBytes);
+        }
+        return slabs;
+    }
+}
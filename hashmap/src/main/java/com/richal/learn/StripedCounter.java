@@ -0,0 +1,183 @@
+package com.richal.learn;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 分段计数器，思路与 LongAdder 相同
+ *
+ * 没有竞争时所有线程都 CAS 同一个 baseCount；一旦 CAS 失败，说明有多个线程在抢，
+ * 就改为按线程把增量分散到 cells 数组的不同槽位上，读取时再把 base 和所有槽位加起来。
+ * 槽位数量按竞争情况翻倍，最多不超过 CPU 核数对应的 2 的幂。
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+final class StripedCounter {
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * cells 数组的最大长度
+     */
+    private static final int MAX_CELLS = MyHashMap.tableSizeFor(Math.max(NCPU, 2));
+
+    /**
+     * 没有竞争时直接累加的基础值
+     */
+    private volatile long baseCount;
+
+    /**
+     * 发生竞争后才创建的计数槽位，长度为 2 的幂
+     */
+    private volatile Cell[] cells;
+
+    /**
+     * 创建或扩容 cells 时使用的自旋锁，0 表示空闲
+     */
+    private volatile int cellsBusy;
+
+    /**
+     * 累加 x
+     */
+    void add(long x) {
+        Cell[] cs = cells;
+        long b = baseCount;
+        if (cs == null && BASE_COUNT.compareAndSet(this, b, b + x)) {
+            return;
+        }
+        if (cs != null) {
+            Cell c = cs[probe() & (cs.length - 1)];
+            long v;
+            if (c != null && Cell.VALUE.compareAndSet(c, v = c.value, v + x)) {
+                return;
+            }
+        }
+        fullAdd(x);
+    }
+
+    /**
+     * 返回当前总和
+     * 并发修改时返回的是某个近似时刻的值
+     */
+    long sum() {
+        long sum = baseCount;
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                if (c != null) {
+                    sum += c.value;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 竞争路径：按需创建 cells、创建槽位或扩容，直到累加成功
+     */
+    private void fullAdd(long x) {
+        int h = probe();
+        for (;;) {
+            Cell[] cs = cells;
+            if (cs != null) {
+                int index = h & (cs.length - 1);
+                Cell c = cs[index];
+                if (c == null) {
+                    // 槽位还没创建，加锁后创建
+                    if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                        try {
+                            if (cells == cs && cs[index] == null) {
+                                cs[index] = new Cell(x);
+                                return;
+                            }
+                        } finally {
+                            cellsBusy = 0;
+                        }
+                    }
+                } else {
+                    long v = c.value;
+                    if (Cell.VALUE.compareAndSet(c, v, v + x)) {
+                        return;
+                    }
+                    // 槽位上仍然有竞争，尝试扩容分散线程
+                    if (cs.length < MAX_CELLS && cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                        try {
+                            if (cells == cs) {
+                                Cell[] grown = new Cell[cs.length << 1];
+                                System.arraycopy(cs, 0, grown, 0, cs.length);
+                                cells = grown;
+                            }
+                        } finally {
+                            cellsBusy = 0;
+                        }
+                    }
+                }
+                // 换一个槽位再试（xorshift）
+                h ^= h << 13;
+                h ^= h >>> 17;
+                h ^= h << 5;
+            } else if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                try {
+                    if (cells == null) {
+                        Cell[] created = new Cell[2];
+                        created[h & 1] = new Cell(x);
+                        cells = created;
+                        return;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+            } else {
+                long b = baseCount;
+                if (BASE_COUNT.compareAndSet(this, b, b + x)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前线程的探测值，同一个线程总是优先落到同一个槽位
+     */
+    private static int probe() {
+        int h = Hashing.mix32((int) Thread.currentThread().getId());
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 计数槽位，前后用 long 字段填充，避免不同槽位落在同一条缓存行上产生伪共享
+     */
+    static final class Cell {
+        long p0, p1, p2, p3, p4, p5, p6;
+        volatile long value;
+        long q0, q1, q2, q3, q4, q5, q6;
+
+        Cell(long value) {
+            this.value = value;
+        }
+
+        static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Cell.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    private static final VarHandle BASE_COUNT;
+    private static final VarHandle CELLS_BUSY;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BASE_COUNT = lookup.findVarHandle(StripedCounter.class, "baseCount", long.class);
+            CELLS_BUSY = lookup.findVarHandle(StripedCounter.class, "cellsBusy", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
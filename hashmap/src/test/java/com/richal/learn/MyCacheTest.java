@@ -0,0 +1,134 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 有界缓存测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyCacheTest {
+
+    @Test
+    public void testLruEvictsLeastRecentlyUsed() {
+        MyCache<Integer, String> cache = new MyCache<>(3, EvictionPolicy.LRU);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        assertEquals("a", cache.get(1));
+        cache.put(4, "d");
+
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1));
+        assertEquals("c", cache.get(3));
+        assertEquals("d", cache.get(4));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(4, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void testMaximumWeight() {
+        MyCache<String, String> cache = new MyCache<>(10, (key, value) -> value.length(),
+                EvictionPolicy.LRU, 0, TimeUnit.SECONDS);
+        cache.put("a", "1234");
+        cache.put("b", "1234");
+        cache.put("c", "12");
+        assertEquals(10, cache.weightedSize());
+        // 更新权重后超出上限，淘汰最久没访问的 a
+        cache.put("c", "1234");
+        assertNull(cache.get("a"));
+        assertEquals(8, cache.weightedSize());
+        // 单个条目超过上限时自己也会被淘汰
+        cache.put("d", "12345678901");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedSize());
+
+        MyCache<String, String> negative = new MyCache<>(10, (key, value) -> -1,
+                EvictionPolicy.LRU, 0, TimeUnit.SECONDS);
+        assertThrows(IllegalArgumentException.class, () -> negative.put("e", "x"));
+    }
+
+    @Test
+    public void testTinyLfuResistsScan() {
+        int maximum = 1000;
+        MyCache<Integer, Integer> cache = new MyCache<>(maximum, EvictionPolicy.TINY_LFU);
+        // 热点数据被反复访问
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 500; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        // 一次性扫描大量冷数据
+        for (int key = 10_000; key < 100_000; key++) {
+            cache.put(key, key);
+        }
+        int hotRetained = 0;
+        for (int key = 0; key < 500; key++) {
+            if (cache.get(key) != null) {
+                hotRetained++;
+            }
+        }
+        assertTrue(hotRetained > 450, "热点数据只保留了 " + hotRetained);
+        assertTrue(cache.size() <= maximum);
+
+        // 同样的访问模式下 LRU 会把热点数据全部冲掉
+        MyCache<Integer, Integer> lru = new MyCache<>(maximum, EvictionPolicy.LRU);
+        for (int key = 0; key < 500; key++) {
+            lru.put(key, key);
+        }
+        for (int key = 10_000; key < 100_000; key++) {
+            lru.put(key, key);
+        }
+        assertNull(lru.get(0));
+    }
+
+    @Test
+    public void testExpireAfterWrite() {
+        long[] now = {0};
+        MyCache<Integer, Integer> cache = new MyCache<>(100, (key, value) -> 1,
+                EvictionPolicy.TINY_LFU, 10, TimeUnit.SECONDS, () -> now[0]);
+        cache.put(1, 1);
+        now[0] = TimeUnit.SECONDS.toNanos(5);
+        cache.put(2, 2);
+        // 读取不会刷新写入时间
+        assertEquals(1, cache.get(1));
+
+        now[0] = TimeUnit.SECONDS.toNanos(10);
+        assertNull(cache.get(1));
+        assertEquals(2, cache.get(2));
+        // 重新写入刷新过期时间
+        cache.put(2, 20);
+
+        now[0] = TimeUnit.SECONDS.toNanos(16);
+        assertEquals(20, cache.get(2));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void testFrequencySketch() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        int hot = MyHashMap.hash("hot");
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(hot);
+        }
+        // 计数器 4 位，最多到 15
+        assertEquals(15, sketch.frequency(hot));
+        assertEquals(0, sketch.frequency(MyHashMap.hash("cold")));
+
+        // 增加次数达到采样周期后计数器减半
+        for (int i = 0; i < 10 * 64; i++) {
+            sketch.increment(MyHashMap.hash(i));
+        }
+        assertTrue(sketch.frequency(hot) <= 8);
+    }
+}
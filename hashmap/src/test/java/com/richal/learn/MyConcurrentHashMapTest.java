@@ -0,0 +1,175 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发 HashMap 测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyConcurrentHashMapTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void testSingleThreadAgainstHashMap() {
+        Random random = new Random(5);
+        MyConcurrentHashMap<Integer, Integer> map = new MyConcurrentHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            int key = random.nextInt(50_000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.get(key), map.get(key));
+                    break;
+                default:
+                    assertEquals(expected.put(key, op), map.put(key, op));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    public void testPresizedMapDoesNotResize() {
+        // 12 和 96 都是 3 * 2^k，正好等于某个数组长度的阈值
+        for (int expectedSize : new int[]{3, 12, 24, 96, 100}) {
+            MyConcurrentHashMap<Integer, Integer> map = new MyConcurrentHashMap<>(expectedSize);
+            map.put(0, 0);
+            int length = map.table.length;
+            for (int i = 1; i < expectedSize; i++) {
+                map.put(i, i);
+            }
+            assertEquals(length, map.table.length, "放入 " + expectedSize + " 个元素不应该扩容");
+            assertEquals(expectedSize, map.size());
+        }
+    }
+
+    @Test
+    public void testConcurrentPutsDuringResize() throws InterruptedException {
+        MyConcurrentHashMap<Integer, Integer> map = new MyConcurrentHashMap<>();
+        int perThread = 50_000;
+        runConcurrently(t -> {
+            for (int i = 0; i < perThread; i++) {
+                int key = t * perThread + i;
+                assertNull(map.put(key, key));
+            }
+        });
+        assertEquals(THREADS * perThread, map.size());
+        for (int key = 0; key < THREADS * perThread; key++) {
+            assertEquals(key, map.get(key));
+        }
+    }
+
+    @Test
+    public void testLockFreeReadsSeeConsistentValues() throws InterruptedException {
+        MyConcurrentHashMap<Integer, Integer> map = new MyConcurrentHashMap<>();
+        int keys = 200_000;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> error = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                Random random = new Random();
+                while (writing.get()) {
+                    int key = random.nextInt(keys);
+                    Integer value = map.get(key);
+                    // 读线程可能看不到还没写入的 key，但看到的 value 一定是正确的
+                    if (value != null && value != key * 2) {
+                        error.compareAndSet(null, key + " -> " + value);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int key = 0; key < keys; key++) {
+            map.put(key, key * 2);
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(error.get());
+        assertEquals(keys, map.size());
+    }
+
+    @Test
+    public void testConcurrentPutAndRemove() throws InterruptedException {
+        MyConcurrentHashMap<Integer, Integer> map = new MyConcurrentHashMap<>(16);
+        int perThread = 20_000;
+        runConcurrently(t -> {
+            // 每个线程操作自己的 key 区间：全部放入，再删掉偶数 key
+            int base = t * perThread;
+            for (int i = 0; i < perThread; i++) {
+                map.put(base + i, i);
+            }
+            for (int i = 0; i < perThread; i += 2) {
+                assertEquals(i, map.remove(base + i));
+            }
+        });
+        assertEquals(THREADS * perThread / 2, map.size());
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < perThread; i++) {
+                assertEquals(i % 2 == 0 ? null : i, map.get(t * perThread + i));
+            }
+        }
+    }
+
+    @Test
+    public void testStripedCounterUnderContention() throws InterruptedException {
+        StripedCounter counter = new StripedCounter();
+        runConcurrently(t -> {
+            for (int i = 0; i < 100_000; i++) {
+                counter.add(1);
+            }
+            counter.add(-t);
+        });
+        assertEquals(THREADS * 100_000L - (THREADS - 1) * THREADS / 2, counter.sum());
+    }
+
+    /**
+     * 启动 THREADS 个线程同时执行 task，task 的参数是线程编号
+     */
+    private static void runConcurrently(IntConsumer task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.accept(id);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 哈希与相等策略测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyHashMapHashingStrategyTest {
+
+    /**
+     * 忽略大小写比较字符串，与 String.compareTo 的顺序不一致
+     */
+    private static final HashingStrategy<String> CASE_INSENSITIVE = new HashingStrategy<String>() {
+        @Override
+        public int hashCode(String key) {
+            return key.toLowerCase(Locale.ROOT).hashCode();
+        }
+
+        @Override
+        public boolean equals(String a, String b) {
+            return a.equalsIgnoreCase(b);
+        }
+    };
+
+    @Test
+    public void testIdentityStrategy() {
+        MyHashMap<String, Integer> map = new MyHashMap<>(HashingStrategy.IDENTITY);
+        String a1 = new String("a");
+        String a2 = new String("a");
+        map.put(a1, 1);
+        map.put(a2, 2);
+        assertEquals(2, map.size());
+        assertEquals(1, map.get(a1));
+        assertEquals(2, map.get(a2));
+        assertNull(map.get("a"));
+
+        assertNull(map.remove(new String("a")));
+        assertEquals(1, map.remove(a1));
+        assertFalse(map.containsKey(a1));
+        assertTrue(map.containsKey(a2));
+    }
+
+    @Test
+    public void testCustomStrategyIncludingTreeBins() {
+        // 所有 key 落在同一个桶里，桶会树化，树中 hash 全部相同
+        HashingStrategy<String> colliding = new HashingStrategy<String>() {
+            @Override
+            public int hashCode(String key) {
+                return 42;
+            }
+
+            @Override
+            public boolean equals(String a, String b) {
+                return CASE_INSENSITIVE.equals(a, b);
+            }
+        };
+        for (HashingStrategy<String> strategy : java.util.List.of(CASE_INSENSITIVE, colliding)) {
+            MyHashMap<String, Integer> map = new MyHashMap<>(64, 0.75f, false, strategy);
+            for (int i = 0; i < 100; i++) {
+                map.put("Key" + i, i);
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, map.get("KEY" + i));
+                assertEquals(i, map.put("key" + i, -i));
+            }
+            assertEquals(100, map.size());
+            assertEquals(-7, map.get("kEy7"));
+            assertEquals(8, map.compute("KEY7", (k, v) -> v + 15));
+            for (int i = 0; i < 100; i += 2) {
+                assertNotNull(map.remove("KEY" + i));
+            }
+            assertEquals(50, map.size());
+            assertNull(map.get("key0"));
+            assertEquals(8, map.get("key7"));
+        }
+    }
+
+    @Test
+    public void testHitPathsDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Long[] keys = new Long[10_000];
+        MyHashMap<Long, Long> map = new MyHashMap<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) i << 32;
+            map.put(keys[i], keys[i]);
+        }
+        long sum = 0;
+        for (int round = 0; round < 20; round++) {
+            sum += hitRound(map, keys);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < 10; round++) {
+            sum += hitRound(map, keys);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(sum != 0);
+        // 20 万次 get/put，允许测量本身的少量开销
+        assertTrue(allocated < 4096, "命中路径分配了 " + allocated + " 字节");
+    }
+
+    private static long hitRound(MyHashMap<Long, Long> map, Long[] keys) {
+        long sum = 0;
+        for (Long key : keys) {
+            sum += map.get(key);
+            map.put(key, key);
+        }
+        return sum;
+    }
+}
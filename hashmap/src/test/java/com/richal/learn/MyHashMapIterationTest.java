@@ -0,0 +1,153 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 迭代器、视图和批量操作测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyHashMapIterationTest {
+
+    @Test
+    public void testViewsMatchContents() {
+        MyHashMap<Integer, String> map = new MyHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "v" + i);
+            expected.put(i, "v" + i);
+        }
+        assertEquals(expected.keySet(), map.keySet());
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+        assertEquals(expected.entrySet(), map.entrySet());
+        assertTrue(map.keySet().contains(999));
+        assertFalse(map.keySet().contains(1000));
+        assertTrue(map.entrySet().contains(Map.entry(1, "v1")));
+        assertFalse(map.entrySet().contains(Map.entry(1, "v2")));
+
+        Map<Integer, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+
+        // 通过 entry 直接修改值
+        for (Map.Entry<Integer, String> entry : map.entrySet()) {
+            entry.setValue(entry.getValue() + "!");
+        }
+        assertEquals("v7!", map.get(7));
+    }
+
+    @Test
+    public void testIteratorRemoveIncludingTreeBins() {
+        MyHashMap<MyHashMapTreeifyTest.CollidingKey, Integer> map = new MyHashMap<>(64);
+        for (int i = 0; i < 40; i++) {
+            map.put(new MyHashMapTreeifyTest.CollidingKey(i), i);
+        }
+        for (int i = 0; i < 40; i++) {
+            map.put(new MyHashMapTreeifyTest.CollidingKey(1000 + i), i);
+        }
+        Iterator<Map.Entry<MyHashMapTreeifyTest.CollidingKey, Integer>> it = map.entrySet().iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        int seen = 0;
+        while (it.hasNext()) {
+            Map.Entry<MyHashMapTreeifyTest.CollidingKey, Integer> entry = it.next();
+            seen++;
+            if (entry.getKey().id % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(80, seen);
+        assertEquals(40, map.size());
+        for (MyHashMapTreeifyTest.CollidingKey key : map.keySet()) {
+            assertEquals(1, key.id % 2);
+        }
+    }
+
+    @Test
+    public void testFailFast() {
+        MyHashMap<Integer, Integer> map = new MyHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        Iterator<Integer> it = map.keySet().iterator();
+        it.next();
+        map.put(100, 100);
+        assertThrows(ConcurrentModificationException.class, it::next);
+
+        // 只修改已有 key 的值不算结构修改
+        Iterator<Integer> values = map.values().iterator();
+        values.next();
+        map.put(0, -1);
+        values.next();
+
+        assertThrows(ConcurrentModificationException.class, () -> map.forEach((k, v) -> map.remove(k)));
+        assertThrows(ConcurrentModificationException.class, () -> map.compute(5, (k, v) -> {
+            map.put(-5, -5);
+            return v;
+        }));
+    }
+
+    @Test
+    public void testComputeAndMergeAgainstHashMap() {
+        Random random = new Random(9);
+        // 一半 key 互相冲突，覆盖树桶上的插入、更新和删除
+        MyHashMap<Object, Integer> map = new MyHashMap<>();
+        Map<Object, Integer> expected = new HashMap<>();
+        for (int op = 0; op < 100_000; op++) {
+            int id = random.nextInt(200);
+            Object key = random.nextBoolean() ? new MyHashMapTreeifyTest.CollidingKey(id) : Integer.valueOf(id);
+            Object expectedKey = key instanceof Integer ? key : "c" + id;
+            int delta = random.nextInt(5) - 2;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.merge(expectedKey, delta, (a, b) -> a + b == 0 ? null : a + b),
+                            map.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b));
+                    break;
+                case 1:
+                    assertEquals(expected.computeIfAbsent(expectedKey, k -> delta == 0 ? null : delta),
+                            map.computeIfAbsent(key, k -> delta == 0 ? null : delta));
+                    break;
+                default:
+                    assertEquals(expected.compute(expectedKey, (k, v) -> v == null ? Integer.valueOf(delta) : (v > 10 ? null : v + 1)),
+                            map.compute(key, (k, v) -> v == null ? Integer.valueOf(delta) : (v > 10 ? null : v + 1)));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int id = 0; id < 200; id++) {
+            assertEquals(expected.get(id), map.get(id));
+            assertEquals(expected.get("c" + id), map.get(new MyHashMapTreeifyTest.CollidingKey(id)));
+        }
+    }
+
+    @Test
+    public void testPutAllPresizesOnce() {
+        Map<Integer, Integer> source = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            source.put(i, i);
+        }
+        MyHashMap<Integer, Integer> map = new MyHashMap<>();
+        map.put(-1, -1);
+        map.putAll(source);
+        assertEquals(10_001, map.size());
+        assertEquals(MyHashMap.tableSizeFor((long) Math.ceil(10_001 / 0.75)), map.table.length);
+
+        MyHashMap<Integer, Integer> copy = new MyHashMap<>();
+        copy.putAll(map);
+        assertEquals(10_001, copy.size());
+        assertEquals(9999, copy.get(9999));
+        assertTrue(copy.containsKey(-1));
+
+        copy.clear();
+        assertTrue(copy.isEmpty());
+        assertFalse(copy.keySet().iterator().hasNext());
+    }
+}
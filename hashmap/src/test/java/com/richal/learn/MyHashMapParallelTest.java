@@ -0,0 +1,96 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Spliterator 与并行批量操作测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyHashMapParallelTest {
+
+    private static final int N = 200_000;
+
+    private static MyHashMap<Integer, Long> newMap() {
+        MyHashMap<Integer, Long> map = new MyHashMap<>();
+        for (int i = 0; i < N; i++) {
+            map.put(i, (long) i);
+        }
+        return map;
+    }
+
+    @Test
+    public void testSpliteratorSplitsIntoDisjointRanges() {
+        MyHashMap<Integer, Long> map = newMap();
+        Deque<Spliterator<Map.Entry<Integer, Long>>> pending = new ArrayDeque<>();
+        pending.push(map.spliterator());
+        boolean[] seen = new boolean[N];
+        int parts = 0;
+        while (!pending.isEmpty()) {
+            Spliterator<Map.Entry<Integer, Long>> sp = pending.pop();
+            Spliterator<Map.Entry<Integer, Long>> prefix;
+            if (sp.estimateSize() > 1000 && (prefix = sp.trySplit()) != null) {
+                pending.push(prefix);
+                pending.push(sp);
+                continue;
+            }
+            parts++;
+            // 先取一个再遍历剩下的，覆盖 tryAdvance 和 forEachRemaining
+            sp.tryAdvance(e -> mark(seen, e.getKey()));
+            sp.forEachRemaining(e -> mark(seen, e.getKey()));
+        }
+        assertTrue(parts > 100);
+        for (boolean b : seen) {
+            assertTrue(b);
+        }
+    }
+
+    private static void mark(boolean[] seen, int key) {
+        assertFalse(seen[key], "重复遍历: " + key);
+        seen[key] = true;
+    }
+
+    @Test
+    public void testParallelForEachAndStream() {
+        MyHashMap<Integer, Long> map = newMap();
+        LongAdder sum = new LongAdder();
+        map.parallelForEach(1000, (k, v) -> sum.add(v));
+        assertEquals((long) N * (N - 1) / 2, sum.sum());
+
+        long streamSum = StreamSupport.stream(map.spliterator(), true).mapToLong(Map.Entry::getValue).sum();
+        assertEquals((long) N * (N - 1) / 2, streamSum);
+        assertEquals(N, map.entrySet().parallelStream().count());
+    }
+
+    @Test
+    public void testParallelReduce() {
+        MyHashMap<Integer, Long> map = newMap();
+        long expected = (long) N * (N - 1) / 2;
+        assertEquals(expected, map.parallelReduce(1, (k, v) -> v, Long::sum));
+        assertEquals(expected, map.parallelReduce(Long.MAX_VALUE, (k, v) -> v, Long::sum));
+        // transformer 返回 null 的键值对被跳过
+        assertEquals(N - 1L, map.<Long>parallelReduce(1000, (k, v) -> k % 2 == 0 ? null : v, Math::max));
+        assertNull(map.parallelReduce(1000, (k, v) -> null, Long::sum));
+        assertNull(new MyHashMap<Integer, Long>().parallelReduce(1, (k, v) -> v, Long::sum));
+        assertThrows(IllegalArgumentException.class, () -> map.parallelReduce(0, (k, v) -> v, Long::sum));
+    }
+
+    @Test
+    public void testParallelSearch() {
+        MyHashMap<Integer, Long> map = newMap();
+        assertEquals("found 123456", map.parallelSearch(1000, (k, v) -> k == 123_456 ? "found " + k : null));
+        assertNull(map.parallelSearch(1000, (k, v) -> k < 0 ? k : null));
+        Integer any = map.parallelSearch(1, (k, v) -> k % 1000 == 0 ? k : null);
+        assertEquals(0, any % 1000);
+    }
+}
@@ -0,0 +1,166 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 扩容拆分与渐进式扩容测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyHashMapResizeTest {
+
+    @Test
+    public void testSplitKeepsRelativeOrder() {
+        MyHashMap<Integer, Integer> map = new MyHashMap<>();
+        // 找出 6 个落在初始数组第 3 个桶里的 key
+        List<Integer> keys = new ArrayList<>();
+        for (int k = 0; keys.size() < 6; k++) {
+            if ((MyHashMap.hash(k) & 15) == 3) {
+                keys.add(k);
+            }
+        }
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+        // 触发扩容
+        for (int k = 100_000; map.table.length == 16; k++) {
+            map.put(k, k);
+        }
+        assertEquals(32, map.table.length);
+
+        // 拆分后的 lo/hi 两条链里，原有 key 的相对顺序必须与插入顺序一致
+        for (int index : new int[]{3, 3 + 16}) {
+            int last = -1;
+            for (MyHashMap.Node<Integer, Integer> node = map.table[index]; node != null; node = node.next) {
+                int position = keys.indexOf(node.key);
+                if (position >= 0) {
+                    assertTrue(position > last, "链表顺序被打乱");
+                    last = position;
+                }
+            }
+        }
+        for (Integer key : keys) {
+            assertEquals(key, map.get(key));
+        }
+    }
+
+    @Test
+    public void testTreeBinSurvivesResize() {
+        MyHashMap<MyHashMapTreeifyTest.CollidingKey, Integer> map = new MyHashMap<>(64);
+        for (int i = 0; i < 50; i++) {
+            map.put(new MyHashMapTreeifyTest.CollidingKey(i), i);
+        }
+        int before = map.table.length;
+        // 放入大量普通 key 触发多次扩容，树桶要被整体迁移
+        MyHashMap<Object, Integer> raw = (MyHashMap) map;
+        for (int i = 0; i < 10_000; i++) {
+            raw.put("k" + i, i);
+        }
+        assertTrue(map.table.length > before);
+        int index = MyHashMap.hash(new MyHashMapTreeifyTest.CollidingKey(0)) & (map.table.length - 1);
+        assertTrue(map.table[index] instanceof MyHashMap.TreeBin);
+        assertTrue(((MyHashMap.TreeBin<?, ?>) map.table[index]).checkInvariants());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, map.get(new MyHashMapTreeifyTest.CollidingKey(i)));
+        }
+    }
+
+    @Test
+    public void testTreeBinSplitsIntoLoAndHi() {
+        // 20 个 key 都落在 64 长度数组的第 5 个桶，扩容到 128 后其中 13 个留在 lo，7 个去 hi
+        List<Integer> lo = new ArrayList<>();
+        List<Integer> hi = new ArrayList<>();
+        for (int k = 0; lo.size() < 13 || hi.size() < 7; k++) {
+            int h = MyHashMap.hash(k);
+            if ((h & 63) != 5) {
+                continue;
+            }
+            if ((h & 64) == 0 && lo.size() < 13) {
+                lo.add(k);
+            } else if ((h & 64) != 0 && hi.size() < 7) {
+                hi.add(k);
+            }
+        }
+        MyHashMap<Integer, Integer> map = new MyHashMap<>(48);
+        assertEquals(64, map.table.length);
+        for (int i = 0; i < 13; i++) {
+            map.put(lo.get(i), i);
+            if (i < 7) {
+                map.put(hi.get(i), i);
+            }
+        }
+        assertTrue(map.table[5] instanceof MyHashMap.TreeBin);
+
+        for (int k = -1; map.table.length == 64; k--) {
+            map.put(k, k);
+        }
+        assertTrue(map.table[5] instanceof MyHashMap.TreeBin);
+        assertTrue(((MyHashMap.TreeBin<?, ?>) map.table[5]).checkInvariants());
+        assertEquals(13, ((MyHashMap.TreeBin<?, ?>) map.table[5]).count);
+        // 7 个节点超过退化阈值 6，仍然是树；退化只发生在不超过 6 个节点时
+        assertTrue(map.table[5 + 64] instanceof MyHashMap.TreeBin);
+        assertTrue(((MyHashMap.TreeBin<?, ?>) map.table[5 + 64]).checkInvariants());
+        map.remove(hi.get(0));
+        assertFalse(map.table[5 + 64] instanceof MyHashMap.TreeBin);
+
+        for (int i = 0; i < 13; i++) {
+            assertEquals(i, map.get(lo.get(i)));
+        }
+        for (int i = 1; i < 7; i++) {
+            assertEquals(i, map.get(hi.get(i)));
+        }
+    }
+
+    @Test
+    public void testIncrementalResizeMovesBoundedBuckets() {
+        MyHashMap<Integer, Integer> map = new MyHashMap<>(0, 0.75f, true);
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            int transferredBefore = map.oldTable == null ? 0 : map.transferIndex;
+            boolean migrating = map.oldTable != null;
+            map.put(i, i);
+            if (migrating && map.oldTable != null) {
+                // 单次 put 最多迁移 RESIZE_STRIDE 个旧桶
+                assertTrue(map.transferIndex - transferredBefore <= MyHashMap.RESIZE_STRIDE);
+            }
+        }
+        assertEquals(n, map.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, map.get(i));
+        }
+    }
+
+    @Test
+    public void testIncrementalResizeRandomOperations() {
+        Random random = new Random(812);
+        MyHashMap<Integer, Integer> map = new MyHashMap<>(0, 0.75f, true);
+        Map<Integer, Integer> expected = new HashMap<>();
+        boolean sawMigration = false;
+        for (int op = 0; op < 300_000; op++) {
+            int key = random.nextInt(100_000);
+            int action = random.nextInt(4);
+            if (action == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else if (action == 1) {
+                assertEquals(expected.get(key), map.get(key));
+            } else {
+                assertEquals(expected.put(key, op), map.put(key, op));
+            }
+            sawMigration |= map.oldTable != null;
+        }
+        assertTrue(sawMigration);
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 哈希打散与预分配容量测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyHashMapSizingTest {
+
+    @Test
+    public void testTableSizeForRoundsUpToPowerOfTwo() {
+        assertEquals(1, MyHashMap.tableSizeFor(0));
+        assertEquals(1, MyHashMap.tableSizeFor(1));
+        assertEquals(2, MyHashMap.tableSizeFor(2));
+        assertEquals(4, MyHashMap.tableSizeFor(3));
+        assertEquals(1024, MyHashMap.tableSizeFor(1000));
+        assertEquals(1024, MyHashMap.tableSizeFor(1024));
+        assertEquals(MyHashMap.MAXIMUM_CAPACITY, MyHashMap.tableSizeFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPresizedMapNeverResizes() {
+        int expected = 1_000_000;
+        MyHashMap<Integer, Integer> map = new MyHashMap<>(expected);
+        MyHashMap.Node<Integer, Integer>[] initialTable = map.table;
+        // 1_000_000 / 0.75 向上取整到 2 的幂
+        assertEquals(1 << 21, initialTable.length);
+
+        for (int i = 0; i < expected; i++) {
+            map.put(i, i);
+        }
+        assertSame(initialTable, map.table, "放入预期数量的元素不应触发扩容");
+        assertEquals(expected, map.size());
+
+        // 超过 table.length * 0.75 之后才扩容
+        int threshold = (int) (initialTable.length * 0.75f);
+        for (int i = expected; i < threshold; i++) {
+            map.put(i, i);
+        }
+        assertSame(initialTable, map.table);
+        map.put(threshold, threshold);
+        assertEquals(1 << 22, map.table.length);
+    }
+
+    @Test
+    public void testCustomLoadFactor() {
+        MyHashMap<Integer, Integer> map = new MyHashMap<>(100, 0.5f);
+        assertEquals(256, map.table.length);
+        for (int i = 0; i < 128; i++) {
+            map.put(i, i);
+        }
+        assertEquals(256, map.table.length);
+        map.put(128, 128);
+        assertEquals(512, map.table.length);
+        for (int i = 0; i <= 128; i++) {
+            assertEquals(i, map.get(i));
+        }
+    }
+
+    @Test
+    public void testIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MyHashMap<>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new MyHashMap<>(16, 0f));
+        assertThrows(IllegalArgumentException.class, () -> new MyHashMap<>(16, Float.NaN));
+    }
+
+    @Test
+    public void testHighBitKeysAreSpread() {
+        // 按 4096 对齐的 key，原始 hashCode 的低 12 位全部为 0
+        int n = 4096;
+        MyHashMap<Integer, Integer> map = new MyHashMap<>(n);
+        for (int i = 0; i < n; i++) {
+            map.put(i << 12, i);
+        }
+        assertEquals(n, map.size());
+
+        int longest = 0;
+        int used = 0;
+        for (MyHashMap.Node<Integer, Integer> head : map.table) {
+            int length = 0;
+            for (MyHashMap.Node<Integer, Integer> node = head; node != null; node = node.next) {
+                length++;
+            }
+            if (length > 0) {
+                used++;
+            }
+            longest = Math.max(longest, length);
+        }
+        // 不打散时所有 key 都会落进 table[0]
+        assertTrue(longest < MyHashMap.TREEIFY_THRESHOLD, "最长链表: " + longest);
+        assertTrue(used > map.table.length / 4, "被使用的桶: " + used);
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, map.get(i << 12));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 快照写出与内存映射加载测试
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyHashMapSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testReadsServedFromMappingUntilFirstWrite() throws IOException {
+        MyHashMap<Long, Long> map = new MyHashMap<>();
+        for (long i = 0; i < 100_000; i++) {
+            map.put(i, i * 3);
+        }
+        Path file = dir.resolve("map.snapshot");
+        map.snapshotTo(file, Serializer.LONG, Serializer.LONG);
+
+        MyHashMap<Long, Long> loaded = MyHashMap.mapFrom(file, Serializer.LONG, Serializer.LONG);
+        assertEquals(100_000, loaded.size());
+        for (long i = 0; i < 100_000; i++) {
+            assertEquals(i * 3, loaded.get(i));
+        }
+        assertNull(loaded.get(-1L));
+        // 只读不会把键值对搬到堆上
+        assertEquals(1, loaded.table.length);
+
+        assertEquals(0L, loaded.remove(0L));
+        assertNull(loaded.put(-1L, -1L));
+        assertEquals(100_000, loaded.size());
+        assertTrue(loaded.table.length >= 100_000);
+        assertNull(loaded.get(0L));
+        assertEquals(-1L, loaded.get(-1L));
+        assertEquals(99_999L * 3, loaded.get(99_999L));
+    }
+
+    @Test
+    public void testSnapshotDuringIncrementalResize() throws IOException {
+        MyHashMap<String, Integer> map = new MyHashMap<>(0, 0.75f, true);
+        for (int i = 0; i < 3100; i++) {
+            map.put("k" + i, i);
+        }
+        assertNotNull(map.oldTable);
+        Path file = dir.resolve("strings.snapshot");
+        map.snapshotTo(file, Serializer.utf8(8), Serializer.INT);
+
+        MyHashMap<String, Integer> loaded = MyHashMap.mapFrom(file, Serializer.utf8(8), Serializer.INT);
+        assertEquals(3100, loaded.size());
+        for (int i = 0; i < 3100; i++) {
+            assertEquals(i, loaded.get("k" + i));
+        }
+
+        // 从映射再写一次快照，覆盖原文件
+        loaded.snapshotTo(file, Serializer.utf8(8), Serializer.INT);
+        MyHashMap<String, Integer> reloaded = MyHashMap.mapFrom(file, Serializer.utf8(8), Serializer.INT);
+        assertEquals(3100, reloaded.size());
+        assertEquals(3099, reloaded.get("k3099"));
+        assertFalse(Files.exists(dir.resolve("strings.snapshot.tmp")));
+    }
+
+    @Test
+    public void testLookupOfKeysTheSnapshotCannotHold() throws IOException {
+        MyHashMap<String, Integer> heap = new MyHashMap<>();
+        heap.put("a", 1);
+        Path file = dir.resolve("keys.snapshot");
+        heap.snapshotTo(file, Serializer.utf8(4), Serializer.INT);
+
+        MyHashMap<String, Integer> loaded = MyHashMap.mapFrom(file, Serializer.utf8(4), Serializer.INT);
+        assertMissingAndNullKeys(heap);
+        assertMissingAndNullKeys(loaded);
+        // 仍然由映射提供查询
+        assertEquals(1, loaded.table.length);
+
+        // 第一次写入把键值对搬到堆上，结果不变
+        loaded.put("b", 2);
+        assertTrue(loaded.table.length > 1);
+        assertMissingAndNullKeys(loaded);
+    }
+
+    /**
+     * 超过序列化长度的 key 按不存在处理，null key 抛出 NullPointerException，堆上和映射上一致
+     */
+    private static void assertMissingAndNullKeys(MyHashMap<String, Integer> map) {
+        assertNull(map.get("longer than four bytes"));
+        assertFalse(map.containsKey("longer than four bytes"));
+        assertThrows(NullPointerException.class, () -> map.get(null));
+        assertThrows(NullPointerException.class, () -> map.containsKey(null));
+        assertEquals(1, map.get("a"));
+        assertTrue(map.containsKey("a"));
+    }
+
+    @Test
+    public void testFailedWriteKeepsOldSnapshotAndRemovesTempFile() throws IOException {
+        MyHashMap<String, Integer> map = new MyHashMap<>();
+        map.put("a", 1);
+        Path file = dir.resolve("failed.snapshot");
+        map.snapshotTo(file, Serializer.utf8(4), Serializer.INT);
+
+        // 写到一半遇到序列化不了的 key
+        map.put("longer than four bytes", 2);
+        assertThrows(IllegalArgumentException.class, () -> map.snapshotTo(file, Serializer.utf8(4), Serializer.INT));
+        assertFalse(Files.exists(dir.resolve("failed.snapshot.tmp")), "失败后不应该留下临时文件");
+
+        MyHashMap<String, Integer> loaded = MyHashMap.mapFrom(file, Serializer.utf8(4), Serializer.INT);
+        assertEquals(1, loaded.size());
+        assertEquals(1, loaded.get("a"));
+    }
+
+    @Test
+    public void testRejectsMismatchedOrCorruptFiles() throws IOException {
+        MyHashMap<Long, Long> map = new MyHashMap<>();
+        map.put(1L, 2L);
+        Path file = dir.resolve("small.snapshot");
+        map.snapshotTo(file, Serializer.LONG, Serializer.LONG);
+
+        assertThrows(IOException.class, () -> MyHashMap.mapFrom(file, Serializer.LONG, Serializer.INT));
+
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> MyHashMap.mapFrom(file, Serializer.LONG, Serializer.LONG));
+    }
+}
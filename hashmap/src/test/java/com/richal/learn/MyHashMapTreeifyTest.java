@@ -0,0 +1,168 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 哈希冲突树化测试
+ * 通过让大量 key 返回相同的 hashCode，强制所有元素落进同一个桶
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class MyHashMapTreeifyTest {
+
+    /**
+     * hashCode 恒定、可比较的 key，统计 compareTo/equals 的调用次数
+     */
+    static final class CollidingKey implements Comparable<CollidingKey> {
+        static long comparisons;
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            comparisons++;
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int compareTo(CollidingKey o) {
+            comparisons++;
+            return Integer.compare(id, o.id);
+        }
+    }
+
+    /**
+     * hashCode 恒定、不可比较的 key，只能依靠兜底顺序插入
+     */
+    static final class OpaqueKey {
+        final int id;
+
+        OpaqueKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 7;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OpaqueKey && ((OpaqueKey) o).id == id;
+        }
+    }
+
+    /**
+     * 所有 CollidingKey 所在的桶
+     */
+    private static int binIndex(MyHashMap<CollidingKey, Integer> map) {
+        return MyHashMap.hash(new CollidingKey(0)) & (map.table.length - 1);
+    }
+
+    @Test
+    public void testLongChainIsTreeified() {
+        MyHashMap<CollidingKey, Integer> map = new MyHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(new CollidingKey(i), i);
+        }
+        MyHashMap.Node<CollidingKey, Integer> bin = map.table[binIndex(map)];
+        assertTrue(bin instanceof MyHashMap.TreeBin);
+        assertTrue(((MyHashMap.TreeBin<CollidingKey, Integer>) bin).checkInvariants());
+        assertEquals(100, ((MyHashMap.TreeBin<CollidingKey, Integer>) bin).count);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, map.get(new CollidingKey(i)));
+        }
+    }
+
+    @Test
+    public void testLookupStaysLogarithmic() {
+        int n = 1 << 14;
+        MyHashMap<CollidingKey, Integer> map = new MyHashMap<>();
+        for (int i = 0; i < n; i++) {
+            map.put(new CollidingKey(i), i);
+        }
+
+        CollidingKey.comparisons = 0;
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, map.get(new CollidingKey(i)));
+        }
+        // 红黑树高度不超过 2 * log2(n + 1)，每层最多一次 equals 和一次 compareTo
+        long perLookup = CollidingKey.comparisons / n;
+        assertTrue(perLookup <= 4 * 15, "每次查找的比较次数: " + perLookup);
+    }
+
+    @Test
+    public void testNonComparableCollisions() {
+        MyHashMap<OpaqueKey, Integer> map = new MyHashMap<>();
+        int n = 2000;
+        for (int i = 0; i < n; i++) {
+            assertNull(map.put(new OpaqueKey(i), i));
+        }
+        assertEquals(n, map.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, map.get(new OpaqueKey(i)));
+        }
+        // 重复 put 不能插入重复节点
+        assertEquals(5, map.put(new OpaqueKey(5), 500));
+        assertEquals(n, map.size());
+        assertEquals(500, map.get(new OpaqueKey(5)));
+    }
+
+    @Test
+    public void testShrinkBackToChain() {
+        MyHashMap<CollidingKey, Integer> map = new MyHashMap<>();
+        for (int i = 0; i < 64; i++) {
+            map.put(new CollidingKey(i), i);
+        }
+        int index = binIndex(map);
+        assertTrue(map.table[index] instanceof MyHashMap.TreeBin);
+
+        for (int i = 0; i < 64 - MyHashMap.UNTREEIFY_THRESHOLD; i++) {
+            assertEquals(i, map.remove(new CollidingKey(i)));
+        }
+        assertFalse(map.table[index] instanceof MyHashMap.TreeBin);
+        assertEquals(MyHashMap.UNTREEIFY_THRESHOLD, map.size());
+        for (int i = 64 - MyHashMap.UNTREEIFY_THRESHOLD; i < 64; i++) {
+            assertEquals(i, map.get(new CollidingKey(i)));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsKeepTreeValid() {
+        Random random = new Random(2025);
+        MyHashMap<CollidingKey, Integer> map = new MyHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int op = 0; op < 20000; op++) {
+            int id = random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), map.remove(new CollidingKey(id)));
+            } else {
+                assertEquals(expected.put(id, op), map.put(new CollidingKey(id), op));
+            }
+            assertEquals(expected.size(), map.size());
+
+            MyHashMap.Node<CollidingKey, Integer> bin = map.table[binIndex(map)];
+            if (bin instanceof MyHashMap.TreeBin) {
+                assertTrue(((MyHashMap.TreeBin<CollidingKey, Integer>) bin).checkInvariants());
+            }
+        }
+        for (int id = 0; id < 300; id++) {
+            assertEquals(expected.get(id), map.get(new CollidingKey(id)));
+        }
+    }
+}
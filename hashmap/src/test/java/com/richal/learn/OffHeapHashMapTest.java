@@ -0,0 +1,93 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 堆外哈希表测试
+ * 与 java.util.HashMap 做随机操作对照，覆盖多个 slab、变长字符串序列化以及关闭后的行为
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class OffHeapHashMapTest {
+
+    @Test
+    public void testAgainstHashMapAcrossSlabs() {
+        Random random = new Random(6);
+        // slab 只有 4KB，扩容后槽位会分布在很多个 slab 上
+        try (OffHeapHashMap<Long, Long> map = new OffHeapHashMap<>(Serializer.LONG, Serializer.LONG, 0, 0.5f, 4096)) {
+            Map<Long, Long> expected = new HashMap<>();
+            for (int op = 0; op < 200_000; op++) {
+                long key = random.nextInt(20_000) - 10_000L;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        assertEquals(expected.remove(key), map.remove(key));
+                        break;
+                    case 1:
+                        assertEquals(expected.get(key), map.get(key));
+                        assertEquals(expected.containsKey(key), map.containsKey(key));
+                        break;
+                    default:
+                        assertEquals(expected.put(key, (long) op), map.put(key, (long) op));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertTrue(map.slabs.length > 1);
+            for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertNull(map.get(0L));
+        }
+    }
+
+    @Test
+    public void testStringKeys() {
+        try (OffHeapHashMap<String, Integer> map = new OffHeapHashMap<>(Serializer.utf8(16), Serializer.INT)) {
+            for (int i = 0; i < 1000; i++) {
+                map.put("key-" + i, i);
+            }
+            map.put("", -1);
+            map.put("中文", -2);
+            assertEquals(1002, map.size());
+            assertEquals(500, map.get("key-500"));
+            assertEquals(-1, map.get(""));
+            assertEquals(-2, map.get("中文"));
+            assertNull(map.get("key-1000"));
+            assertThrows(IllegalArgumentException.class, () -> map.put("a string longer than 16 bytes", 0));
+        }
+    }
+
+    @Test
+    public void testMemoryUsageAndClose() {
+        OffHeapHashMap<Long, Double> map = new OffHeapHashMap<>(Serializer.LONG, Serializer.DOUBLE, 1000);
+        // 槽位 4 + 8 + 8 = 20 字节，1000 个元素按 0.5 的扩容因子需要 2048 个槽位
+        assertEquals(2048 * 20, map.allocatedBytes());
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, i / 2.0);
+        }
+        assertEquals(2048 * 20, map.allocatedBytes());
+        assertEquals(1000 * 20, map.usedBytes());
+
+        map.close();
+        map.close();
+        assertEquals(0, map.allocatedBytes());
+        assertEquals(0, map.size());
+        assertThrows(IllegalStateException.class, () -> map.get(1L));
+        assertThrows(IllegalStateException.class, () -> map.put(1L, 1.0));
+    }
+
+    @Test
+    public void testIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapHashMap<>(Serializer.LONG, Serializer.LONG, -1));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapHashMap<>(Serializer.LONG, Serializer.LONG, 16, 1f));
+        assertThrows(IllegalArgumentException.class, () -> Serializer.utf8(0));
+    }
+}
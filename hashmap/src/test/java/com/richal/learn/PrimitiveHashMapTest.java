@@ -0,0 +1,122 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 原始类型开放寻址哈希表测试
+ * 与 java.util.HashMap 做随机操作对照，覆盖 key 为 0、负数以及删除后的回移
+ *
+ * @author Richal
+ * @since 2025/08/12
+ */
+public class PrimitiveHashMapTest {
+
+    @Test
+    public void testIntObjectHashMapAgainstHashMap() {
+        Random random = new Random(1);
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            // key 范围较小，保证大量删除和重复插入
+            int key = random.nextInt(2000) - 1000;
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.get(key), map.get(key));
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+                    break;
+                default:
+                    assertEquals(expected.put(key, "v" + op), map.put(key, "v" + op));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+
+    @Test
+    public void testLongObjectHashMapAgainstHashMap() {
+        Random random = new Random(2);
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            // 差异只在高 32 位的 key
+            long key = ((long) random.nextInt(3000) << 32) - (1L << 40);
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.get(key), map.get(key));
+                    break;
+                default:
+                    assertEquals(expected.put(key, (long) op), map.put(key, (long) op));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testLongLongHashMapAgainstHashMap() {
+        Random random = new Random(3);
+        LongLongHashMap map = new LongLongHashMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            long key = random.nextInt(2000) - 1000;
+            switch (random.nextInt(5)) {
+                case 0:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.getOrDefault(key, -1L), map.getOrDefault(key, -1L));
+                    break;
+                case 2:
+                    assertEquals(expected.merge(key, 3L, Long::sum), map.addTo(key, 3));
+                    break;
+                default:
+                    Long old = expected.put(key, (long) op);
+                    assertEquals(old == null ? 0 : old, map.put(key, op));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = -1000; key < 1000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.getOrDefault(key, 0L), map.get(key));
+        }
+    }
+
+    @Test
+    public void testPresizedMapDoesNotRehash() {
+        IntObjectHashMap<Object> map = new IntObjectHashMap<>(1000);
+        int[] keys = map.keys;
+        for (int i = 1; i <= 1000; i++) {
+            map.put(i, map);
+        }
+        assertSame(keys, map.keys);
+        map.put(1001, map);
+        map.put(1002, map);
+        assertEquals(1002, map.size());
+    }
+
+    @Test
+    public void testIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IntObjectHashMap<>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<>(16, 1f));
+        assertThrows(IllegalArgumentException.class, () -> new LongLongHashMap(16, 0f));
+    }
+}
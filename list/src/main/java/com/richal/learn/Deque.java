@@ -0,0 +1,44 @@
+package com.richal.learn;
+
+/**
+ * 双端队列接口，两端都可以插入、删除和查看元素，作为 {@link Queue} 使用时 offer/poll/peek 分别对应队尾添加、队头取出和查看
+ * 方法命名与 java.util.Deque 相同：add/remove/get 系列在队列为空时抛出 NoSuchElementException，
+ * offer/poll/peek 系列返回 false 或 null
+ * @param <E> 队列中存储的元素类型
+ */
+public interface Deque<E> extends Queue<E> {
+
+    void addFirst(E element);
+
+    void addLast(E element);
+
+    boolean offerFirst(E element);
+
+    boolean offerLast(E element);
+
+    E removeFirst();
+
+    E removeLast();
+
+    E pollFirst();
+
+    E pollLast();
+
+    E getFirst();
+
+    E getLast();
+
+    E peekFirst();
+
+    E peekLast();
+
+    /**
+     * 作为栈使用：压到队头，等同于 addFirst
+     */
+    void push(E element);
+
+    /**
+     * 作为栈使用：从队头弹出，等同于 removeFirst
+     */
+    E pop();
+}
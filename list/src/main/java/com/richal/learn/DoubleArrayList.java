@@ -0,0 +1,312 @@
+package com.richal.learn;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+
+/**
+ * 基于 double[] 的动态列表
+ * 元素直接存放在原始类型数组中，没有装箱对象，get 不需要再跳一次指针；
+ * 扩容策略与 {@link MyArrayList} 相同，按 1.5 倍扩容，批量添加一次到位
+ */
+public class DoubleArrayList implements DoubleList {
+
+    /**
+     * 默认初始容量
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * 数组的最大长度
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final double[] EMPTY_TABLE = {};
+
+    /**
+     * 底层存储数据的数组
+     */
+    double[] table;
+
+    /**
+     * 列表中实际元素的数量
+     */
+    private int size;
+
+    /**
+     * 创建初始容量为 10 的列表
+     */
+    public DoubleArrayList() {
+        this.table = new double[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * 创建指定初始容量的列表
+     * @param initialCapacity 初始容量
+     */
+    public DoubleArrayList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("非法的初始容量: " + initialCapacity);
+        }
+        this.table = initialCapacity == 0 ? EMPTY_TABLE : new double[initialCapacity];
+    }
+
+    /**
+     * 创建包含数组中所有元素的列表，会复制一份数组
+     * @param elements 初始元素
+     */
+    public DoubleArrayList(double[] elements) {
+        this.table = elements.length == 0 ? EMPTY_TABLE : elements.clone();
+        this.size = elements.length;
+    }
+
+    /**
+     * 在列表末尾添加元素
+     * 时间复杂度：平均O(1)，最坏O(n)当需要扩容时
+     * @param element 要添加的元素
+     */
+    @Override
+    public void add(double element) {
+        if (size == table.length) {
+            grow(size + 1);
+        }
+        table[size++] = element;
+    }
+
+    /**
+     * 在指定位置插入元素
+     * 时间复杂度：O(n)，需要移动插入位置后的所有元素
+     * @param element 要插入的元素
+     * @param index 插入位置的索引
+     */
+    @Override
+    public void add(double element, int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (size == table.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(table, index, table, index + 1, size - index);
+        table[index] = element;
+        size++;
+    }
+
+    /**
+     * 在列表末尾添加数组中的所有元素，最多扩容一次
+     * @param elements 要添加的元素
+     */
+    public void addAll(double[] elements) {
+        int count = elements.length;
+        if (count > table.length - size) {
+            grow(size + count);
+        }
+        System.arraycopy(elements, 0, table, size, count);
+        size += count;
+    }
+
+    /**
+     * 删除指定位置的元素
+     * 时间复杂度：O(n)，需要移动删除位置后的所有元素
+     * @param index 要删除元素的索引
+     * @return 被删除的元素
+     */
+    @Override
+    public double removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        double removed = table[index];
+        System.arraycopy(table, index + 1, table, index, size - index - 1);
+        size--;
+        return removed;
+    }
+
+    /**
+     * 删除第一个与指定值相等的元素
+     * @param element 要删除的值
+     * @return 如果找到并删除了元素则返回true，否则返回false
+     */
+    @Override
+    public boolean removeValue(double element) {
+        int index = indexOf(element);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * 第一个与指定值相等的元素的下标
+     * @return 找不到时返回 -1
+     */
+    public int indexOf(double element) {
+        for (int i = 0; i < size; i++) {
+            if (Double.doubleToLongBits(table[i]) == Double.doubleToLongBits(element)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取指定位置的元素
+     * 时间复杂度：O(1)
+     */
+    @Override
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return table[index];
+    }
+
+    /**
+     * 修改指定位置的元素
+     * @return 被替换的旧元素
+     */
+    @Override
+    public double set(int index, double element) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        double old = table[index];
+        table[index] = element;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 删除所有元素，保留当前容量
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 确保容量至少为 minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > table.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * 把容量缩小到与元素数量相同
+     */
+    public void trimToSize() {
+        if (size < table.length) {
+            table = size == 0 ? EMPTY_TABLE : Arrays.copyOf(table, size);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) {
+            throw new OutOfMemoryError("所需容量过大: " + Integer.toUnsignedString(minCapacity));
+        }
+        int oldCapacity = table.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity < minCapacity) {
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        } else if (newCapacity > MAX_ARRAY_SIZE || newCapacity < 0) {
+            newCapacity = MAX_ARRAY_SIZE;
+        }
+        table = Arrays.copyOf(table, newCapacity);
+    }
+
+    /**
+     * 把元素按升序原地排序
+     */
+    public void sort() {
+        Arrays.sort(table, 0, size);
+    }
+
+    /**
+     * 在已按升序排好的列表中二分查找
+     * @return 找到时返回下标；否则返回 (-(插入位置) - 1)
+     */
+    public int binarySearch(double key) {
+        return Arrays.binarySearch(table, 0, size, key);
+    }
+
+    /**
+     * 所有元素之和，空列表返回 0
+     */
+    public double sum() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += table[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 最小的元素
+     * @throws NoSuchElementException 列表为空
+     */
+    public double min() {
+        if (size == 0) {
+            throw new NoSuchElementException("列表为空");
+        }
+        double min = table[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, table[i]);
+        }
+        return min;
+    }
+
+    /**
+     * 最大的元素
+     * @throws NoSuchElementException 列表为空
+     */
+    public double max() {
+        if (size == 0) {
+            throw new NoSuchElementException("列表为空");
+        }
+        double max = table[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, table[i]);
+        }
+        return max;
+    }
+
+    /**
+     * 按顺序对每个元素执行 action，不装箱
+     */
+    public void forEach(DoubleConsumer action) {
+        Objects.requireNonNull(action);
+        double[] tab = table;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            action.accept(tab[i]);
+        }
+    }
+
+    /**
+     * 返回包含全部元素的新数组
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(table, size);
+    }
+
+    /**
+     * 以流的方式读取当前元素，直接遍历底层数组，不装箱
+     * 流在终端操作执行前不能修改列表
+     */
+    public DoubleStream stream() {
+        return Arrays.stream(table, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,22 @@
+package com.richal.learn;
+
+/**
+ * double 元素的列表，对应 {@link List}，读写都不装箱
+ * 删除分成按下标的 removeAt 和按值的 removeValue，避免 remove(int) 在 int 元素上产生歧义
+ */
+public interface DoubleList {
+
+    void add(double element);
+
+    void add(double element, int index);
+
+    double removeAt(int index);
+
+    boolean removeValue(double element);
+
+    double get(int index);
+
+    double set(int index, double element);
+
+    int size();
+}
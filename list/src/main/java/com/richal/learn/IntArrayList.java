@@ -0,0 +1,356 @@
+package com.richal.learn;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 基于 int[] 的动态列表
+ * 元素直接存放在原始类型数组中，没有装箱对象，get 不需要再跳一次指针；
+ * 扩容策略与 {@link MyArrayList} 相同，按 1.5 倍扩容，批量添加一次到位
+ */
+public class IntArrayList implements IntList {
+
+    /**
+     * 默认初始容量
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * 数组的最大长度
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final int[] EMPTY_TABLE = {};
+
+    /**
+     * 元素数量达到该值时用基数排序代替 Arrays.sort
+     */
+    static final int RADIX_THRESHOLD = 1 << 12;
+
+    /**
+     * 底层存储数据的数组
+     */
+    int[] table;
+
+    /**
+     * 列表中实际元素的数量
+     */
+    private int size;
+
+    /**
+     * 创建初始容量为 10 的列表
+     */
+    public IntArrayList() {
+        this.table = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * 创建指定初始容量的列表
+     * @param initialCapacity 初始容量
+     */
+    public IntArrayList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("非法的初始容量: " + initialCapacity);
+        }
+        this.table = initialCapacity == 0 ? EMPTY_TABLE : new int[initialCapacity];
+    }
+
+    /**
+     * 创建包含数组中所有元素的列表，会复制一份数组
+     * @param elements 初始元素
+     */
+    public IntArrayList(int[] elements) {
+        this.table = elements.length == 0 ? EMPTY_TABLE : elements.clone();
+        this.size = elements.length;
+    }
+
+    /**
+     * 在列表末尾添加元素
+     * 时间复杂度：平均O(1)，最坏O(n)当需要扩容时
+     * @param element 要添加的元素
+     */
+    @Override
+    public void add(int element) {
+        if (size == table.length) {
+            grow(size + 1);
+        }
+        table[size++] = element;
+    }
+
+    /**
+     * 在指定位置插入元素
+     * 时间复杂度：O(n)，需要移动插入位置后的所有元素
+     * @param element 要插入的元素
+     * @param index 插入位置的索引
+     */
+    @Override
+    public void add(int element, int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (size == table.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(table, index, table, index + 1, size - index);
+        table[index] = element;
+        size++;
+    }
+
+    /**
+     * 在列表末尾添加数组中的所有元素，最多扩容一次
+     * @param elements 要添加的元素
+     */
+    public void addAll(int[] elements) {
+        int count = elements.length;
+        if (count > table.length - size) {
+            grow(size + count);
+        }
+        System.arraycopy(elements, 0, table, size, count);
+        size += count;
+    }
+
+    /**
+     * 删除指定位置的元素
+     * 时间复杂度：O(n)，需要移动删除位置后的所有元素
+     * @param index 要删除元素的索引
+     * @return 被删除的元素
+     */
+    @Override
+    public int removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int removed = table[index];
+        System.arraycopy(table, index + 1, table, index, size - index - 1);
+        size--;
+        return removed;
+    }
+
+    /**
+     * 删除第一个与指定值相等的元素
+     * @param element 要删除的值
+     * @return 如果找到并删除了元素则返回true，否则返回false
+     */
+    @Override
+    public boolean removeValue(int element) {
+        int index = indexOf(element);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * 第一个与指定值相等的元素的下标
+     * @return 找不到时返回 -1
+     */
+    public int indexOf(int element) {
+        for (int i = 0; i < size; i++) {
+            if (table[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取指定位置的元素
+     * 时间复杂度：O(1)
+     */
+    @Override
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return table[index];
+    }
+
+    /**
+     * 修改指定位置的元素
+     * @return 被替换的旧元素
+     */
+    @Override
+    public int set(int index, int element) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int old = table[index];
+        table[index] = element;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 删除所有元素，保留当前容量
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 确保容量至少为 minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > table.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * 把容量缩小到与元素数量相同
+     */
+    public void trimToSize() {
+        if (size < table.length) {
+            table = size == 0 ? EMPTY_TABLE : Arrays.copyOf(table, size);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) {
+            throw new OutOfMemoryError("所需容量过大: " + Integer.toUnsignedString(minCapacity));
+        }
+        int oldCapacity = table.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity < minCapacity) {
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        } else if (newCapacity > MAX_ARRAY_SIZE || newCapacity < 0) {
+            newCapacity = MAX_ARRAY_SIZE;
+        }
+        table = Arrays.copyOf(table, newCapacity);
+    }
+
+    /**
+     * 把元素按升序原地排序
+     * 元素较少时使用 Arrays.sort（双轴快排）；较多时使用 LSD 基数排序，
+     * 每轮按 8 位分桶，共 4 轮，需要 size 大小的临时数组，时间复杂度 O(n)
+     */
+    public void sort() {
+        if (size < RADIX_THRESHOLD) {
+            Arrays.sort(table, 0, size);
+        } else {
+            radixSort(table, size);
+        }
+    }
+
+    /**
+     * 对 a[0, n) 做 LSD 基数排序，最高字节翻转符号位，使负数排在正数之前
+     * 某一字节所有元素都相同时跳过这一轮
+     */
+    private static void radixSort(int[] a, int n) {
+        int[] src = a;
+        int[] dst = new int[n];
+        int[] count = new int[257];
+        for (int shift = 0; shift < 32; shift += 8) {
+            int flip = shift == 24 ? 0x80000000 : 0;
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[(((src[i] ^ flip) >>> shift) & 0xff) + 1]++;
+            }
+            if (count[(((src[0] ^ flip) >>> shift) & 0xff) + 1] == n) {
+                continue;
+            }
+            for (int i = 0; i < 256; i++) {
+                count[i + 1] += count[i];
+            }
+            for (int i = 0; i < n; i++) {
+                int v = src[i];
+                dst[count[((v ^ flip) >>> shift) & 0xff]++] = v;
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    /**
+     * 在已按升序排好的列表中二分查找
+     * @return 找到时返回下标；否则返回 (-(插入位置) - 1)
+     */
+    public int binarySearch(int key) {
+        return Arrays.binarySearch(table, 0, size, key);
+    }
+
+    /**
+     * 所有元素之和，空列表返回 0
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += table[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 最小的元素
+     * @throws NoSuchElementException 列表为空
+     */
+    public int min() {
+        if (size == 0) {
+            throw new NoSuchElementException("列表为空");
+        }
+        int min = table[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, table[i]);
+        }
+        return min;
+    }
+
+    /**
+     * 最大的元素
+     * @throws NoSuchElementException 列表为空
+     */
+    public int max() {
+        if (size == 0) {
+            throw new NoSuchElementException("列表为空");
+        }
+        int max = table[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, table[i]);
+        }
+        return max;
+    }
+
+    /**
+     * 按顺序对每个元素执行 action，不装箱
+     */
+    public void forEach(IntConsumer action) {
+        Objects.requireNonNull(action);
+        int[] tab = table;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            action.accept(tab[i]);
+        }
+    }
+
+    /**
+     * 返回包含全部元素的新数组
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(table, size);
+    }
+
+    /**
+     * 以流的方式读取当前元素，直接遍历底层数组，不装箱
+     * 流在终端操作执行前不能修改列表
+     */
+    public IntStream stream() {
+        return Arrays.stream(table, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
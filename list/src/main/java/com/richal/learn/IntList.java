@@ -0,0 +1,22 @@
+package com.richal.learn;
+
+/**
+ * int 元素的列表，对应 {@link List}，读写都不装箱
+ * 删除分成按下标的 removeAt 和按值的 removeValue，避免 remove(int) 在 int 元素上产生歧义
+ */
+public interface IntList {
+
+    void add(int element);
+
+    void add(int element, int index);
+
+    int removeAt(int index);
+
+    boolean removeValue(int element);
+
+    int get(int index);
+
+    int set(int index, int element);
+
+    int size();
+}
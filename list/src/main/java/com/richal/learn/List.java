@@ -1,5 +1,8 @@
 package com.richal.learn;
 
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 public interface List<E> extends Iterable<E>{
 
     void add(E element);
@@ -15,4 +18,21 @@ public interface List<E> extends Iterable<E>{
     E set(int index, E element);
 
     int size();
+
+    /**
+     * 顺序流，基于 {@link #spliterator()}
+     * @return 列表元素组成的顺序流
+     */
+    default Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * 并行流，能否按核数扩展取决于实现类的 spliterator 能否均匀拆分，
+     * 默认的 spliterator 大小未知且只能按迭代器逐批拆分
+     * @return 列表元素组成的并行流
+     */
+    default Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
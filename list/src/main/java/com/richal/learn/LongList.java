@@ -0,0 +1,22 @@
+package com.richal.learn;
+
+/**
+ * long 元素的列表，对应 {@link List}，读写都不装箱
+ * 删除分成按下标的 removeAt 和按值的 removeValue，避免 remove(int) 在 int 元素上产生歧义
+ */
+public interface LongList {
+
+    void add(long element);
+
+    void add(long element, int index);
+
+    long removeAt(int index);
+
+    boolean removeValue(long element);
+
+    long get(int index);
+
+    long set(int index, long element);
+
+    int size();
+}
@@ -1,26 +1,77 @@
 package com.richal.learn;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * 自定义ArrayList实现，基于数组实现的动态列表
  * 提供了基本列表操作功能，包括添加、删除、获取元素等
+ * 容量不足时按 1.5 倍扩容；批量添加只扩容一次，可以用 ensureCapacity 预先分配、trimToSize 释放多余空间
  * @param <E> 列表中存储的元素类型
  */
 public class MyArrayList<E> implements List<E> {
 
     /**
-     * 底层存储数据的数组，初始容量为10
+     * 默认初始容量
      */
-    Object[] table = new Object[10];
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * 数组的最大长度，部分虚拟机会在数组中保留几个字的头信息
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * 容量为 0 时共用的空数组
+     */
+    private static final Object[] EMPTY_TABLE = {};
+
+    /**
+     * 底层存储数据的数组，默认初始容量为10
+     */
+    Object[] table;
 
     /**
      * 列表中实际元素的数量
      */
     private int size;
 
+    /**
+     * 创建初始容量为 10 的列表
+     */
+    public MyArrayList() {
+        this.table = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * 创建指定初始容量的列表，已知元素数量时可以避免扩容
+     * @param initialCapacity 初始容量
+     */
+    public MyArrayList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("非法的初始容量: " + initialCapacity);
+        }
+        this.table = initialCapacity == 0 ? EMPTY_TABLE : new Object[initialCapacity];
+    }
+
+    /**
+     * 创建包含集合中所有元素的列表，容量恰好等于元素数量
+     * @param c 初始元素
+     */
+    public MyArrayList(Collection<? extends E> c) {
+        Object[] elements = c.toArray();
+        this.table = elements.length == 0 ? EMPTY_TABLE : Arrays.copyOf(elements, elements.length, Object[].class);
+        this.size = elements.length;
+    }
+
     /**
      * 在列表末尾添加元素
      * 时间复杂度：平均O(1)，最坏O(n)当需要扩容时
@@ -37,13 +88,172 @@ public class MyArrayList<E> implements List<E> {
     }
 
     /**
-     * 扩容数组，将容量翻倍
+     * 扩容数组，容量变为原来的 1.5 倍
      * 时间复杂度：O(n)，需要复制所有元素
      */
     private void resize() {
-        Object[] newTable = new Object[size * 2];
-        System.arraycopy(table, 0, newTable, 0, size);
-        table = newTable;
+        grow(size + 1);
+    }
+
+    /**
+     * 扩容到至少 minCapacity
+     * 新容量取 1.5 倍和 minCapacity 中较大的一个，批量添加时一次到位
+     * @param minCapacity 需要的最小容量
+     */
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) {
+            throw new OutOfMemoryError("所需容量过大: " + Integer.toUnsignedString(minCapacity));
+        }
+        int oldCapacity = table.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity < minCapacity) {
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        } else if (newCapacity > MAX_ARRAY_SIZE || newCapacity < 0) {
+            newCapacity = MAX_ARRAY_SIZE;
+        }
+        table = Arrays.copyOf(table, newCapacity);
+    }
+
+    /**
+     * 确保容量至少为 minCapacity，之后添加到这个数量之前不会再扩容
+     * @param minCapacity 需要的最小容量
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > table.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * 把容量缩小到与元素数量相同，释放删除元素后多余的数组空间
+     */
+    public void trimToSize() {
+        if (size < table.length) {
+            table = size == 0 ? EMPTY_TABLE : Arrays.copyOf(table, size);
+        }
+    }
+
+    /**
+     * 当前底层数组的容量
+     */
+    int capacity() {
+        return table.length;
+    }
+
+    /**
+     * 在列表末尾添加集合中的所有元素
+     * 最多扩容一次，再用 System.arraycopy 一次性复制
+     * @param c 要添加的元素
+     * @return 列表是否发生了变化
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        return appendArray(c.toArray());
+    }
+
+    /**
+     * 在列表末尾添加数组中的所有元素，与 {@link #addAll(Collection)} 相同
+     * @param elements 要添加的元素
+     * @return 列表是否发生了变化
+     */
+    public boolean addAll(E[] elements) {
+        return appendArray(elements);
+    }
+
+    private boolean appendArray(Object[] elements) {
+        int count = elements.length;
+        if (count == 0) {
+            return false;
+        }
+        if (count > table.length - size) {
+            grow(size + count);
+        }
+        System.arraycopy(elements, 0, table, size, count);
+        size += count;
+        return true;
+    }
+
+    /**
+     * 删除所有满足条件的元素
+     * 只遍历一遍：保留的元素依次前移覆盖被删除的位置，最后清空尾部，时间复杂度 O(n)
+     * filter 抛出异常时，已经检查过的元素按结果删除，其余元素保持不变
+     * @param filter 返回 true 的元素会被删除
+     * @return 是否删除了元素
+     */
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        Object[] tab = table;
+        int end = size;
+        int read = 0;
+        int write = 0;
+        try {
+            for (; read < end; read++) {
+                E element = (E) tab[read];
+                if (!filter.test(element)) {
+                    tab[write++] = element;
+                }
+            }
+        } finally {
+            // filter 中途抛出异常时，把还没检查的元素接到后面
+            if (read < end) {
+                System.arraycopy(tab, read, tab, write, end - read);
+                write += end - read;
+            }
+            Arrays.fill(tab, write, end, null);
+            size = write;
+        }
+        return write != end;
+    }
+
+    /**
+     * 原地稳定排序，使用 TimSort，已经部分有序的数据接近 O(n)
+     * @param c 比较器，为 null 时按元素的自然顺序
+     */
+    public void sort(Comparator<? super E> c) {
+        TimSort.sort(table, 0, size, c);
+    }
+
+    /**
+     * 并行稳定排序，在 ForkJoin 公共线程池上做归并排序，需要 size 大小的临时数组
+     * 元素较少或只有一个并行度时等同于 {@link #sort(Comparator)}
+     * @param c 比较器，为 null 时按元素的自然顺序
+     */
+    public void parallelSort(Comparator<? super E> c) {
+        parallelSort(c, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在指定的 ForkJoin 线程池上并行排序
+     * @param c 比较器，为 null 时按元素的自然顺序
+     * @param pool 执行排序任务的线程池
+     */
+    public void parallelSort(Comparator<? super E> c, ForkJoinPool pool) {
+        ParallelMergeSort.sort(table, 0, size, c, pool);
+    }
+
+    /**
+     * 在已按 c 排好序的列表中二分查找
+     * @param key 要查找的元素
+     * @param c 排序时使用的比较器，为 null 时按元素的自然顺序
+     * @return 找到时返回下标（有多个相等元素时不保证是哪一个）；否则返回 (-(插入位置) - 1)
+     */
+    public int binarySearch(E key, Comparator<? super E> c) {
+        if (c == null) {
+            c = (Comparator<? super E>) Comparator.naturalOrder();
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = c.compare((E) table[mid], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
     }
 
     /**
@@ -66,6 +276,7 @@ public class MyArrayList<E> implements List<E> {
         System.arraycopy(table, index, table, index + 1, size - index);
         // 在指定位置插入元素
         table[index] = element;
+        size++;
     }
 
     /**
@@ -83,7 +294,7 @@ public class MyArrayList<E> implements List<E> {
         // 保存要删除的元素
         E removed = (E) table[index];
         // 将删除位置之后的元素向前移动一位
-        System.arraycopy(table, index + 1, table, index, size - index);
+        System.arraycopy(table, index + 1, table, index, size - index - 1);
         size--;
         // 清除最后一个位置的引用，帮助GC
         table[size] = null;
@@ -117,7 +328,7 @@ public class MyArrayList<E> implements List<E> {
      */
     @Override
     public E get(int index) {
-        if (index < 0 || index > size) {
+        if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException();
         }
         return (E) table[index];
@@ -132,7 +343,7 @@ public class MyArrayList<E> implements List<E> {
      */
     @Override
     public E set(int index, E element) {
-        if (index < 0 || index > size) {
+        if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException();
         }
         E old = (E) table[index];
@@ -159,6 +370,101 @@ public class MyArrayList<E> implements List<E> {
         return new MyIterator();
     }
 
+    /**
+     * 返回按下标区间拆分的 spliterator，每次对半拆分且大小精确（SIZED | SUBSIZED），
+     * 并行流可以据此把任务均匀分给各个核
+     * 第一次遍历或拆分时才绑定数组和元素数量，之前对列表的修改都可见
+     * @return 列表的 spliterator
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ArraySpliterator(0, -1);
+    }
+
+    /**
+     * 数组下标区间 [index, fence) 上的 spliterator
+     */
+    final class ArraySpliterator implements Spliterator<E> {
+
+        /**
+         * 下一个要访问的下标
+         */
+        private int index;
+
+        /**
+         * 区间的上界（不含），-1 表示还没有绑定
+         */
+        private int fence;
+
+        /**
+         * 绑定时的数组，扩容不会影响已经绑定的 spliterator
+         */
+        private Object[] elements;
+
+        ArraySpliterator(int origin, int fence) {
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        ArraySpliterator(int origin, int fence, Object[] elements) {
+            this.index = origin;
+            this.fence = fence;
+            this.elements = elements;
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                elements = table;
+                fence = size;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            index = mid;
+            return new ArraySpliterator(lo, mid, elements);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            if (index >= hi) {
+                return false;
+            }
+            action.accept((E) elements[index++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            Object[] a = elements;
+            for (int i = index; i < hi; i++) {
+                action.accept((E) a[i]);
+            }
+            index = hi;
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
     /**
      * 内部迭代器实现，用于遍历列表元素
      */
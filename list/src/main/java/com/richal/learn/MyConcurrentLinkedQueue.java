@@ -0,0 +1,244 @@
+package com.richal.learn;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 无锁并发队列，Michael–Scott 算法
+ *
+ * 链表头部始终是一个哨兵节点，head 指向哨兵，真正的队头是 head.next：
+ * 1. offer：CAS 把新节点挂到尾节点的 next 上，成功后再尝试 CAS 推进 tail；
+ *    看到 tail.next 不为空说明别的线程挂上了节点但还没推进 tail，先帮它推进
+ * 2. poll：CAS 把 head 推进到 head.next，原来的 head.next 成为新的哨兵，取出其中的元素后清空
+ * 3. head 和 tail 都只会向后移动，任何线程在任何时刻停下都不会阻塞其他线程
+ *
+ * 元素不能为 null；size() 需要遍历整个队列，是 O(n) 的；迭代器是弱一致的
+ * @param <E> 队列中存储的元素类型
+ */
+public class MyConcurrentLinkedQueue<E> implements Queue<E>, Iterable<E> {
+
+    /**
+     * 哨兵节点，它的 next 是队头
+     */
+    private volatile Node<E> head;
+
+    /**
+     * 尾节点，可能暂时落后真正的尾节点一步
+     */
+    private volatile Node<E> tail;
+
+    /**
+     * 创建空队列
+     */
+    public MyConcurrentLinkedQueue() {
+        Node<E> sentinel = new Node<>(null);
+        head = sentinel;
+        tail = sentinel;
+    }
+
+    /**
+     * 在队尾添加元素，总是成功
+     * @param element 要添加的元素，不能为 null
+     * @return true
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        Node<E> node = new Node<>(element);
+        while (true) {
+            Node<E> t = tail;
+            Node<E> next = t.next;
+            if (t != tail) {
+                continue;
+            }
+            if (next == null) {
+                if (NEXT.compareAndSet(t, (Node<E>) null, node)) {
+                    // 推进失败说明别的线程已经帮忙推进了
+                    TAIL.compareAndSet(this, t, node);
+                    return true;
+                }
+            } else {
+                // tail 落后了，帮忙推进
+                TAIL.compareAndSet(this, t, next);
+            }
+        }
+    }
+
+    /**
+     * 取出队头元素
+     * @return 队头元素，队列为空时返回 null
+     */
+    @Override
+    public E poll() {
+        while (true) {
+            Node<E> h = head;
+            Node<E> t = tail;
+            Node<E> first = h.next;
+            if (h != head) {
+                continue;
+            }
+            if (first == null) {
+                return null;
+            }
+            if (h == t) {
+                // 有节点挂上了但 tail 还没推进，先推进 tail，保证 head 不会越过 tail
+                TAIL.compareAndSet(this, t, first);
+                continue;
+            }
+            // 必须在 CAS 之前读取元素，CAS 成功后 first 成为哨兵，元素会被清空
+            E item = first.item;
+            if (HEAD.compareAndSet(this, h, first)) {
+                first.item = null;
+                return item;
+            }
+        }
+    }
+
+    /**
+     * 查看队头元素
+     * @return 队头元素，队列为空时返回 null
+     */
+    @Override
+    public E peek() {
+        while (true) {
+            Node<E> h = head;
+            Node<E> first = h.next;
+            if (first == null) {
+                return null;
+            }
+            E item = first.item;
+            // 读到 null 说明 first 已经被取出成为哨兵，重新读取 head
+            if (item != null && h == head) {
+                return item;
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从队头开始取出至多 maxElements 个元素放入 c
+     * 每个元素单独 poll，其他线程可以同时消费
+     * @return 取出的元素数量
+     */
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        int drained = 0;
+        E item;
+        while (drained < maxElements && (item = poll()) != null) {
+            c.add(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * 遍历队列统计元素数量，并发修改时结果只是一个近似值
+     */
+    @Override
+    public int size() {
+        int count = 0;
+        for (Node<E> p = head.next; p != null; p = p.next) {
+            if (p.item != null && ++count == Integer.MAX_VALUE) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * 弱一致的迭代器：不会抛出 ConcurrentModificationException，
+     * 能看到创建之后添加的元素，已经被取出的元素会被跳过；不支持 remove
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            /**
+             * 下一个要返回的节点和它的元素，元素在前进时读取，之后节点被取出也不影响返回值
+             */
+            private Node<E> node;
+            private E nextItem;
+
+            {
+                advance(head);
+            }
+
+            private void advance(Node<E> p) {
+                for (Node<E> q = p.next; q != null; q = q.next) {
+                    E item = q.item;
+                    if (item != null) {
+                        node = q;
+                        nextItem = item;
+                        return;
+                    }
+                }
+                node = null;
+                nextItem = null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return node != null;
+            }
+
+            @Override
+            public E next() {
+                if (node == null) {
+                    throw new NoSuchElementException();
+                }
+                E item = nextItem;
+                advance(node);
+                return item;
+            }
+        };
+    }
+
+    /**
+     * 队列节点
+     * @param <E> 节点中存储的元素类型
+     */
+    static final class Node<E> {
+
+        /**
+         * 节点中的元素，节点成为哨兵后清空
+         */
+        volatile E item;
+
+        /**
+         * 下一个节点，只会从 null 通过 CAS 设置一次
+         */
+        volatile Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(MyConcurrentLinkedQueue.class, "head", Node.class);
+            TAIL = lookup.findVarHandle(MyConcurrentLinkedQueue.class, "tail", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.richal.learn;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 无锁并发栈，Treiber 算法
+ * 栈顶是一个单向链表的头节点，push 和 pop 都是对 top 的一次 CAS：
+ * 失败说明别的线程先修改了栈顶，重新读取后重试
+ *
+ * 每次 push 都创建新节点，弹出的节点不会被复用，由 GC 保证一个节点在还有线程引用时不会被回收，
+ * 所以不存在 ABA 问题。元素不能为 null
+ * @param <E> 栈中存储的元素类型
+ */
+public class MyConcurrentStack<E> implements Iterable<E> {
+
+    /**
+     * 栈顶节点，栈为空时为 null
+     */
+    private volatile Node<E> top;
+
+    /**
+     * 压入元素
+     * @param element 要压入的元素，不能为 null
+     */
+    public void push(E element) {
+        Objects.requireNonNull(element);
+        Node<E> node = new Node<>(element);
+        while (true) {
+            Node<E> t = top;
+            node.next = t;
+            if (TOP.compareAndSet(this, t, node)) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 弹出栈顶元素
+     * @return 栈顶元素，栈为空时返回 null
+     */
+    public E poll() {
+        while (true) {
+            Node<E> t = top;
+            if (t == null) {
+                return null;
+            }
+            if (TOP.compareAndSet(this, t, t.next)) {
+                return t.item;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 弹出栈顶元素
+     * @return 栈顶元素
+     * @throws NoSuchElementException 栈为空
+     */
+    public E pop() {
+        E item = poll();
+        if (item == null) {
+            throw new NoSuchElementException();
+        }
+        return item;
+    }
+
+    /**
+     * 查看栈顶元素
+     * @return 栈顶元素，栈为空时返回 null
+     */
+    public E peek() {
+        Node<E> t = top;
+        return t == null ? null : t.item;
+    }
+
+    public boolean isEmpty() {
+        return top == null;
+    }
+
+    /**
+     * 遍历统计元素数量，O(n)，并发修改时只是一个近似值
+     */
+    public int size() {
+        int count = 0;
+        for (Node<E> p = top; p != null; p = p.next) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 从栈顶开始遍历创建时的栈，节点不可变，迭代期间的 push/pop 不影响遍历
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Node<E> node = top;
+
+            @Override
+            public boolean hasNext() {
+                return node != null;
+            }
+
+            @Override
+            public E next() {
+                Node<E> current = node;
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
+                node = current.next;
+                return current.item;
+            }
+        };
+    }
+
+    /**
+     * 栈节点，发布之后不再修改
+     * @param <E> 节点中存储的元素类型
+     */
+    static final class Node<E> {
+
+        final E item;
+
+        /**
+         * 下一个节点，在 CAS 发布之前设置
+         */
+        Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+
+    private static final VarHandle TOP;
+
+    static {
+        try {
+            TOP = MethodHandles.lookup().findVarHandle(MyConcurrentStack.class, "top", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
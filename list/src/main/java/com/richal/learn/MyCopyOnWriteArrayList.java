@@ -0,0 +1,255 @@
+package com.richal.learn;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * 写时复制的线程安全列表，适合读多写少的场景
+ * 读操作直接读取当前数组，不加锁；写操作在锁内复制出一个新数组修改，再通过 volatile 写发布，
+ * 已经发布的数组永远不会再被修改，所以读线程总能看到某个完整的版本
+ *
+ * 迭代器遍历的是创建时的数组快照，迭代期间其他线程的修改不可见，也不会抛出 ConcurrentModificationException
+ * @param <E> 列表中存储的元素类型
+ */
+public class MyCopyOnWriteArrayList<E> implements List<E> {
+
+    /**
+     * 写操作之间互斥的锁，读操作不需要
+     */
+    private final Object lock = new Object();
+
+    /**
+     * 当前版本的数组，长度恰好等于元素数量
+     */
+    private volatile Object[] array;
+
+    /**
+     * 创建空列表
+     */
+    public MyCopyOnWriteArrayList() {
+        this.array = new Object[0];
+    }
+
+    /**
+     * 创建包含集合中所有元素的列表
+     * @param c 初始元素
+     */
+    public MyCopyOnWriteArrayList(Collection<? extends E> c) {
+        this.array = Arrays.copyOf(c.toArray(), c.size(), Object[].class);
+    }
+
+    /**
+     * 在列表末尾添加元素
+     * 时间复杂度：O(n)，每次写都会复制整个数组
+     * @param element 要添加的元素
+     */
+    @Override
+    public void add(E element) {
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = element;
+            array = next;
+        }
+    }
+
+    /**
+     * 在指定位置插入元素
+     * @param element 要插入的元素
+     * @param index 插入位置的索引
+     */
+    @Override
+    public void add(E element, int index) {
+        synchronized (lock) {
+            Object[] current = array;
+            if (index < 0 || index > current.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            Object[] next = new Object[current.length + 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index, next, index + 1, current.length - index);
+            next[index] = element;
+            array = next;
+        }
+    }
+
+    /**
+     * 元素不存在时添加到末尾，检查和添加是一个原子操作
+     * @param element 要添加的元素
+     * @return 是否添加了元素
+     */
+    public boolean addIfAbsent(E element) {
+        synchronized (lock) {
+            if (indexOf(array, element) >= 0) {
+                return false;
+            }
+            add(element);
+            return true;
+        }
+    }
+
+    /**
+     * 在列表末尾添加集合中的所有元素，只复制一次数组
+     * @param c 要添加的元素
+     * @return 列表是否发生了变化
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] added = c.toArray();
+        if (added.length == 0) {
+            return false;
+        }
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] next = Arrays.copyOf(current, current.length + added.length);
+            System.arraycopy(added, 0, next, current.length, added.length);
+            array = next;
+            return true;
+        }
+    }
+
+    /**
+     * 删除指定位置的元素
+     * @param index 要删除元素的索引
+     * @return 被删除的元素
+     */
+    @Override
+    public E remove(int index) {
+        synchronized (lock) {
+            Object[] current = array;
+            if (index < 0 || index >= current.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            E removed = (E) current[index];
+            Object[] next = new Object[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            array = next;
+            return removed;
+        }
+    }
+
+    /**
+     * 删除第一个与指定元素相等的元素
+     * @param element 要删除的元素
+     * @return 如果找到并删除了元素则返回true，否则返回false
+     */
+    @Override
+    public boolean remove(E element) {
+        synchronized (lock) {
+            int index = indexOf(array, element);
+            if (index < 0) {
+                return false;
+            }
+            remove(index);
+            return true;
+        }
+    }
+
+    /**
+     * 获取指定位置的元素，不加锁
+     * @param index 元素的索引
+     * @return 指定位置的元素
+     */
+    @Override
+    public E get(int index) {
+        Object[] current = array;
+        if (index < 0 || index >= current.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return (E) current[index];
+    }
+
+    /**
+     * 修改指定位置的元素，同样会复制数组
+     * @param index 要修改的元素索引
+     * @param element 新元素值
+     * @return 被替换的旧元素
+     */
+    @Override
+    public E set(int index, E element) {
+        synchronized (lock) {
+            Object[] current = array;
+            if (index < 0 || index >= current.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            E old = (E) current[index];
+            if (old != element) {
+                Object[] next = current.clone();
+                next[index] = element;
+                array = next;
+            }
+            return old;
+        }
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    /**
+     * 是否包含指定元素
+     */
+    public boolean contains(E element) {
+        return indexOf(array, element) >= 0;
+    }
+
+    private static int indexOf(Object[] elements, Object element) {
+        for (int i = 0; i < elements.length; i++) {
+            if (Objects.equals(element, elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 返回遍历当前快照的迭代器，不支持 remove
+     * @return 快照迭代器
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new SnapshotIterator<>(array);
+    }
+
+    /**
+     * 返回当前快照上的 spliterator，快照不会再变化，可以按下标均匀拆分
+     * @return 快照 spliterator
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(array, Spliterator.IMMUTABLE | Spliterator.ORDERED);
+    }
+
+    /**
+     * 快照迭代器，遍历创建时的数组
+     */
+    static final class SnapshotIterator<E> implements Iterator<E> {
+
+        private final Object[] snapshot;
+
+        private int cursor;
+
+        SnapshotIterator(Object[] snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < snapshot.length;
+        }
+
+        @Override
+        public E next() {
+            if (cursor >= snapshot.length) {
+                throw new NoSuchElementException();
+            }
+            return (E) snapshot[cursor++];
+        }
+    }
+}
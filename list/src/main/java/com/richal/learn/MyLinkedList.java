@@ -1,14 +1,25 @@
 package com.richal.learn;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 
 /**
  * 自定义双向链表实现，提供基本列表操作功能
- * 包括添加、删除、获取元素等操作
+ * 包括添加、删除、获取元素等操作，同时实现 {@link Deque}，可以直接当作队列或栈使用，
+ * 两端的操作都是 O(1)，不经过 findNode 和下标检查
+ *
+ * 可选的节点池：删除的节点清空后放进池里，之后添加元素时优先复用，
+ * 生产者/消费者这类频繁进出的场景下稳定运行后不再为每个元素分配节点。
+ * 开启节点池后，迭代期间不能修改链表，否则迭代器可能走到被复用的节点上
  * @param <E> 链表中存储的元素类型
  */
-public class MyLinkedList<E> implements List<E> {
+public class MyLinkedList<E> implements List<E>, Deque<E> {
 
     /**
      * 链表中实际元素的数量
@@ -25,6 +36,39 @@ public class MyLinkedList<E> implements List<E> {
      */
     private Node<E> tail;
 
+    /**
+     * 节点池中空闲节点组成的单向链表，通过 next 串起来
+     */
+    private Node<E> pool;
+
+    /**
+     * 节点池中的空闲节点数量
+     */
+    private int poolSize;
+
+    /**
+     * 节点池最多保留的空闲节点数量，为 0 时不开启节点池
+     */
+    private final int poolCapacity;
+
+    /**
+     * 创建不带节点池的链表
+     */
+    public MyLinkedList() {
+        this.poolCapacity = 0;
+    }
+
+    /**
+     * 创建带节点池的链表
+     * @param poolCapacity 节点池最多保留的空闲节点数量，一般取队列的常见峰值长度
+     */
+    public MyLinkedList(int poolCapacity) {
+        if (poolCapacity < 0) {
+            throw new IllegalArgumentException("非法的节点池容量: " + poolCapacity);
+        }
+        this.poolCapacity = poolCapacity;
+    }
+
     /**
      * 在链表末尾添加元素
      * 时间复杂度：O(1)
@@ -33,7 +77,7 @@ public class MyLinkedList<E> implements List<E> {
     @Override
     public void add(E element) {
         // 创建新节点，prev指向当前尾节点，next为null
-        Node<E> node = new Node<>(tail, element, null);
+        Node<E> node = newNode(tail, element, null);
         if (tail != null) {
             // 如果链表不为空，将当前尾节点的next指向新节点
             tail.next = node;
@@ -67,7 +111,7 @@ public class MyLinkedList<E> implements List<E> {
         Node<E> indexNode = findNode(index);
         Node<E> pre = indexNode.prev;
         // 创建新节点，连接前后节点
-        Node<E> node = new Node<>(pre, element, indexNode);
+        Node<E> node = newNode(pre, element, indexNode);
         if (pre == null) {
             // 如果在头部插入，更新头节点
             head = node;
@@ -117,11 +161,47 @@ public class MyLinkedList<E> implements List<E> {
         if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException();
         }
-        // 找到要删除的节点
-        Node<E> node = findNode(index);
+        // 找到要删除的节点并摘除
+        return unlink(findNode(index));
+    }
+
+    /**
+     * 删除第一个与指定元素相等的元素
+     * 时间复杂度：O(n)，需要遍历查找元素
+     * @param element 要删除的元素
+     * @return 如果找到并删除了元素则返回true，否则返回false
+     */
+    @Override
+    public boolean remove(E element) {
+        if (size == 0) {
+            return false;
+        }
+        
+        // 从头开始遍历查找元素
+        Node<E> current = head;
+        while (current != null) {
+            // 比较元素是否相等，考虑null值的情况
+            if ((element == null && current.element == null) ||
+                    (element != null && element.equals(current.element))) {
+                unlink(current);
+                return true;
+            }
+            current = current.next;
+        }
+        return false;
+    }
+
+    /**
+     * 从链表中摘除节点，节点清空后放回节点池
+     * 时间复杂度：O(1)
+     * @param node 要摘除的节点
+     * @return 节点中的元素
+     */
+    private E unlink(Node<E> node) {
+        E element = node.element;
         Node<E> prev = node.prev;
         Node<E> next = node.next;
-        
+
         // 更新前节点的next引用
         if (prev == null) {
             // 如果删除头节点，更新头节点
@@ -137,59 +217,199 @@ public class MyLinkedList<E> implements List<E> {
         } else {
             next.prev = prev;
         }
-        
+
         // 清除被删除节点的引用，帮助GC
+        node.element = null;
         node.prev = null;
         node.next = null;
+        if (poolSize < poolCapacity) {
+            node.next = pool;
+            pool = node;
+            poolSize++;
+        }
         size--;
-        return node.element;
+        return element;
     }
 
     /**
-     * 删除第一个与指定元素相等的元素
-     * 时间复杂度：O(n)，需要遍历查找元素
-     * @param element 要删除的元素
-     * @return 如果找到并删除了元素则返回true，否则返回false
+     * 创建节点，节点池不为空时复用池中的节点
+     */
+    private Node<E> newNode(Node<E> prev, E element, Node<E> next) {
+        Node<E> node = pool;
+        if (node == null) {
+            return new Node<>(prev, element, next);
+        }
+        pool = node.next;
+        poolSize--;
+        node.prev = prev;
+        node.element = element;
+        node.next = next;
+        return node;
+    }
+
+    /**
+     * 在链表头部添加元素
+     * 时间复杂度：O(1)
      */
     @Override
-    public boolean remove(E element) {
-        if (size == 0) {
-            return false;
+    public void addFirst(E element) {
+        Node<E> node = newNode(null, element, head);
+        if (head != null) {
+            head.prev = node;
+        } else {
+            tail = node;
         }
-        
-        // 从头开始遍历查找元素
-        Node<E> current = head;
-        while (current != null) {
-            // 比较元素是否相等，考虑null值的情况
-            if ((element == null && current.element == null) ||
-                    (element != null && element.equals(current.element))) {
-                
-                Node<E> prev = current.prev;
-                Node<E> next = current.next;
-                
-                // 更新前节点的next引用
-                if (prev == null) {
-                    head = next;
-                } else {
-                    prev.next = next;
-                }
-                
-                // 更新后节点的prev引用
-                if (next == null) {
-                    tail = prev;
-                } else {
-                    next.prev = prev;
-                }
-                
-                // 清除被删除节点的引用，帮助GC
-                current.prev = null;
-                current.next = null;
-                size--;
-                return true;
-            }
-            current = current.next;
+        head = node;
+        size++;
+    }
+
+    /**
+     * 在链表尾部添加元素，与 add(E) 相同
+     */
+    @Override
+    public void addLast(E element) {
+        add(element);
+    }
+
+    @Override
+    public boolean offerFirst(E element) {
+        addFirst(element);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(E element) {
+        add(element);
+        return true;
+    }
+
+    /**
+     * 删除并返回第一个元素
+     * @throws NoSuchElementException 链表为空
+     */
+    @Override
+    public E removeFirst() {
+        if (head == null) {
+            throw new NoSuchElementException();
         }
-        return false;
+        return unlink(head);
+    }
+
+    /**
+     * 删除并返回最后一个元素
+     * @throws NoSuchElementException 链表为空
+     */
+    @Override
+    public E removeLast() {
+        if (tail == null) {
+            throw new NoSuchElementException();
+        }
+        return unlink(tail);
+    }
+
+    /**
+     * 删除并返回第一个元素，链表为空时返回 null
+     */
+    @Override
+    public E pollFirst() {
+        return head == null ? null : unlink(head);
+    }
+
+    /**
+     * 删除并返回最后一个元素，链表为空时返回 null
+     */
+    @Override
+    public E pollLast() {
+        return tail == null ? null : unlink(tail);
+    }
+
+    /**
+     * @throws NoSuchElementException 链表为空
+     */
+    @Override
+    public E getFirst() {
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        return head.element;
+    }
+
+    /**
+     * @throws NoSuchElementException 链表为空
+     */
+    @Override
+    public E getLast() {
+        if (tail == null) {
+            throw new NoSuchElementException();
+        }
+        return tail.element;
+    }
+
+    @Override
+    public E peekFirst() {
+        return head == null ? null : head.element;
+    }
+
+    @Override
+    public E peekLast() {
+        return tail == null ? null : tail.element;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        add(element);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(E element) {
+        addFirst(element);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    /**
+     * 从头部开始取出所有元素放入 c
+     * @return 取出的元素数量
+     */
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从头部开始取出至多 maxElements 个元素放入 c
+     * 每个元素先放入 c 再从链表摘除，c.add 抛出异常时该元素仍留在链表中
+     * @return 取出的元素数量
+     */
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        int drained = 0;
+        while (drained < maxElements && head != null) {
+            c.add(head.element);
+            unlink(head);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
     }
 
     /**
@@ -224,6 +444,70 @@ public class MyLinkedList<E> implements List<E> {
         return oldElement;
     }
 
+    /**
+     * 原地稳定排序，自底向上的归并排序，只修改节点的 next / prev 引用，不分配任何对象
+     * 每一轮把相邻的两个长度为 width 的有序段归并成一段，width 从 1 开始翻倍，只剩一段时结束
+     * 时间复杂度：O(n log n)，额外空间 O(1)
+     * @param c 比较器，为 null 时按元素的自然顺序
+     */
+    public void sort(Comparator<? super E> c) {
+        if (size < 2) {
+            return;
+        }
+        if (c == null) {
+            c = (Comparator<? super E>) Comparator.naturalOrder();
+        }
+        Node<E> list = head;
+        for (int width = 1; ; width <<= 1) {
+            Node<E> p = list;
+            Node<E> last = null;
+            list = null;
+            int merges = 0;
+            while (p != null) {
+                merges++;
+                // q 跳过左段，指向右段的开头
+                Node<E> q = p;
+                int pSize = 0;
+                while (pSize < width && q != null) {
+                    pSize++;
+                    q = q.next;
+                }
+                int qSize = width;
+                while (pSize > 0 || (qSize > 0 && q != null)) {
+                    Node<E> e;
+                    // 相等时取左段，保证稳定
+                    if (pSize == 0) {
+                        e = q;
+                        q = q.next;
+                        qSize--;
+                    } else if (qSize == 0 || q == null || c.compare(p.element, q.element) <= 0) {
+                        e = p;
+                        p = p.next;
+                        pSize--;
+                    } else {
+                        e = q;
+                        q = q.next;
+                        qSize--;
+                    }
+                    if (last == null) {
+                        list = e;
+                    } else {
+                        last.next = e;
+                    }
+                    e.prev = last;
+                    last = e;
+                }
+                p = q;
+            }
+            last.next = null;
+            if (merges <= 1) {
+                head = list;
+                tail = last;
+                return;
+            }
+        }
+    }
+
     /**
      * 获取链表中元素的数量
      * 时间复杂度：O(1)
@@ -243,6 +527,110 @@ public class MyLinkedList<E> implements List<E> {
         return new LinkedListIterator();
     }
 
+    /**
+     * 返回分批拆分的 spliterator
+     * 链表无法从中间切开，拆分时沿着链表把一批元素复制到数组里交给数组 spliterator，
+     * 每次的批量比上一次多 BATCH_UNIT，直到 MAX_BATCH；剩下的部分留在当前 spliterator 里继续拆分
+     * @return 链表的 spliterator
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new LinkedListSpliterator();
+    }
+
+    /**
+     * 批量大小的增长步长
+     */
+    static final int BATCH_UNIT = 1 << 10;
+
+    /**
+     * 批量大小的上限
+     */
+    static final int MAX_BATCH = 1 << 25;
+
+    /**
+     * 链表的 spliterator，第一次使用时才绑定头节点和元素数量
+     */
+    final class LinkedListSpliterator implements Spliterator<E> {
+
+        /**
+         * 下一个要访问的节点
+         */
+        private Node<E> current;
+
+        /**
+         * 剩余的元素数量，-1 表示还没有绑定
+         */
+        private int est = -1;
+
+        /**
+         * 上一次拆分出的批量大小
+         */
+        private int batch;
+
+        private int getEst() {
+            if (est < 0) {
+                current = head;
+                est = size;
+            }
+            return est;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int s = getEst();
+            Node<E> p = current;
+            if (s <= 1 || p == null) {
+                return null;
+            }
+            int n = Math.min(batch + BATCH_UNIT, Math.min(s, MAX_BATCH));
+            Object[] a = new Object[n];
+            int j = 0;
+            do {
+                a[j++] = p.element;
+            } while ((p = p.next) != null && j < n);
+            current = p;
+            batch = j;
+            est = s - j;
+            return Spliterators.spliterator(a, 0, j, Spliterator.ORDERED);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            Node<E> p;
+            if (getEst() > 0 && (p = current) != null) {
+                est--;
+                current = p.next;
+                action.accept(p.element);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int n = getEst();
+            Node<E> p = current;
+            current = null;
+            est = 0;
+            for (; p != null && n > 0; p = p.next, n--) {
+                action.accept(p.element);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getEst();
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED;
+        }
+    }
+
     /**
      * 内部迭代器实现，用于遍历链表元素
      */
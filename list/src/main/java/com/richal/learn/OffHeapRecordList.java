@@ -0,0 +1,369 @@
+package com.richal.learn;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.function.Consumer;
+
+/**
+ * 堆外按列存储的定长记录列表，只能追加
+ *
+ * 与 MyArrayList&lt;Record&gt; 相比：
+ * 1. 每个字段一段连续的堆外内存（列），一条记录只占各字段字节数之和，没有对象头、引用和对齐填充，也不给 GC 增加扫描负担
+ * 2. 扫描某个字段就是顺序读一段内存，其他字段不会被带进缓存
+ * 3. 通过游标（flyweight）访问记录：{@link #get(int)} 只是把列表自带的游标移到指定行，不创建对象
+ *
+ * 容量不足时按 1.5 倍扩容，在新的 Arena 中分配所有列并复制，然后释放旧的 Arena；
+ * 扩容之后游标仍然可用，但不能在扩容的同时从其他线程读取。用完后需要 {@link #close()} 释放堆外内存
+ */
+public class OffHeapRecordList implements AutoCloseable {
+
+    /**
+     * 默认初始容量
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final RecordSchema schema;
+
+    /**
+     * 各字段的类型，游标读写时校验
+     */
+    private final RecordSchema.FieldType[] types;
+
+    /**
+     * 当前所有列所在的 Arena，扩容时整体替换
+     */
+    private Arena arena;
+
+    /**
+     * 每个字段一列，columns[field] 存放所有记录的该字段
+     */
+    private MemorySegment[] columns;
+
+    private int capacity;
+
+    private int size;
+
+    /**
+     * get(int) 复用的游标
+     */
+    private final Cursor cursor = new Cursor();
+
+    /**
+     * 创建初始容量为 1024 的列表
+     * @param schema 记录结构
+     */
+    public OffHeapRecordList(RecordSchema schema) {
+        this(schema, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param schema 记录结构
+     * @param initialCapacity 初始容量，批量加载前已知记录数时直接指定可以避免扩容复制
+     */
+    public OffHeapRecordList(RecordSchema schema, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("非法的初始容量: " + initialCapacity);
+        }
+        this.schema = schema;
+        this.types = new RecordSchema.FieldType[schema.fieldCount()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = schema.type(i);
+        }
+        this.columns = new MemorySegment[types.length];
+        reallocate(initialCapacity);
+    }
+
+    /**
+     * 在新的 Arena 中按新容量分配所有列，复制已有数据后释放旧的 Arena
+     */
+    private void reallocate(int newCapacity) {
+        Arena newArena = Arena.ofShared();
+        MemorySegment[] newColumns = new MemorySegment[types.length];
+        for (int i = 0; i < types.length; i++) {
+            long bytes = types[i].byteSize();
+            newColumns[i] = newArena.allocate(Math.max(1, newCapacity * bytes), bytes);
+            if (size > 0) {
+                MemorySegment.copy(columns[i], 0, newColumns[i], 0, size * bytes);
+            }
+        }
+        Arena old = arena;
+        arena = newArena;
+        columns = newColumns;
+        capacity = newCapacity;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * 确保至少能容纳 minCapacity 条记录
+     * @param minCapacity 需要的最小容量
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("需要的容量超出上限");
+        }
+        if (minCapacity > capacity) {
+            int newCapacity = capacity + (capacity >> 1);
+            if (newCapacity - minCapacity < 0) {
+                newCapacity = minCapacity;
+            }
+            reallocate(newCapacity);
+        }
+    }
+
+    /**
+     * 在末尾追加一条所有字段都为 0 的记录
+     * @return 列表自带的游标，已经指向新记录，可以直接设置字段
+     */
+    public Cursor append() {
+        ensureCapacity(size + 1);
+        cursor.row = size++;
+        return cursor;
+    }
+
+    /**
+     * 批量追加 count 条记录，只扩容一次
+     * 新记录的字段都是 0，交给 writer 填写；writer 每次拿到的都是同一个游标，不要保存它
+     * @param count 记录数
+     * @param writer 填写第 i 条记录的回调
+     */
+    public void appendAll(int count, RowWriter writer) {
+        if (count < 0) {
+            throw new IllegalArgumentException("非法的记录数: " + count);
+        }
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            cursor.row = size++;
+            writer.write(i, cursor);
+        }
+    }
+
+    /**
+     * 把列表自带的游标移到第 index 条记录，不分配对象
+     * 返回的游标在下一次调用 get / append 时会移动，需要同时持有多条记录时用 {@link #cursor()}
+     * @param index 记录下标
+     * @return 指向该记录的游标
+     */
+    public Cursor get(int index) {
+        return cursor.moveTo(index);
+    }
+
+    /**
+     * 创建一个独立的游标，初始指向第 0 条记录
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * 依次把同一个游标移到每条记录上
+     */
+    public void forEach(Consumer<? super Cursor> action) {
+        Cursor c = new Cursor();
+        for (int i = 0; i < size; i++) {
+            c.row = i;
+            action.accept(c);
+        }
+    }
+
+    /**
+     * 整数字段求和，顺序读一整列
+     * @param field 字段下标，类型为 BYTE / SHORT / CHAR / INT / LONG
+     */
+    public long sumLong(int field) {
+        MemorySegment column = columns[field];
+        long sum = 0;
+        switch (types[field]) {
+            case BYTE:
+                for (int i = 0; i < size; i++) {
+                    sum += column.get(ValueLayout.JAVA_BYTE, i);
+                }
+                return sum;
+            case SHORT:
+                for (int i = 0; i < size; i++) {
+                    sum += column.getAtIndex(ValueLayout.JAVA_SHORT, i);
+                }
+                return sum;
+            case CHAR:
+                for (int i = 0; i < size; i++) {
+                    sum += column.getAtIndex(ValueLayout.JAVA_CHAR, i);
+                }
+                return sum;
+            case INT:
+                for (int i = 0; i < size; i++) {
+                    sum += column.getAtIndex(ValueLayout.JAVA_INT, i);
+                }
+                return sum;
+            case LONG:
+                for (int i = 0; i < size; i++) {
+                    sum += column.getAtIndex(ValueLayout.JAVA_LONG, i);
+                }
+                return sum;
+            default:
+                throw new IllegalArgumentException("字段类型不是整数: " + schema.field(field).name());
+        }
+    }
+
+    /**
+     * 浮点字段求和，顺序读一整列
+     * @param field 字段下标，类型为 FLOAT / DOUBLE
+     */
+    public double sumDouble(int field) {
+        MemorySegment column = columns[field];
+        double sum = 0;
+        switch (types[field]) {
+            case FLOAT:
+                for (int i = 0; i < size; i++) {
+                    sum += column.getAtIndex(ValueLayout.JAVA_FLOAT, i);
+                }
+                return sum;
+            case DOUBLE:
+                for (int i = 0; i < size; i++) {
+                    sum += column.getAtIndex(ValueLayout.JAVA_DOUBLE, i);
+                }
+                return sum;
+            default:
+                throw new IllegalArgumentException("字段类型不是浮点数: " + schema.field(field).name());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RecordSchema schema() {
+        return schema;
+    }
+
+    /**
+     * 当前占用的堆外内存字节数，即容量乘以每条记录的字节数
+     */
+    public long byteSize() {
+        return (long) capacity * schema.recordBytes();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 释放堆外内存，之后任何读写都会抛出 IllegalStateException
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * 填写一条记录的回调
+     */
+    @FunctionalInterface
+    public interface RowWriter {
+        void write(int i, Cursor row);
+    }
+
+    /**
+     * 指向某一条记录的游标，按字段下标读写
+     * 字段类型必须与访问方法一致，否则抛出 IllegalArgumentException
+     */
+    public final class Cursor {
+
+        /**
+         * 当前指向的记录下标
+         */
+        private int row;
+
+        /**
+         * 移到第 index 条记录
+         * @return 当前游标
+         */
+        public Cursor moveTo(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            row = index;
+            return this;
+        }
+
+        public int row() {
+            return row;
+        }
+
+        private MemorySegment column(int field, RecordSchema.FieldType type) {
+            if (types[field] != type) {
+                throw new IllegalArgumentException("字段类型不匹配: " + schema.field(field).name()
+                        + " 是 " + types[field] + "，不是 " + type);
+            }
+            return columns[field];
+        }
+
+        public byte getByte(int field) {
+            return column(field, RecordSchema.FieldType.BYTE).get(ValueLayout.JAVA_BYTE, row);
+        }
+
+        public short getShort(int field) {
+            return column(field, RecordSchema.FieldType.SHORT).getAtIndex(ValueLayout.JAVA_SHORT, row);
+        }
+
+        public char getChar(int field) {
+            return column(field, RecordSchema.FieldType.CHAR).getAtIndex(ValueLayout.JAVA_CHAR, row);
+        }
+
+        public int getInt(int field) {
+            return column(field, RecordSchema.FieldType.INT).getAtIndex(ValueLayout.JAVA_INT, row);
+        }
+
+        public float getFloat(int field) {
+            return column(field, RecordSchema.FieldType.FLOAT).getAtIndex(ValueLayout.JAVA_FLOAT, row);
+        }
+
+        public long getLong(int field) {
+            return column(field, RecordSchema.FieldType.LONG).getAtIndex(ValueLayout.JAVA_LONG, row);
+        }
+
+        public double getDouble(int field) {
+            return column(field, RecordSchema.FieldType.DOUBLE).getAtIndex(ValueLayout.JAVA_DOUBLE, row);
+        }
+
+        public Cursor setByte(int field, byte value) {
+            column(field, RecordSchema.FieldType.BYTE).set(ValueLayout.JAVA_BYTE, row, value);
+            return this;
+        }
+
+        public Cursor setShort(int field, short value) {
+            column(field, RecordSchema.FieldType.SHORT).setAtIndex(ValueLayout.JAVA_SHORT, row, value);
+            return this;
+        }
+
+        public Cursor setChar(int field, char value) {
+            column(field, RecordSchema.FieldType.CHAR).setAtIndex(ValueLayout.JAVA_CHAR, row, value);
+            return this;
+        }
+
+        public Cursor setInt(int field, int value) {
+            column(field, RecordSchema.FieldType.INT).setAtIndex(ValueLayout.JAVA_INT, row, value);
+            return this;
+        }
+
+        public Cursor setFloat(int field, float value) {
+            column(field, RecordSchema.FieldType.FLOAT).setAtIndex(ValueLayout.JAVA_FLOAT, row, value);
+            return this;
+        }
+
+        public Cursor setLong(int field, long value) {
+            column(field, RecordSchema.FieldType.LONG).setAtIndex(ValueLayout.JAVA_LONG, row, value);
+            return this;
+        }
+
+        public Cursor setDouble(int field, double value) {
+            column(field, RecordSchema.FieldType.DOUBLE).setAtIndex(ValueLayout.JAVA_DOUBLE, row, value);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.richal.learn;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 基于 ForkJoin 的并行归并排序，稳定排序
+ *
+ * 1. 区间对半拆分，两半并行排序，长度不超过 THRESHOLD 的区间交给 {@link TimSort}
+ * 2. 两个有序的半段也并行归并：较长一段取中点，在另一段里二分找到分界，
+ *    得到两对互不重叠的子段分别归并到临时数组的对应位置
+ * 3. 归并结果复制回原数组
+ *
+ * 线程池只有一个并行度或者数据量不大时直接退化成 TimSort
+ */
+final class ParallelMergeSort {
+
+    /**
+     * 小于等于该长度的区间不再拆分
+     */
+    static final int THRESHOLD = 1 << 13;
+
+    private ParallelMergeSort() {
+    }
+
+    /**
+     * 在指定线程池上对 a[lo, hi) 排序
+     * @param c 比较器，为 null 时按自然顺序
+     */
+    static <T> void sort(Object[] a, int lo, int hi, Comparator<? super T> c, ForkJoinPool pool) {
+        if (c == null) {
+            c = (Comparator<? super T>) Comparator.naturalOrder();
+        }
+        if (hi - lo <= THRESHOLD || pool.getParallelism() == 1) {
+            TimSort.sort(a, lo, hi, c);
+            return;
+        }
+        Object[] buffer = new Object[hi - lo];
+        pool.invoke(new SortTask<>(a, buffer, lo, lo, hi, c));
+    }
+
+    /**
+     * 对 a[lo, hi) 排序，buffer 的下标相对 base 偏移
+     */
+    @SuppressWarnings("serial")
+    static final class SortTask<T> extends RecursiveAction {
+
+        private final Object[] a;
+        private final Object[] buffer;
+        private final int base;
+        private final int lo;
+        private final int hi;
+        private final Comparator<? super T> c;
+
+        SortTask(Object[] a, Object[] buffer, int base, int lo, int hi, Comparator<? super T> c) {
+            this.a = a;
+            this.buffer = buffer;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= THRESHOLD) {
+                TimSort.sort(a, lo, hi, c);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask<>(a, buffer, base, lo, mid, c),
+                    new SortTask<>(a, buffer, base, mid, hi, c));
+            // 两半已经首尾有序时不用归并
+            if (c.compare((T) a[mid - 1], (T) a[mid]) <= 0) {
+                return;
+            }
+            new MergeTask<>(a, buffer, base, lo, mid, mid, hi, lo, c).invoke();
+            System.arraycopy(buffer, lo - base, a, lo, hi - lo);
+        }
+    }
+
+    /**
+     * 把有序的 a[lo1, hi1) 和 a[lo2, hi2) 归并到 buffer 中从 dest 开始的位置，相等时左段在前
+     */
+    @SuppressWarnings("serial")
+    static final class MergeTask<T> extends RecursiveAction {
+
+        private final Object[] a;
+        private final Object[] buffer;
+        private final int base;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int dest;
+        private final Comparator<? super T> c;
+
+        MergeTask(Object[] a, Object[] buffer, int base, int lo1, int hi1, int lo2, int hi2, int dest,
+                  Comparator<? super T> c) {
+            this.a = a;
+            this.buffer = buffer;
+            this.base = base;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dest = dest;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            int len1 = hi1 - lo1;
+            int len2 = hi2 - lo2;
+            if (len1 + len2 <= THRESHOLD) {
+                merge();
+                return;
+            }
+            int split1;
+            int split2;
+            if (len1 >= len2) {
+                // 左段中点之前的元素放左边，右段中严格小于它的元素也放左边
+                split1 = (lo1 + hi1) >>> 1;
+                split2 = TimSort.lowerBound(a, lo2, hi2, (T) a[split1], c);
+            } else {
+                // 右段中点之前的元素放左边，左段中不大于它的元素也放左边
+                split2 = (lo2 + hi2) >>> 1;
+                split1 = TimSort.upperBound(a, lo1, hi1, (T) a[split2], c);
+            }
+            int rightDest = dest + (split1 - lo1) + (split2 - lo2);
+            invokeAll(new MergeTask<>(a, buffer, base, lo1, split1, lo2, split2, dest, c),
+                    new MergeTask<>(a, buffer, base, split1, hi1, split2, hi2, rightDest, c));
+        }
+
+        private void merge() {
+            int i = lo1;
+            int j = lo2;
+            int k = dest - base;
+            while (i < hi1 && j < hi2) {
+                if (c.compare((T) a[j], (T) a[i]) < 0) {
+                    buffer[k++] = a[j++];
+                } else {
+                    buffer[k++] = a[i++];
+                }
+            }
+            System.arraycopy(a, i, buffer, k, hi1 - i);
+            k += hi1 - i;
+            System.arraycopy(a, j, buffer, k, hi2 - j);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.richal.learn;
+
+import java.util.Collection;
+
+/**
+ * 先进先出队列接口
+ * 方法命名与 java.util.Queue 相同：offer 在队尾添加，poll/peek 在队列为空时返回 null
+ * @param <E> 队列中存储的元素类型
+ */
+public interface Queue<E> {
+
+    /**
+     * 在队尾添加元素
+     */
+    boolean offer(E element);
+
+    /**
+     * 取出队头元素，队列为空时返回 null
+     */
+    E poll();
+
+    /**
+     * 查看队头元素，队列为空时返回 null
+     */
+    E peek();
+
+    /**
+     * 从队头开始取出所有元素放入 c
+     * @return 取出的元素数量
+     */
+    int drainTo(Collection<? super E> c);
+
+    /**
+     * 从队头开始取出至多 maxElements 个元素放入 c
+     * @return 取出的元素数量
+     */
+    int drainTo(Collection<? super E> c, int maxElements);
+
+    int size();
+
+    boolean isEmpty();
+}
@@ -0,0 +1,120 @@
+package com.richal.learn;
+
+import java.lang.foreign.ValueLayout;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 定长记录的结构描述，由若干个原始类型字段按顺序组成
+ * 字段通过下标访问，下标就是定义时的顺序，可以用 {@link #indexOf(String)} 按名字查
+ * 创建后不可变，可以在多个 {@link OffHeapRecordList} 之间共用
+ */
+public final class RecordSchema {
+
+    /**
+     * 字段类型，每种类型对应一个堆外布局
+     */
+    public enum FieldType {
+        BYTE(ValueLayout.JAVA_BYTE),
+        SHORT(ValueLayout.JAVA_SHORT),
+        CHAR(ValueLayout.JAVA_CHAR),
+        INT(ValueLayout.JAVA_INT),
+        FLOAT(ValueLayout.JAVA_FLOAT),
+        LONG(ValueLayout.JAVA_LONG),
+        DOUBLE(ValueLayout.JAVA_DOUBLE);
+
+        final ValueLayout layout;
+
+        FieldType(ValueLayout layout) {
+            this.layout = layout;
+        }
+
+        /**
+         * 一个值占用的字节数
+         */
+        public int byteSize() {
+            return (int) layout.byteSize();
+        }
+    }
+
+    /**
+     * 字段定义
+     * @param name 字段名
+     * @param type 字段类型
+     */
+    public record Field(String name, FieldType type) {
+        public Field {
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(type);
+        }
+    }
+
+    private final Field[] fields;
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * 一条记录所有字段加起来的字节数
+     */
+    private final int recordBytes;
+
+    /**
+     * @param fields 字段定义，至少一个，名字不能重复
+     */
+    public RecordSchema(Field... fields) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("至少需要一个字段");
+        }
+        this.fields = fields.clone();
+        int bytes = 0;
+        for (int i = 0; i < this.fields.length; i++) {
+            Field field = Objects.requireNonNull(this.fields[i]);
+            if (indexes.put(field.name(), i) != null) {
+                throw new IllegalArgumentException("重复的字段名: " + field.name());
+            }
+            bytes += field.type().byteSize();
+        }
+        this.recordBytes = bytes;
+    }
+
+    /**
+     * 创建字段定义的简写
+     */
+    public static Field field(String name, FieldType type) {
+        return new Field(name, type);
+    }
+
+    public int fieldCount() {
+        return fields.length;
+    }
+
+    public Field field(int index) {
+        return fields[index];
+    }
+
+    FieldType type(int index) {
+        return fields[index].type();
+    }
+
+    /**
+     * 按名字查找字段下标
+     * @param name 字段名
+     * @return 字段下标
+     * @throws IllegalArgumentException 字段不存在
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("不存在的字段: " + name);
+        }
+        return index;
+    }
+
+    /**
+     * 一条记录所有字段加起来的字节数，即按列存储时每条记录实际占用的堆外内存
+     */
+    public int recordBytes() {
+        return recordBytes;
+    }
+}
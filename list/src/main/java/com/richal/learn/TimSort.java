@@ -0,0 +1,299 @@
+package com.richal.learn;
+
+import java.util.Comparator;
+
+/**
+ * 对象数组的 TimSort，稳定排序
+ *
+ * 1. 从左到右找出天然有序的段（run），严格降序的段原地反转；短于 minRun 的段用二分插入排序补齐到 minRun
+ * 2. 每个 run 压入栈中，栈顶三个 run 的长度不满足 A > B + C 且 B > C 时合并，保证合并的两段长度接近
+ * 3. 合并前先二分查找跳过左段开头已经就位的元素和右段末尾已经就位的元素，
+ *    再把较短的一段复制到临时数组，从对应的一端开始归并，临时空间最多 n / 2
+ *
+ * 与 JDK 的实现相比省略了归并过程中的 galloping 模式，对已经部分有序的数据仍然是 O(n)
+ */
+final class TimSort<T> {
+
+    /**
+     * 长度小于它的数组直接用二分插入排序
+     */
+    private static final int MIN_MERGE = 32;
+
+    private final Object[] a;
+
+    private final Comparator<? super T> c;
+
+    /**
+     * 归并用的临时数组，按需扩大
+     */
+    private Object[] tmp;
+
+    /**
+     * 待合并的 run 栈，长度 49 足够 Integer.MAX_VALUE 个元素使用
+     */
+    private final int[] runBase = new int[49];
+    private final int[] runLen = new int[49];
+    private int stackSize;
+
+    private TimSort(Object[] a, Comparator<? super T> c) {
+        this.a = a;
+        this.c = c;
+        this.tmp = new Object[Math.min(256, a.length >>> 1)];
+    }
+
+    /**
+     * 对 a[lo, hi) 排序
+     * @param c 比较器，为 null 时按自然顺序
+     */
+    static <T> void sort(Object[] a, int lo, int hi, Comparator<? super T> c) {
+        if (c == null) {
+            c = (Comparator<? super T>) Comparator.naturalOrder();
+        }
+        int remaining = hi - lo;
+        if (remaining < 2) {
+            return;
+        }
+        if (remaining < MIN_MERGE) {
+            int initRunLen = countRunAndMakeAscending(a, lo, hi, c);
+            binaryInsertionSort(a, lo, hi, lo + initRunLen, c);
+            return;
+        }
+        TimSort<T> ts = new TimSort<>(a, c);
+        int minRun = minRunLength(remaining);
+        do {
+            int runLen = countRunAndMakeAscending(a, lo, hi, c);
+            if (runLen < minRun) {
+                int force = Math.min(remaining, minRun);
+                binaryInsertionSort(a, lo, lo + force, lo + runLen, c);
+                runLen = force;
+            }
+            ts.pushRun(lo, runLen);
+            ts.mergeCollapse();
+            lo += runLen;
+            remaining -= runLen;
+        } while (remaining != 0);
+        ts.mergeForceCollapse();
+    }
+
+    /**
+     * 返回 minRun：n 右移到小于 MIN_MERGE 为止，移出的位里有 1 就再加 1，
+     * 使 n / minRun 等于或略小于 2 的幂，最后几次合并的两段长度接近
+     */
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= (n & 1);
+            n >>= 1;
+        }
+        return n + r;
+    }
+
+    /**
+     * 从 lo 开始的天然有序段的长度，严格降序的段会被反转成升序（严格降序才能保证反转后仍然稳定）
+     */
+    private static <T> int countRunAndMakeAscending(Object[] a, int lo, int hi, Comparator<? super T> c) {
+        int runHi = lo + 1;
+        if (runHi == hi) {
+            return 1;
+        }
+        if (c.compare((T) a[runHi++], (T) a[lo]) < 0) {
+            while (runHi < hi && c.compare((T) a[runHi], (T) a[runHi - 1]) < 0) {
+                runHi++;
+            }
+            reverseRange(a, lo, runHi);
+        } else {
+            while (runHi < hi && c.compare((T) a[runHi], (T) a[runHi - 1]) >= 0) {
+                runHi++;
+            }
+        }
+        return runHi - lo;
+    }
+
+    private static void reverseRange(Object[] a, int lo, int hi) {
+        hi--;
+        while (lo < hi) {
+            Object t = a[lo];
+            a[lo++] = a[hi];
+            a[hi--] = t;
+        }
+    }
+
+    /**
+     * a[lo, start) 已经有序，把 a[start, hi) 逐个二分插入进去
+     * 相等元素插到已有元素之后，保证稳定
+     */
+    private static <T> void binaryInsertionSort(Object[] a, int lo, int hi, int start, Comparator<? super T> c) {
+        if (start == lo) {
+            start++;
+        }
+        for (; start < hi; start++) {
+            T pivot = (T) a[start];
+            int left = lo;
+            int right = start;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (c.compare(pivot, (T) a[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(a, left, a, left + 1, start - left);
+            a[left] = pivot;
+        }
+    }
+
+    private void pushRun(int base, int len) {
+        runBase[stackSize] = base;
+        runLen[stackSize] = len;
+        stackSize++;
+    }
+
+    /**
+     * 合并栈顶的 run 直到满足 runLen[i - 2] > runLen[i - 1] + runLen[i] 且 runLen[i - 1] > runLen[i]
+     * 同时检查再往下一层，避免只检查栈顶三个时不变式被破坏
+     */
+    private void mergeCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+                    || n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                if (runLen[n - 1] < runLen[n + 1]) {
+                    n--;
+                }
+            } else if (runLen[n] > runLen[n + 1]) {
+                break;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * 把栈中剩下的 run 全部合并
+     */
+    private void mergeForceCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLen[n - 1] < runLen[n + 1]) {
+                n--;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * 合并栈中第 i 和 i + 1 个 run
+     */
+    private void mergeAt(int i) {
+        int base1 = runBase[i];
+        int len1 = runLen[i];
+        int base2 = runBase[i + 1];
+        int len2 = runLen[i + 1];
+
+        runLen[i] = len1 + len2;
+        if (i == stackSize - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLen[i + 1] = runLen[i + 2];
+        }
+        stackSize--;
+
+        // 左段中不大于右段第一个元素的前缀已经就位
+        int k = upperBound(a, base1, base1 + len1, (T) a[base2], c) - base1;
+        base1 += k;
+        len1 -= k;
+        if (len1 == 0) {
+            return;
+        }
+        // 右段中不小于左段最后一个元素的后缀已经就位
+        len2 = lowerBound(a, base2, base2 + len2, (T) a[base1 + len1 - 1], c) - base2;
+        if (len2 == 0) {
+            return;
+        }
+        if (len1 <= len2) {
+            mergeLo(base1, len1, base2, len2);
+        } else {
+            mergeHi(base1, len1, base2, len2);
+        }
+    }
+
+    /**
+     * 左段较短：复制到临时数组，从左往右归并
+     */
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+        Object[] t = ensureCapacity(len1);
+        System.arraycopy(a, base1, t, 0, len1);
+        int cursor1 = 0;
+        int cursor2 = base2;
+        int end2 = base2 + len2;
+        int dest = base1;
+        while (cursor1 < len1 && cursor2 < end2) {
+            // 相等时取左段，保证稳定
+            if (c.compare((T) a[cursor2], (T) t[cursor1]) < 0) {
+                a[dest++] = a[cursor2++];
+            } else {
+                a[dest++] = t[cursor1++];
+            }
+        }
+        // 右段剩下的元素已经就位
+        System.arraycopy(t, cursor1, a, dest, len1 - cursor1);
+    }
+
+    /**
+     * 右段较短：复制到临时数组，从右往左归并
+     */
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+        Object[] t = ensureCapacity(len2);
+        System.arraycopy(a, base2, t, 0, len2);
+        int cursor1 = base1 + len1 - 1;
+        int cursor2 = len2 - 1;
+        int dest = base2 + len2 - 1;
+        while (cursor1 >= base1 && cursor2 >= 0) {
+            // 相等时先放右段，保证稳定
+            if (c.compare((T) t[cursor2], (T) a[cursor1]) < 0) {
+                a[dest--] = a[cursor1--];
+            } else {
+                a[dest--] = t[cursor2--];
+            }
+        }
+        // 左段剩下的元素已经就位
+        System.arraycopy(t, 0, a, base1, cursor2 + 1);
+    }
+
+    private Object[] ensureCapacity(int minCapacity) {
+        if (tmp.length < minCapacity) {
+            int newSize = Math.max(minCapacity, Math.min(tmp.length << 1, a.length >>> 1));
+            tmp = new Object[newSize];
+        }
+        return tmp;
+    }
+
+    /**
+     * 有序区间 a[lo, hi) 中第一个大于 key 的位置
+     */
+    static <T> int upperBound(Object[] a, int lo, int hi, T key, Comparator<? super T> c) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (c.compare(key, (T) a[mid]) < 0) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 有序区间 a[lo, hi) 中第一个不小于 key 的位置
+     */
+    static <T> int lowerBound(Object[] a, int lo, int hi, T key, Comparator<? super T> c) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (c.compare((T) a[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,438 @@
+package com.richal.learn;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 展开链表（Unrolled Linked List）
+ * 每个节点（块）存放一小段连续的元素，而不是像 {@link MyLinkedList} 那样每个元素一个节点：
+ * 节点数量减少为 n / 块容量，遍历时大部分访问都落在同一个数组里，对缓存更友好
+ *
+ * 插入时块满了就对半拆分；删除后块中元素少于容量的 1/4 时，尝试与相邻块合并，空块直接摘除。
+ * 另外维护一份块起始下标的跳跃索引，按下标访问先二分定位块再直接取数组元素；
+ * 修改只会让受影响的块之后的索引失效，下次访问时从失效位置向后按需重建
+ *
+ * @param <E> 链表中存储的元素类型
+ */
+public class UnrolledLinkedList<E> implements List<E> {
+
+    /**
+     * 默认的块容量
+     */
+    static final int DEFAULT_CHUNK_CAPACITY = 64;
+
+    /**
+     * 每个块最多存放的元素数量
+     */
+    private final int chunkCapacity;
+
+    /**
+     * 块中元素少于该值时尝试与相邻块合并
+     */
+    private final int mergeThreshold;
+
+    /**
+     * 链表中实际元素的数量
+     */
+    private int size;
+
+    /**
+     * 第一个块
+     */
+    private Chunk<E> head;
+
+    /**
+     * 最后一个块
+     */
+    private Chunk<E> tail;
+
+    /**
+     * 跳跃索引：第 i 个块，只有前 indexed 项是准确的
+     */
+    @SuppressWarnings("unchecked")
+    private Chunk<E>[] chunks = (Chunk<E>[]) new Chunk<?>[16];
+
+    /**
+     * 跳跃索引：第 i 个块第一个元素的下标
+     */
+    private int[] starts = new int[16];
+
+    /**
+     * 跳跃索引中准确的项数
+     */
+    private int indexed;
+
+    /**
+     * 使用默认块容量 64 创建链表
+     */
+    public UnrolledLinkedList() {
+        this(DEFAULT_CHUNK_CAPACITY);
+    }
+
+    /**
+     * 指定块容量创建链表
+     * @param chunkCapacity 每个块最多存放的元素数量，至少为 2
+     */
+    public UnrolledLinkedList(int chunkCapacity) {
+        if (chunkCapacity < 2) {
+            throw new IllegalArgumentException("非法的块容量: " + chunkCapacity);
+        }
+        this.chunkCapacity = chunkCapacity;
+        this.mergeThreshold = Math.max(1, chunkCapacity / 4);
+    }
+
+    /**
+     * 在链表末尾添加元素
+     * 时间复杂度：O(1)，尾块满了就新建一个块，不拆分也不影响索引
+     * @param element 要添加的元素
+     */
+    @Override
+    public void add(E element) {
+        if (tail == null || tail.count == chunkCapacity) {
+            linkAfter(tail, new Chunk<>(chunkCapacity));
+        }
+        tail.elements[tail.count++] = element;
+        size++;
+    }
+
+    /**
+     * 在指定位置插入元素
+     * 时间复杂度：头尾 O(1)；其他位置定位块 O(log(n / 块容量))，块内移动 O(块容量)
+     * @param element 要插入的元素
+     * @param index 插入位置的索引
+     */
+    @Override
+    public void add(E element, int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (index == size) {
+            add(element);
+            return;
+        }
+        if (index == 0) {
+            // 头块满了就在前面新建一个块，不需要定位
+            if (head.count == chunkCapacity) {
+                linkBefore(head, new Chunk<>(chunkCapacity));
+                indexed = 0;
+            }
+            head.insert(0, element);
+            indexed = Math.min(indexed, 1);
+            size++;
+            return;
+        }
+        int p = locate(index);
+        Chunk<E> chunk = chunks[p];
+        int offset = index - starts[p];
+        if (chunk.count == chunkCapacity) {
+            split(chunk);
+            if (offset > chunk.count) {
+                offset -= chunk.count;
+                chunk = chunk.next;
+            }
+        }
+        chunk.insert(offset, element);
+        indexed = Math.min(indexed, p + 1);
+        size++;
+    }
+
+    /**
+     * 删除指定位置的元素
+     * @param index 要删除元素的索引
+     * @return 被删除的元素
+     */
+    @Override
+    public E remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int p = locate(index);
+        Chunk<E> chunk = chunks[p];
+        E removed = chunk.removeAt(index - starts[p]);
+        afterRemove(chunk, p);
+        return removed;
+    }
+
+    /**
+     * 删除第一个与指定元素相等的元素
+     * 时间复杂度：O(n)，需要遍历查找元素
+     * @param element 要删除的元素
+     * @return 如果找到并删除了元素则返回true，否则返回false
+     */
+    @Override
+    public boolean remove(E element) {
+        int p = 0;
+        for (Chunk<E> chunk = head; chunk != null; chunk = chunk.next, p++) {
+            for (int i = 0; i < chunk.count; i++) {
+                if (Objects.equals(element, chunk.elements[i])) {
+                    chunk.removeAt(i);
+                    afterRemove(chunk, p);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取指定位置的元素
+     * 时间复杂度：索引有效时 O(log(n / 块容量))
+     * @param index 元素的索引
+     * @return 指定位置的元素
+     */
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int p = locate(index);
+        return (E) chunks[p].elements[index - starts[p]];
+    }
+
+    /**
+     * 修改指定位置的元素
+     * @param index 要修改的元素索引
+     * @param element 新元素值
+     * @return 被替换的旧元素
+     */
+    @Override
+    public E set(int index, E element) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        int p = locate(index);
+        Object[] elements = chunks[p].elements;
+        int offset = index - starts[p];
+        E old = (E) elements[offset];
+        elements[offset] = element;
+        return old;
+    }
+
+    /**
+     * 获取链表中元素的数量
+     * @return 链表大小
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 当前的块数量
+     */
+    public int chunkCount() {
+        int count = 0;
+        for (Chunk<E> chunk = head; chunk != null; chunk = chunk.next) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 返回下标 index 所在的块在跳跃索引中的位置
+     * 下标落在已索引的范围内时二分查找；否则从最后一个准确的项开始向后补全索引，直到覆盖 index
+     */
+    private int locate(int index) {
+        int last = indexed - 1;
+        if (last >= 0 && index < starts[last] + chunks[last].count) {
+            // 找最后一个起始下标不大于 index 的块，块都不为空，起始下标严格递增
+            int lo = 0;
+            int hi = last;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (starts[mid] <= index) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+        Chunk<E> chunk = last < 0 ? head : chunks[last].next;
+        int start = last < 0 ? 0 : starts[last] + chunks[last].count;
+        while (true) {
+            if (indexed == chunks.length) {
+                chunks = Arrays.copyOf(chunks, indexed * 2);
+                starts = Arrays.copyOf(starts, indexed * 2);
+            }
+            chunks[indexed] = chunk;
+            starts[indexed] = start;
+            if (index < start + chunk.count) {
+                return indexed++;
+            }
+            indexed++;
+            start += chunk.count;
+            chunk = chunk.next;
+        }
+    }
+
+    /**
+     * 把满块的后一半元素移到紧跟其后的新块
+     */
+    private void split(Chunk<E> chunk) {
+        Chunk<E> next = new Chunk<>(chunkCapacity);
+        int keep = chunk.count - chunk.count / 2;
+        int move = chunk.count - keep;
+        System.arraycopy(chunk.elements, keep, next.elements, 0, move);
+        Arrays.fill(chunk.elements, keep, chunk.count, null);
+        chunk.count = keep;
+        next.count = move;
+        linkAfter(chunk, next);
+    }
+
+    /**
+     * 删除一个元素之后整理块：空块摘除，过少的块与相邻块合并
+     * 位于跳跃索引第 p 项的块发生了变化，从 p 开始的索引都失效
+     */
+    private void afterRemove(Chunk<E> chunk, int p) {
+        size--;
+        indexed = Math.min(indexed, p);
+        if (chunk.count == 0) {
+            unlink(chunk);
+        } else if (chunk.count < mergeThreshold) {
+            Chunk<E> next = chunk.next;
+            Chunk<E> prev = chunk.prev;
+            if (next != null && chunk.count + next.count <= chunkCapacity) {
+                mergeInto(chunk, next);
+            } else if (prev != null && prev.count + chunk.count <= chunkCapacity) {
+                mergeInto(prev, chunk);
+            }
+        }
+    }
+
+    /**
+     * 把 from 的元素全部追加到 to 的末尾并摘除 from，from 必须紧跟在 to 之后
+     */
+    private void mergeInto(Chunk<E> to, Chunk<E> from) {
+        System.arraycopy(from.elements, 0, to.elements, to.count, from.count);
+        to.count += from.count;
+        unlink(from);
+    }
+
+    private void linkAfter(Chunk<E> prev, Chunk<E> chunk) {
+        chunk.prev = prev;
+        if (prev == null) {
+            chunk.next = head;
+            head = chunk;
+        } else {
+            chunk.next = prev.next;
+            prev.next = chunk;
+        }
+        if (chunk.next == null) {
+            tail = chunk;
+        } else {
+            chunk.next.prev = chunk;
+        }
+    }
+
+    private void linkBefore(Chunk<E> next, Chunk<E> chunk) {
+        linkAfter(next.prev, chunk);
+    }
+
+    private void unlink(Chunk<E> chunk) {
+        Chunk<E> prev = chunk.prev;
+        Chunk<E> next = chunk.next;
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.prev = prev;
+        }
+        chunk.prev = null;
+        chunk.next = null;
+    }
+
+    /**
+     * 返回一个迭代器，按块顺序遍历元素
+     * @return 链表迭代器
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new ChunkIterator();
+    }
+
+    /**
+     * 内部迭代器实现，在块内按数组下标前进，块遍历完再跳到下一个块
+     */
+    class ChunkIterator implements Iterator<E> {
+
+        /**
+         * 当前所在的块
+         */
+        Chunk<E> chunk = head;
+
+        /**
+         * 下一个元素在块内的下标
+         */
+        int offset;
+
+        @Override
+        public boolean hasNext() {
+            return chunk != null && offset < chunk.count;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            E element = (E) chunk.elements[offset++];
+            if (offset == chunk.count) {
+                chunk = chunk.next;
+                offset = 0;
+            }
+            return element;
+        }
+    }
+
+    /**
+     * 块：一段连续存放的元素，以及前后块的引用
+     * 链表中的块都不为空
+     * @param <E> 块中存储的元素类型
+     */
+    static final class Chunk<E> {
+
+        /**
+         * 块中的元素，前 count 个有效
+         */
+        final Object[] elements;
+
+        /**
+         * 块中元素的数量
+         */
+        int count;
+
+        Chunk<E> prev;
+
+        Chunk<E> next;
+
+        Chunk(int capacity) {
+            this.elements = new Object[capacity];
+        }
+
+        /**
+         * 在块内 offset 处插入元素，调用方保证块未满
+         */
+        void insert(int offset, E element) {
+            System.arraycopy(elements, offset, elements, offset + 1, count - offset);
+            elements[offset] = element;
+            count++;
+        }
+
+        /**
+         * 删除块内 offset 处的元素
+         */
+        E removeAt(int offset) {
+            E removed = (E) elements[offset];
+            System.arraycopy(elements, offset + 1, elements, offset, count - offset - 1);
+            elements[--count] = null;
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import com.richal.learn.MyArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrayListCapacityTest {
+
+    @Test
+    public void bulkAddAndCapacityTest() {
+        MyArrayList<Integer> list = new MyArrayList<>(0);
+        list.add(-1);
+        list.add(0, 0);
+        assertEquals(2, list.size());
+        assertEquals(0, list.get(0));
+        assertEquals(-1, list.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.set(2, 0));
+
+        ArrayList<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            source.add(i);
+        }
+        assertTrue(list.addAll(source));
+        assertTrue(list.addAll(new Integer[]{7, 8, 9}));
+        assertFalse(list.addAll(new Integer[0]));
+        assertEquals(1005, list.size());
+        assertEquals(999, list.get(1001));
+        assertEquals(9, list.get(1004));
+
+        list.ensureCapacity(5000);
+        for (int i = list.size(); i < 5000; i++) {
+            list.add(i);
+        }
+        assertEquals(5000, list.size());
+
+        // 数组已满时删除第一个元素
+        MyArrayList<Integer> full = new MyArrayList<>(Arrays.asList(1, 2, 3));
+        assertEquals(1, full.remove(0));
+        assertEquals(2, full.size());
+        assertEquals(3, full.get(1));
+
+        assertThrows(IllegalArgumentException.class, () -> new MyArrayList<Integer>(-1));
+    }
+
+    @Test
+    public void removeIfAndTrimTest() {
+        MyArrayList<Integer> list = new MyArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            list.add(i);
+        }
+        assertTrue(list.removeIf(e -> e % 3 != 0));
+        assertFalse(list.removeIf(e -> e < 0));
+        assertEquals(3334, list.size());
+        int expected = 0;
+        for (Integer e : list) {
+            assertEquals(expected, e);
+            expected += 3;
+        }
+
+        // filter 抛出异常时，没检查到的元素全部保留
+        assertThrows(IllegalStateException.class, () -> list.removeIf(e -> {
+            if (e == 300) {
+                throw new IllegalStateException();
+            }
+            return e < 150;
+        }));
+        assertEquals(3334 - 50, list.size());
+        assertEquals(150, list.get(0));
+        assertEquals(9999, list.get(list.size() - 1));
+
+        list.removeIf(e -> true);
+        assertEquals(0, list.size());
+        Iterator<Integer> it = list.iterator();
+        assertFalse(it.hasNext());
+        list.trimToSize();
+        list.add(1);
+        assertEquals(1, list.get(0));
+    }
+}
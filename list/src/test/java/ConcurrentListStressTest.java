@@ -0,0 +1,163 @@
+import com.richal.learn.MyConcurrentLinkedQueue;
+import com.richal.learn.MyConcurrentStack;
+import com.richal.learn.MyCopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentListStressTest {
+
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 50_000;
+
+    /**
+     * 所有线程在同一时刻开始，尽量制造竞争
+     */
+    private static <T> java.util.List<T> runConcurrently(java.util.List<Callable<T>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        java.util.List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        java.util.List<T> results = new ArrayList<>();
+        for (Future<T> f : futures) {
+            results.add(f.get(60, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    @Test
+    public void queueDeliversEveryElementOnceInProducerOrder() throws Exception {
+        MyConcurrentLinkedQueue<Integer> queue = new MyConcurrentLinkedQueue<>();
+        AtomicIntegerArray seen = new AtomicIntegerArray(THREADS * PER_THREAD);
+        CountDownLatch producersDone = new CountDownLatch(THREADS);
+        java.util.List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int producer = t;
+            tasks.add(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    queue.offer(producer * PER_THREAD + i);
+                }
+                producersDone.countDown();
+                return true;
+            });
+            tasks.add(() -> {
+                // 同一个消费者看到的同一生产者的元素必须是递增的
+                int[] last = new int[THREADS];
+                java.util.Arrays.fill(last, -1);
+                while (true) {
+                    Integer e = queue.poll();
+                    if (e == null) {
+                        if (producersDone.getCount() == 0 && queue.isEmpty()) {
+                            return true;
+                        }
+                        Thread.yield();
+                        continue;
+                    }
+                    int producer2 = e / PER_THREAD;
+                    if (e <= last[producer2]) {
+                        return false;
+                    }
+                    last[producer2] = e;
+                    seen.incrementAndGet(e);
+                }
+            });
+        }
+        for (Boolean ok : runConcurrently(tasks)) {
+            assertTrue(ok);
+        }
+        for (int i = 0; i < seen.length(); i++) {
+            assertEquals(1, seen.get(i), "元素 " + i);
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void stackLosesNothingUnderConcurrentPushPop() throws Exception {
+        MyConcurrentStack<Integer> stack = new MyConcurrentStack<>();
+        java.util.List<Callable<java.util.List<Integer>>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int base = t * PER_THREAD;
+            tasks.add(() -> {
+                java.util.List<Integer> popped = new ArrayList<>();
+                for (int i = 0; i < PER_THREAD; i++) {
+                    stack.push(base + i);
+                    if (i % 2 == 1) {
+                        popped.add(stack.pop());
+                        popped.add(stack.pop());
+                    }
+                }
+                return popped;
+            });
+        }
+        boolean[] seen = new boolean[THREADS * PER_THREAD];
+        for (java.util.List<Integer> popped : runConcurrently(tasks)) {
+            for (Integer e : popped) {
+                assertFalse(seen[e], "重复弹出 " + e);
+                seen[e] = true;
+            }
+        }
+        for (boolean b : seen) {
+            assertTrue(b);
+        }
+        assertTrue(stack.isEmpty());
+        assertNull(stack.poll());
+    }
+
+    @Test
+    public void copyOnWriteReadersSeeConsistentSnapshots() throws Exception {
+        MyCopyOnWriteArrayList<Integer> list = new MyCopyOnWriteArrayList<>();
+        java.util.List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int base = t * 1000;
+            tasks.add(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    list.add(base + i);
+                }
+                return true;
+            });
+            tasks.add(() -> {
+                // 快照里每个写线程的元素都是连续的前缀
+                for (int round = 0; round < 200; round++) {
+                    int[] next = new int[THREADS];
+                    for (int w = 0; w < THREADS; w++) {
+                        next[w] = w * 1000;
+                    }
+                    Iterator<Integer> it = list.iterator();
+                    while (it.hasNext()) {
+                        int e = it.next();
+                        if (e != next[e / 1000]++) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            });
+        }
+        for (Boolean ok : runConcurrently(tasks)) {
+            assertTrue(ok);
+        }
+        assertEquals(THREADS * 1000, list.size());
+        assertFalse(list.addIfAbsent(0));
+        assertTrue(list.remove(Integer.valueOf(0)));
+        assertTrue(list.addIfAbsent(0));
+        assertEquals(0, list.get(list.size() - 1));
+    }
+}
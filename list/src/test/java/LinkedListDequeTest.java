@@ -0,0 +1,79 @@
+import com.richal.learn.MyLinkedList;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinkedListDequeTest {
+
+    @Test
+    public void dequeTest() {
+        MyLinkedList<Integer> deque = new MyLinkedList<>();
+        assertNull(deque.pollFirst());
+        assertNull(deque.peekLast());
+        assertThrows(NoSuchElementException.class, deque::removeLast);
+        assertThrows(NoSuchElementException.class, deque::getFirst);
+
+        deque.addFirst(2);
+        deque.addFirst(1);
+        deque.addLast(3);
+        deque.offer(4);
+        deque.push(0);
+        assertEquals(5, deque.size());
+        assertEquals(0, deque.peek());
+        assertEquals(4, deque.getLast());
+        assertEquals(2, deque.get(2));
+
+        assertEquals(0, deque.pop());
+        assertEquals(4, deque.pollLast());
+        assertEquals(1, deque.poll());
+        assertEquals(3, deque.removeLast());
+        assertEquals(2, deque.removeFirst());
+        assertTrue(deque.isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            deque.offerLast(i);
+        }
+        ArrayList<Integer> sink = new ArrayList<>();
+        assertEquals(3, deque.drainTo(sink, 3));
+        assertEquals(7, deque.drainTo(sink));
+        assertEquals(0, deque.drainTo(sink));
+        assertEquals(10, sink.size());
+        assertEquals(9, sink.get(9));
+        assertTrue(deque.isEmpty());
+    }
+
+    @Test
+    public void nodePoolTest() {
+        MyLinkedList<Integer> queue = new MyLinkedList<>(64);
+        Integer item = 42;
+        // 复用的节点里不能残留旧元素
+        for (int i = 0; i < 64; i++) {
+            queue.offer(i);
+        }
+        queue.remove(10);
+        assertTrue(queue.remove(Integer.valueOf(20)));
+        while (!queue.isEmpty()) {
+            queue.poll();
+        }
+        queue.addFirst(item);
+        queue.add(item, 1);
+        assertEquals(2, queue.size());
+        assertEquals(item, queue.get(1));
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            queue.offer(item);
+            queue.offer(item);
+            queue.poll();
+            queue.poll();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 4096, "节点池开启后仍分配了 " + allocated + " 字节");
+        assertThrows(IllegalArgumentException.class, () -> new MyLinkedList<Integer>(-1));
+    }
+}
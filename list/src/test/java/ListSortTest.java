@@ -0,0 +1,154 @@
+import com.richal.learn.IntArrayList;
+import com.richal.learn.LongArrayList;
+import com.richal.learn.MyArrayList;
+import com.richal.learn.MyLinkedList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListSortTest {
+
+    /**
+     * 只按 key 比较，seq 用来检查稳定性
+     */
+    record Item(int key, int seq) {
+    }
+
+    private static final Comparator<Item> BY_KEY = Comparator.comparingInt(Item::key);
+
+    /**
+     * 随机、有序、逆序、锯齿等几种分布，key 的取值范围较小以产生大量相等元素
+     */
+    private static int[] keys(int pattern, int n, Random random) {
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            switch (pattern) {
+                case 0 -> keys[i] = random.nextInt(n / 4 + 1);
+                case 1 -> keys[i] = i;
+                case 2 -> keys[i] = n - i;
+                case 3 -> keys[i] = i % 100;
+                default -> keys[i] = random.nextInt(10) < 9 ? i : random.nextInt(n);
+            }
+        }
+        return keys;
+    }
+
+    private static void assertSortedStable(ArrayList<Item> expected, Iterable<Item> actual) {
+        expected.sort(BY_KEY);
+        int i = 0;
+        for (Item item : actual) {
+            assertEquals(expected.get(i++), item);
+        }
+        assertEquals(expected.size(), i);
+    }
+
+    @Test
+    public void arrayListSortsStably() {
+        Random random = new Random(42);
+        // 单核机器上公共线程池的并行度是 1，用独立的线程池才能走到并行拆分和并行归并
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int n : new int[]{0, 1, 31, 32, 1000, 50_000}) {
+            for (int pattern = 0; pattern < 5; pattern++) {
+                int[] keys = keys(pattern, n, random);
+                MyArrayList<Item> list = new MyArrayList<>();
+                MyArrayList<Item> parallel = new MyArrayList<>();
+                ArrayList<Item> expected = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    Item item = new Item(keys[i], i);
+                    list.add(item);
+                    parallel.add(item);
+                    expected.add(item);
+                }
+                list.sort(BY_KEY);
+                parallel.parallelSort(BY_KEY, pool);
+                assertSortedStable(new ArrayList<>(expected), list);
+                assertSortedStable(expected, parallel);
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void arrayListNaturalOrderAndBinarySearch() {
+        MyArrayList<Integer> list = new MyArrayList<>();
+        for (int i = 20; i > 0; i--) {
+            list.add(i * 2);
+        }
+        list.sort(null);
+        assertEquals(2, list.get(0));
+        assertEquals(40, list.get(19));
+        assertEquals(4, list.binarySearch(10, null));
+        assertEquals(-1, list.binarySearch(1, null));
+        assertEquals(-5, list.binarySearch(9, null));
+        assertEquals(-21, list.binarySearch(41, null));
+
+        list.sort(Comparator.reverseOrder());
+        assertEquals(40, list.get(0));
+        assertEquals(15, list.binarySearch(10, Comparator.reverseOrder()));
+        assertEquals(-1, new MyArrayList<Integer>().binarySearch(1, null));
+    }
+
+    @Test
+    public void linkedListSortRelinksNodes() {
+        Random random = new Random(7);
+        for (int n : new int[]{0, 1, 2, 3, 1000, 4097}) {
+            for (int pattern = 0; pattern < 5; pattern++) {
+                int[] keys = keys(pattern, n, random);
+                MyLinkedList<Item> list = new MyLinkedList<>();
+                ArrayList<Item> expected = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    Item item = new Item(keys[i], i);
+                    list.add(item);
+                    expected.add(item);
+                }
+                list.sort(BY_KEY);
+                assertSortedStable(expected, list);
+                assertEquals(n, list.size());
+                // 从尾部反向取出，检查 prev 引用和 tail
+                for (int i = n - 1; i >= 0; i--) {
+                    assertEquals(expected.get(i), list.pollLast());
+                }
+                assertTrue(list.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void primitiveRadixSortMatchesArraysSort() {
+        Random random = new Random(1);
+        for (int n : new int[]{0, 100, 5000, 100_000}) {
+            int[] ints = new int[n];
+            long[] longs = new long[n];
+            for (int i = 0; i < n; i++) {
+                ints[i] = i % 10 == 0 ? (i % 20 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE) : random.nextInt();
+                longs[i] = i % 10 == 0 ? (i % 20 == 0 ? Long.MIN_VALUE : Long.MAX_VALUE) : random.nextLong();
+            }
+            IntArrayList intList = new IntArrayList();
+            intList.addAll(ints);
+            LongArrayList longList = new LongArrayList();
+            longList.addAll(longs);
+            intList.sort();
+            longList.sort();
+            Arrays.sort(ints);
+            Arrays.sort(longs);
+            assertArrayEquals(ints, intList.toArray());
+            assertArrayEquals(longs, longList.toArray());
+        }
+
+        // 只有低位不同，高位的几轮会被跳过
+        IntArrayList small = new IntArrayList();
+        for (int i = 10_000; i > 0; i--) {
+            small.add(i % 300 - 150);
+        }
+        small.sort();
+        for (int i = 1; i < small.size(); i++) {
+            assertTrue(small.get(i - 1) <= small.get(i));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import com.richal.learn.MyArrayList;
+import com.richal.learn.MyCopyOnWriteArrayList;
+import com.richal.learn.MyLinkedList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListStreamTest {
+
+    private static final int N = 200_000;
+
+    @Test
+    public void arraySpliteratorSplitsEvenly() {
+        MyArrayList<Integer> list = new MyArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        Spliterator<Integer> right = list.spliterator();
+        assertTrue(right.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        Spliterator<Integer> left = right.trySplit();
+        assertEquals(5, left.estimateSize());
+        assertEquals(5, right.estimateSize());
+        StringBuilder sb = new StringBuilder();
+        left.forEachRemaining(sb::append);
+        assertTrue(right.tryAdvance(sb::append));
+        right.forEachRemaining(sb::append);
+        assertEquals("0123456789", sb.toString());
+        assertEquals(0, right.estimateSize());
+
+        // 创建之后、第一次使用之前的修改可见
+        Spliterator<Integer> late = list.spliterator();
+        list.add(10);
+        assertEquals(11, late.estimateSize());
+    }
+
+    @Test
+    public void linkedSpliteratorSplitsInGrowingBatches() {
+        MyLinkedList<Integer> list = new MyLinkedList<>();
+        for (int i = 0; i < 5000; i++) {
+            list.add(i);
+        }
+        Spliterator<Integer> rest = list.spliterator();
+        Spliterator<Integer> first = rest.trySplit();
+        assertEquals(1024, first.estimateSize());
+        Spliterator<Integer> second = rest.trySplit();
+        assertEquals(2048, second.estimateSize());
+        assertEquals(5000 - 1024 - 2048, rest.estimateSize());
+        int[] next = {0};
+        for (Spliterator<Integer> s : new Spliterator[]{first, second, rest}) {
+            s.forEachRemaining(e -> assertEquals(next[0]++, e));
+        }
+        assertEquals(5000, next[0]);
+        assertNull(new MyLinkedList<Integer>().spliterator().trySplit());
+    }
+
+    @Test
+    public void parallelStreamsMatchSequential() {
+        MyArrayList<Integer> array = new MyArrayList<>();
+        MyLinkedList<Integer> linked = new MyLinkedList<>();
+        MyCopyOnWriteArrayList<Integer> cow = new MyCopyOnWriteArrayList<>();
+        for (int i = 0; i < N; i++) {
+            array.add(i);
+            linked.add(i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            cow.add(i);
+        }
+        long expected = (long) N * (N - 1) / 2;
+        assertEquals(expected, array.parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(expected, linked.parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(array.stream().filter(e -> e % 3 == 0).collect(Collectors.toList()),
+                linked.parallelStream().filter(e -> e % 3 == 0).collect(Collectors.toList()));
+        assertEquals(N / 2, array.parallelStream().filter(e -> e % 2 == 0).count());
+        assertEquals(499500, cow.parallelStream().mapToInt(Integer::intValue).sum());
+    }
+}
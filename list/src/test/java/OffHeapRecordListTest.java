@@ -0,0 +1,74 @@
+import com.richal.learn.OffHeapRecordList;
+import com.richal.learn.RecordSchema;
+import org.junit.jupiter.api.Test;
+
+import static com.richal.learn.RecordSchema.FieldType.*;
+import static com.richal.learn.RecordSchema.field;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapRecordListTest {
+
+    private static final RecordSchema SCHEMA = new RecordSchema(
+            field("id", LONG),
+            field("price", DOUBLE),
+            field("qty", INT),
+            field("side", BYTE));
+
+    private static final int ID = SCHEMA.indexOf("id");
+    private static final int PRICE = SCHEMA.indexOf("price");
+    private static final int QTY = SCHEMA.indexOf("qty");
+    private static final int SIDE = SCHEMA.indexOf("side");
+
+    @Test
+    public void appendGetAndScan() {
+        assertEquals(21, SCHEMA.recordBytes());
+        try (OffHeapRecordList list = new OffHeapRecordList(SCHEMA, 4)) {
+            list.append().setLong(ID, 7L).setDouble(PRICE, 1.5).setInt(QTY, 3);
+            // 追加的记录从 0 开始
+            assertEquals(0, list.get(0).getByte(SIDE));
+
+            // 批量加载会越过初始容量触发扩容，已有数据要保留下来
+            list.appendAll(9999, (i, row) -> row
+                    .setLong(ID, i)
+                    .setDouble(PRICE, i * 0.5)
+                    .setInt(QTY, i % 10)
+                    .setByte(SIDE, (byte) (i & 1)));
+            assertEquals(10000, list.size());
+
+            OffHeapRecordList.Cursor first = list.cursor().moveTo(0);
+            OffHeapRecordList.Cursor last = list.get(9999);
+            assertEquals(7L, first.getLong(ID));
+            assertEquals(1.5, first.getDouble(PRICE));
+            assertEquals(9998L, last.getLong(ID));
+            assertEquals(4999.0, last.getDouble(PRICE));
+            assertSame(last, list.get(1));
+
+            long expectedIds = 7L + 9998L * 9999 / 2;
+            assertEquals(expectedIds, list.sumLong(ID));
+            assertEquals(1.5 + 0.5 * 9998 * 9999 / 2, list.sumDouble(PRICE));
+            assertEquals(3 + 45 * 999 + 36, list.sumLong(QTY));
+            assertEquals(4999, list.sumLong(SIDE));
+
+            long[] sum = {0};
+            list.forEach(row -> sum[0] += row.getLong(ID));
+            assertEquals(expectedIds, sum[0]);
+        }
+    }
+
+    @Test
+    public void rejectsBadAccess() {
+        OffHeapRecordList list = new OffHeapRecordList(SCHEMA);
+        list.append();
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+        assertThrows(IllegalArgumentException.class, () -> list.get(0).getInt(ID));
+        assertThrows(IllegalArgumentException.class, () -> list.sumLong(PRICE));
+        assertThrows(IllegalArgumentException.class, () -> SCHEMA.indexOf("missing"));
+        assertThrows(IllegalArgumentException.class, () -> new RecordSchema(field("a", INT), field("a", LONG)));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapRecordList(SCHEMA, -1));
+
+        OffHeapRecordList.Cursor cursor = list.get(0);
+        list.close();
+        assertThrows(IllegalStateException.class, () -> cursor.getLong(ID));
+        assertThrows(IllegalStateException.class, () -> list.sumLong(ID));
+    }
+}
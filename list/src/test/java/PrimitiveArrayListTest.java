@@ -0,0 +1,70 @@
+import com.richal.learn.DoubleArrayList;
+import com.richal.learn.IntArrayList;
+import com.richal.learn.LongArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveArrayListTest {
+
+    @Test
+    public void intListTest() {
+        IntArrayList list = new IntArrayList(0);
+        for (int i = 0; i < 30; i++) {
+            list.add(29 - i);
+        }
+        assertEquals(30, list.size());
+        assertEquals(29, list.get(0));
+
+        list.add(100, 0);
+        assertEquals(100, list.removeAt(0));
+        assertTrue(list.removeValue(29));
+        assertFalse(list.removeValue(29));
+        assertEquals(29, list.size());
+        assertEquals(28, list.set(0, 28));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(29));
+
+        list.addAll(new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE});
+        assertEquals(28L * 29 / 2 + 2L * Integer.MAX_VALUE, list.sum());
+        assertEquals(0, list.min());
+        assertEquals(Integer.MAX_VALUE, list.max());
+
+        list.sort();
+        assertEquals(0, list.binarySearch(0));
+        assertEquals(15, list.binarySearch(15));
+        assertTrue(list.binarySearch(-5) < 0);
+        assertEquals(list.sum(), list.stream().asLongStream().sum());
+        assertEquals(31, list.stream().count());
+
+        long[] visited = {0};
+        list.forEach(e -> visited[0] += e);
+        assertEquals(list.sum(), visited[0]);
+
+        list.clear();
+        assertThrows(NoSuchElementException.class, list::min);
+        list.trimToSize();
+        list.add(1);
+        assertArrayEquals(new int[]{1}, list.toArray());
+    }
+
+    @Test
+    public void longAndDoubleListTest() {
+        LongArrayList longs = new LongArrayList(new long[]{5, 3, 1L << 40});
+        longs.sort();
+        assertEquals(2, longs.binarySearch(1L << 40));
+        assertEquals(8 + (1L << 40), longs.sum());
+        assertEquals(3, longs.stream().filter(e -> e > 0).count());
+
+        DoubleArrayList doubles = new DoubleArrayList();
+        doubles.addAll(new double[]{2.5, -1.0, 0.5, Double.NaN});
+        assertTrue(doubles.removeValue(Double.NaN));
+        assertEquals(-1.0, doubles.min());
+        assertEquals(2.5, doubles.max());
+        assertEquals(2.0, doubles.sum());
+        assertEquals(2.0, doubles.stream().sum());
+        doubles.sort();
+        assertEquals(1, doubles.binarySearch(0.5));
+    }
+}
@@ -0,0 +1,81 @@
+import com.richal.learn.UnrolledLinkedList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnrolledLinkedListTest {
+
+    @Test
+    public void operateTest() {
+        UnrolledLinkedList<Integer> list = new UnrolledLinkedList<>(8);
+        for (int i = 0; i < 30; i++) {
+            list.add(i);
+        }
+        assertEquals(30, list.size());
+        assertEquals(4, list.chunkCount());
+
+        list.remove(0);
+        list.remove(18);
+        assertEquals(28, list.size());
+        assertEquals(16, list.get(15));
+        list.set(18, 17);
+        assertEquals(17, list.get(18));
+
+        for (int i = 0; i < 20; i++) {
+            list.add(-i, 0);
+        }
+        assertEquals(-19, list.get(0));
+        assertEquals(0, list.get(19));
+        assertEquals(1, list.get(20));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(48));
+        assertThrows(IllegalArgumentException.class, () -> new UnrolledLinkedList<Integer>(1));
+    }
+
+    @Test
+    public void randomOperationsAgainstArrayList() {
+        Random random = new Random(7);
+        UnrolledLinkedList<Integer> list = new UnrolledLinkedList<>(16);
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int op = 0; op < 50_000; op++) {
+            int r = random.nextInt(10);
+            if (r < 3 || expected.isEmpty()) {
+                list.add(op);
+                expected.add(op);
+            } else if (r < 5) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(op, index);
+                expected.add(index, op);
+            } else if (r < 7) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            } else if (r < 8) {
+                Integer value = expected.get(random.nextInt(expected.size()));
+                assertEquals(expected.remove(value), list.remove(value));
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.get(index), list.get(index));
+                assertEquals(expected.set(index, -op), list.set(index, -op));
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        Iterator<Integer> it = list.iterator();
+        for (Integer e : expected) {
+            assertEquals(e, it.next());
+        }
+        assertFalse(it.hasNext());
+
+        // 删除大部分元素后块会合并，平均每块不会太空
+        while (expected.size() > 100) {
+            int index = random.nextInt(expected.size());
+            assertEquals(expected.remove(index), list.remove(index));
+        }
+        assertTrue(list.chunkCount() <= 100 / 4 + 1, "块数量: " + list.chunkCount());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), list.get(i));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.richal.learn;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 线程池大小的自适应控制器：按固定间隔采样，在 [minPoolSize, maxPoolSize] 范围内调整线程数，使任务延迟不超过目标
+ *
+ * 每次采样读取线程池的完成任务数、排队任务数和正在执行的任务数：
+ * 1. 吞吐量 = 两次采样之间完成的任务数 / 间隔
+ * 2. 平均延迟（排队 + 执行）用 Little 定律估算：在池中的任务数 / 吞吐量，不需要给每个任务计时
+ *
+ * 调整策略是爬山法，思路与 .NET 线程池的 hill climbing 相同：
+ * 1. 延迟超过目标：上次调整了线程数并且吞吐量明显上升，继续同方向调整并加大步长；
+ *    吞吐量没有上升（CPU 已经跑满、线程之间开始争用），反向调整、步长回到 1，步长上限减半。
+ *    最终在吞吐量最高的线程数附近小幅来回
+ * 2. 延迟低于目标的一半并且没有排队：减少一个线程，释放资源
+ * 3. 其余情况保持不变
+ *
+ * 控制器把核心线程数和最大线程数设为同一个值（虚拟线程模式下调整并发数上限），
+ * 线程数减少时多出来的线程执行完手上的任务后退出
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class AdaptivePoolController implements AutoCloseable {
+
+    /**
+     * 吞吐量变化小于这个比例视为没有变化，过滤采样噪声
+     */
+    static final double TOLERANCE = 0.05;
+
+    private final MyThreadPool pool;
+    private final int minPoolSize;
+    private final int maxPoolSize;
+    private final long targetLatencyNanos;
+    private final long sampleIntervalNanos;
+
+    /**
+     * 步长上限，避免一次调整过多
+     */
+    private final int maxStep;
+
+    // --- 爬山状态，只有控制线程访问 ---
+    /**
+     * 调整方向，1 增加，-1 减少，0 不在爬山（刚启动或者空闲收缩）
+     */
+    private int direction;
+    private int step = 1;
+
+    /**
+     * 当前允许的最大步长，每次反向减半，让线程数收敛到吞吐量最高的位置而不是来回大幅摆动
+     */
+    private int stepLimit;
+
+    /**
+     * 上一个采样区间内的线程数和吞吐量
+     */
+    private int lastPoolSize;
+    private double lastThroughput;
+
+    // --- 采样状态 ---
+    private long lastSampleTime;
+    private long lastCompleted;
+
+    private volatile Thread thread;
+
+    /**
+     * @param minPoolSize    线程数下限
+     * @param maxPoolSize    线程数上限
+     * @param targetLatency  目标平均延迟（排队加执行）
+     * @param sampleInterval 采样间隔，应该比单个任务的执行时间长得多
+     */
+    public AdaptivePoolController(MyThreadPool pool, int minPoolSize, int maxPoolSize,
+                                  long targetLatency, long sampleInterval, TimeUnit unit) {
+        if (minPoolSize <= 0 || minPoolSize > maxPoolSize) {
+            throw new IllegalArgumentException("线程数范围不合法: [" + minPoolSize + ", " + maxPoolSize + "]");
+        }
+        if (targetLatency <= 0 || sampleInterval <= 0) {
+            throw new IllegalArgumentException("目标延迟和采样间隔必须大于 0");
+        }
+        this.pool = pool;
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.targetLatencyNanos = unit.toNanos(targetLatency);
+        this.sampleIntervalNanos = unit.toNanos(sampleInterval);
+        this.maxStep = Math.max(1, (maxPoolSize - minPoolSize) / 4);
+        this.stepLimit = maxStep;
+    }
+
+    /**
+     * 把线程池大小限制到范围内，启动后台控制线程
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("控制器已经启动");
+        }
+        int size = Math.max(minPoolSize, Math.min(maxPoolSize, pool.getMaximumPoolSize()));
+        pool.resize(size);
+        lastSampleTime = System.nanoTime();
+        lastCompleted = pool.getCompletedTaskCount();
+        Thread t = new Thread(this::run, "MyPool-Controller");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    /**
+     * 停止控制线程，线程池保持当前大小
+     */
+    @Override
+    public void close() {
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    private void run() {
+        // 线程池关闭后就没有调整的必要了
+        while (!Thread.currentThread().isInterrupted() && !pool.isShutdown()) {
+            LockSupport.parkNanos(this, sampleIntervalNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            tick();
+        }
+    }
+
+    /**
+     * 采样一次并调整线程池大小
+     * @return 调整后的线程数
+     */
+    int tick() {
+        long now = System.nanoTime();
+        long completed = pool.getCompletedTaskCount();
+        double throughput = (double) (completed - lastCompleted) / Math.max(1L, now - lastSampleTime);
+        lastSampleTime = now;
+        lastCompleted = completed;
+
+        int queued = pool.getQueueSize();
+        int inFlight = queued + pool.getActiveCount();
+        double latency;
+        if (throughput > 0) {
+            latency = inFlight / throughput;
+        } else {
+            // 一个任务都没完成：有任务在池中说明全部卡住了，否则是空闲
+            latency = inFlight > 0 ? Double.POSITIVE_INFINITY : 0;
+        }
+
+        int current = pool.getMaximumPoolSize();
+        int next = decide(current, throughput, latency, queued);
+        if (next != current) {
+            pool.resize(next);
+        }
+        return next;
+    }
+
+    /**
+     * 爬山法的一步，不依赖线程池，便于单独测试
+     * @param current    采样区间内的线程数
+     * @param throughput 采样区间内的吞吐量，单位任务数 / 纳秒，只用于比较大小
+     * @param latency    估算的平均延迟，单位纳秒
+     * @param queued     当前排队的任务数
+     * @return 下一个区间的线程数
+     */
+    int decide(int current, double throughput, double latency, int queued) {
+        int next;
+        if (latency > targetLatencyNanos) {
+            // 上次是爬山调整的线程数，才能用吞吐量的变化判断方向对不对
+            boolean climbed = direction != 0 && lastPoolSize != current;
+            if (!climbed) {
+                // 刚开始爬山，或者上次没有调整（到了边界或者处于保持状态）、是空闲收缩，先尝试增加
+                direction = 1;
+                step = 1;
+                stepLimit = maxStep;
+            } else if (throughput > lastThroughput * (1 + TOLERANCE)) {
+                // 上次的调整提高了吞吐量，方向是对的，加大步长
+                // 上次是减少线程也一样：说明线程过多、争用严重
+                step = Math.min(step * 2, stepLimit);
+            } else {
+                direction = -direction;
+                step = 1;
+                stepLimit = Math.max(1, stepLimit / 2);
+            }
+            next = current + direction * step;
+        } else if (latency < targetLatencyNanos / 2.0 && queued == 0) {
+            direction = 0;
+            step = 1;
+            next = current - 1;
+        } else {
+            next = current;
+        }
+        next = Math.max(minPoolSize, Math.min(maxPoolSize, next));
+        lastPoolSize = current;
+        lastThroughput = throughput;
+        return next;
+    }
+}
@@ -37,5 +37,7 @@ public class Main {
             });
         }
         System.out.println("主线程没有被阻塞");
+        // 不再提交任务，排队的任务执行完后线程退出，进程可以正常结束
+        myThreadPool.shutdown();
     }
 }
\ No newline at end of file
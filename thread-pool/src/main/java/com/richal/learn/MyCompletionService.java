@@ -0,0 +1,83 @@
+package com.richal.learn;
+
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按完成顺序取结果：通过它提交的任务结束时把自己的 Future 放进完成队列，
+ * take / poll 拿到的总是最先结束的那个，分发出去的一批请求可以先到先处理，不用按提交顺序逐个等待
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class MyCompletionService<V> implements CompletionService<V> {
+
+    private final MyThreadPool threadPool;
+
+    private final BlockingQueue<Future<V>> completionQueue;
+
+    public MyCompletionService(MyThreadPool threadPool) {
+        this(threadPool, new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * @param completionQueue 存放已结束任务的队列，应该是无界的，放不进去的结果会丢失
+     */
+    public MyCompletionService(MyThreadPool threadPool, BlockingQueue<Future<V>> completionQueue) {
+        this.threadPool = Objects.requireNonNull(threadPool);
+        this.completionQueue = Objects.requireNonNull(completionQueue);
+    }
+
+    @Override
+    public Future<V> submit(Callable<V> task) {
+        QueueingFuture future = new QueueingFuture(task);
+        threadPool.execute(future);
+        return future;
+    }
+
+    @Override
+    public Future<V> submit(Runnable task, V result) {
+        QueueingFuture future = new QueueingFuture(task, result);
+        threadPool.execute(future);
+        return future;
+    }
+
+    @Override
+    public Future<V> take() throws InterruptedException {
+        return completionQueue.take();
+    }
+
+    @Override
+    public Future<V> poll() {
+        return completionQueue.poll();
+    }
+
+    @Override
+    public Future<V> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return completionQueue.poll(timeout, unit);
+    }
+
+    /**
+     * 结束（包括被取消）时把自己放进完成队列
+     */
+    private final class QueueingFuture extends MyFutureTask<V> {
+
+        QueueingFuture(Callable<V> callable) {
+            super(callable);
+        }
+
+        QueueingFuture(Runnable runnable, V result) {
+            super(runnable, result);
+        }
+
+        @Override
+        protected void done() {
+            completionQueue.offer(this);
+        }
+    }
+}
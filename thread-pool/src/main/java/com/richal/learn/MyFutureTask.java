@@ -0,0 +1,313 @@
+package com.richal.learn;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 可以获取结果、可以取消的任务，{@link MyThreadPool#submit} 把它交给线程池执行后返回给调用方
+ *
+ * 状态只会从 NEW 单向转换：
+ * 1. NEW -> COMPLETING -> NORMAL / EXCEPTIONAL：任务正常返回或者抛出异常
+ * 2. NEW -> CANCELLED：cancel(false)
+ * 3. NEW -> INTERRUPTING -> INTERRUPTED：cancel(true)，中断正在执行任务的线程
+ *
+ * 等待结果的线程压入一个无锁栈后挂起，任务结束时一次性全部唤醒。
+ * 思路与 JDK 的 FutureTask 相同，每个任务只有自身一个对象，没有等待者时不额外分配
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class MyFutureTask<V> implements RunnableFuture<V> {
+
+    private static final int NEW = 0;
+    private static final int COMPLETING = 1;
+    private static final int NORMAL = 2;
+    private static final int EXCEPTIONAL = 3;
+    private static final int CANCELLED = 4;
+    private static final int INTERRUPTING = 5;
+    private static final int INTERRUPTED = 6;
+
+    private volatile int state;
+
+    /**
+     * 要执行的任务，结束后置空
+     */
+    private Callable<V> callable;
+
+    /**
+     * 任务的返回值或者抛出的异常，由之后对 state 的写发布
+     */
+    private Object outcome;
+
+    /**
+     * 正在执行任务的线程，CAS 成功的线程才能执行，防止同一个任务被执行两次
+     */
+    private volatile Thread runner;
+
+    /**
+     * 等待结果的线程组成的栈
+     */
+    private volatile WaitNode waiters;
+
+    public MyFutureTask(Callable<V> callable) {
+        this.callable = Objects.requireNonNull(callable);
+    }
+
+    /**
+     * @param result 任务正常结束时 get() 返回的值
+     */
+    public MyFutureTask(Runnable runnable, V result) {
+        Objects.requireNonNull(runnable);
+        this.callable = () -> {
+            runnable.run();
+            return result;
+        };
+    }
+
+    @Override
+    public void run() {
+        if (state != NEW || !RUNNER.compareAndSet(this, null, Thread.currentThread())) {
+            return;
+        }
+        try {
+            Callable<V> c = callable;
+            if (c != null && state == NEW) {
+                V result;
+                boolean ran;
+                try {
+                    result = c.call();
+                    ran = true;
+                } catch (Throwable ex) {
+                    result = null;
+                    ran = false;
+                    setException(ex);
+                }
+                if (ran) {
+                    set(result);
+                }
+            }
+        } finally {
+            runner = null;
+            // runner 置空之后再读 state：cancel(true) 如果已经开始，等它把中断发完
+            if (state >= INTERRUPTING) {
+                handleCancellationInterrupt();
+            }
+        }
+    }
+
+    /**
+     * 等待 cancel(true) 发出中断，再清除掉
+     * 中断是发给这个任务的，留着会让执行它的工作线程在下一次取任务时误以为自己被中断而退出
+     */
+    private void handleCancellationInterrupt() {
+        while (state == INTERRUPTING) {
+            Thread.yield();
+        }
+        Thread.interrupted();
+    }
+
+    protected void set(V v) {
+        if (STATE.compareAndSet(this, NEW, COMPLETING)) {
+            outcome = v;
+            STATE.setRelease(this, NORMAL);
+            finishCompletion();
+        }
+    }
+
+    protected void setException(Throwable t) {
+        if (STATE.compareAndSet(this, NEW, COMPLETING)) {
+            outcome = t;
+            STATE.setRelease(this, EXCEPTIONAL);
+            finishCompletion();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!(state == NEW && STATE.compareAndSet(this, NEW, mayInterruptIfRunning ? INTERRUPTING : CANCELLED))) {
+            return false;
+        }
+        if (mayInterruptIfRunning) {
+            try {
+                Thread t = runner;
+                if (t != null) {
+                    t.interrupt();
+                }
+            } finally {
+                STATE.setRelease(this, INTERRUPTED);
+            }
+        }
+        finishCompletion();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state >= CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state != NEW;
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        int s = state;
+        if (s <= COMPLETING) {
+            s = awaitDone(false, 0L);
+        }
+        return report(s);
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        Objects.requireNonNull(unit);
+        int s = state;
+        if (s <= COMPLETING && (s = awaitDone(true, unit.toNanos(timeout))) <= COMPLETING) {
+            throw new TimeoutException();
+        }
+        return report(s);
+    }
+
+    /**
+     * 任务进入结束状态、唤醒所有等待者之后调用，子类可以覆盖，例如把自己放进完成队列
+     */
+    protected void done() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private V report(int s) throws ExecutionException {
+        if (s == NORMAL) {
+            return (V) outcome;
+        }
+        if (s >= CANCELLED) {
+            throw new CancellationException();
+        }
+        throw new ExecutionException((Throwable) outcome);
+    }
+
+    /**
+     * 唤醒所有等待者
+     * 栈被整个取走之后才压入的等待者在挂起前会重新检查 state，不会错过
+     */
+    private void finishCompletion() {
+        WaitNode q = (WaitNode) WAITERS.getAndSet(this, null);
+        for (; q != null; q = q.next) {
+            Thread t = q.thread;
+            if (t != null) {
+                q.thread = null;
+                LockSupport.unpark(t);
+            }
+        }
+        done();
+        callable = null;
+    }
+
+    /**
+     * 等待任务结束
+     * @return 结束后的状态，超时时返回的状态仍然是 NEW 或者 COMPLETING
+     */
+    private int awaitDone(boolean timed, long nanos) throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        WaitNode q = null;
+        boolean queued = false;
+        for (;;) {
+            int s = state;
+            if (s > COMPLETING) {
+                if (q != null) {
+                    q.thread = null;
+                }
+                return s;
+            }
+            if (s == COMPLETING) {
+                // 结果马上就会写好，不值得挂起
+                Thread.yield();
+                continue;
+            }
+            if (Thread.interrupted()) {
+                removeWaiter(q);
+                throw new InterruptedException();
+            }
+            if (q == null) {
+                if (timed && nanos <= 0L) {
+                    return s;
+                }
+                q = new WaitNode();
+            } else if (!queued) {
+                q.next = waiters;
+                queued = WAITERS.compareAndSet(this, q.next, q);
+            } else if (timed) {
+                nanos = deadline - System.nanoTime();
+                if (nanos <= 0L) {
+                    removeWaiter(q);
+                    return state;
+                }
+                LockSupport.parkNanos(this, nanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * 超时或者被中断的等待者离开时，把 thread 已经置空的节点从栈中摘掉，避免反复超时的 get 让栈越来越长
+     */
+    private void removeWaiter(WaitNode node) {
+        if (node == null) {
+            return;
+        }
+        node.thread = null;
+        retry:
+        for (;;) {
+            WaitNode pred = null;
+            WaitNode q = waiters;
+            while (q != null) {
+                WaitNode next = q.next;
+                if (q.thread != null) {
+                    pred = q;
+                } else if (pred != null) {
+                    pred.next = next;
+                    // 前驱也刚好被摘掉了，从头再来
+                    if (pred.thread == null) {
+                        continue retry;
+                    }
+                } else if (!WAITERS.compareAndSet(this, q, next)) {
+                    continue retry;
+                }
+                q = next;
+            }
+            return;
+        }
+    }
+
+    static final class WaitNode {
+
+        volatile Thread thread = Thread.currentThread();
+
+        volatile WaitNode next;
+    }
+
+    private static final VarHandle STATE;
+    private static final VarHandle RUNNER;
+    private static final VarHandle WAITERS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATE = lookup.findVarHandle(MyFutureTask.class, "state", int.class);
+            RUNNER = lookup.findVarHandle(MyFutureTask.class, "runner", Thread.class);
+            WAITERS = lookup.findVarHandle(MyFutureTask.class, "waiters", WaitNode.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -1,19 +1,56 @@
 package com.richal.learn;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 自定义线程池
+ *
+ * 三种调度模式：
+ * 1. 共享队列（默认）：所有工作线程通过 take / poll 争抢同一个 workQueue
+ * 2. 工作窃取：每个工作线程有自己的 {@link WorkStealingDeque}。
+ *    工作线程内部提交的任务压入自己的队列，外部提交的任务仍然进入 workQueue，作为提交队列；
+ *    工作线程先取自己队列里的任务，再从提交队列批量取一批放进自己的队列，
+ *    都没有时从随机选取的其他线程的队列里偷，最后才挂起等待唤醒。
+ *    核心线程、非核心线程、队列容量和拒绝策略的语义与共享队列模式相同
+ * 3. 虚拟线程：通过 {@link #newVirtualThreadPool} 创建，每个任务在一个新的虚拟线程上执行，不复用线程。
+ *    用信号量限制同时执行的任务数，代替核心线程数和最大线程数；
+ *    拿不到许可的任务进入 workQueue 排队，队列满了执行拒绝策略。
+ *    适合大量阻塞在 I/O 上的任务，阻塞时虚拟线程让出载体线程，不占用平台线程
+ *
+ * 生命周期：RUNNING -> SHUTDOWN -> STOP -> TERMINATED，只能单向推进
+ * 1. shutdown：不再接受新任务，已经提交的任务（包括队列中的）照常执行完，只中断空闲的线程让它们退出
+ * 2. shutdownNow：不再接受新任务，取出队列中还没执行的任务返回给调用方，中断所有线程
+ * 3. 所有线程退出并且队列为空后进入 TERMINATED，awaitTermination 返回
+ * 运行状态和线程数打包在同一个 int（ctl）里，检查状态和增减线程数是同一次 CAS，不会出现状态已经改变却又加了线程的情况
  */
 public class MyThreadPool {
 
     // --- 线程池核心参数 ---
-    private final int corePoolSize;
-    private final int maximumPoolSize;
+    // 核心线程数和最大线程数可以在运行时调整，见 setCorePoolSize / setMaximumPoolSize
+    private volatile int corePoolSize;
+    private volatile int maximumPoolSize;
     private final long keepAliveTime;
     private final TimeUnit unit;
     public final BlockingQueue<Runnable> workQueue;
@@ -27,9 +64,95 @@ public class MyThreadPool {
     private final HashSet<Worker> workers = new HashSet<>();
 
     /**
-     * 原子地记录当前工作线程的数量
+     * 高 3 位是运行状态，低 29 位是工作线程数（虚拟线程模式下是正在运行的虚拟线程数）
      */
-    private final AtomicInteger workerCount = new AtomicInteger(0);
+    private final AtomicInteger ctl = new AtomicInteger(ctlOf(RUNNING, 0));
+
+    private static final int COUNT_BITS = Integer.SIZE - 3;
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+
+    // 运行状态按数值大小排序，可以直接比较先后
+    private static final int RUNNING = -1 << COUNT_BITS;
+    private static final int SHUTDOWN = 0;
+    private static final int STOP = 1 << COUNT_BITS;
+    private static final int TERMINATED = 2 << COUNT_BITS;
+
+    private static int runStateOf(int c) {
+        return c & ~COUNT_MASK;
+    }
+
+    private static int workerCountOf(int c) {
+        return c & COUNT_MASK;
+    }
+
+    private static int ctlOf(int runState, int workerCount) {
+        return runState | workerCount;
+    }
+
+    private static boolean isRunning(int c) {
+        return c < SHUTDOWN;
+    }
+
+    private static boolean runStateAtLeast(int c, int state) {
+        return c >= state;
+    }
+
+    private static boolean runStateLessThan(int c, int state) {
+        return c < state;
+    }
+
+    // --- 虚拟线程模式 ---
+    private final boolean virtualThreads;
+
+    /**
+     * 同时执行的任务数上限，每个运行中的虚拟线程持有一个许可
+     */
+    private final ResizableSemaphore permits;
+
+    /**
+     * 正在运行的虚拟线程，shutdownNow 时逐个中断
+     */
+    private final Set<Thread> runningVirtualThreads;
+
+    /**
+     * 已经退出的工作线程完成的任务数，在 workers 锁内累加；虚拟线程模式下每个任务结束时累加
+     */
+    private long completedTaskCount;
+    private final LongAdder completedVirtualTasks = new LongAdder();
+
+    // --- 工作窃取模式 ---
+    /**
+     * 从提交队列一次最多取出的任务数，多出来的放进自己的队列供其他线程窃取
+     */
+    static final int SUBMISSION_BATCH = 16;
+
+    /**
+     * 找不到任务时挂起前最多再扫描的次数
+     */
+    static final int SPINS_BEFORE_PARK = 32;
+
+    private final boolean workStealing;
+
+    /**
+     * 所有可以窃取的队列，写时复制，增删在 workers 锁内进行
+     * 工作线程退出时队列里还有任务的，队列会留在这里直到被偷空
+     */
+    private volatile WorkStealingDeque[] stealQueues = new WorkStealingDeque[0];
+
+    /**
+     * 挂起等待任务的工作线程
+     */
+    private final ConcurrentLinkedQueue<Worker> idleWorkers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 正在扫描各个队列找任务的工作线程数，大于 0 时提交任务不需要再唤醒别的线程
+     */
+    private final AtomicInteger searching = new AtomicInteger(0);
+
+    /**
+     * 当前线程对应的工作线程，外部线程为 null
+     */
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
 
     /**
      * 构造函数，用于初始化线程池
@@ -43,6 +166,15 @@ public class MyThreadPool {
      * @param threadFactory   线程工厂
      */
     public MyThreadPool(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, RejectHandle rejectHandle, ThreadFactory threadFactory) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, rejectHandle, threadFactory, false);
+    }
+
+    /**
+     * 构造函数，可以选择工作窃取模式
+     *
+     * @param workStealing    为 true 时使用工作窃取模式，workQueue 作为外部任务的提交队列
+     */
+    public MyThreadPool(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, RejectHandle rejectHandle, ThreadFactory threadFactory, boolean workStealing) {
         this.corePoolSize = corePoolSize;
         this.maximumPoolSize = maximumPoolSize;
         this.keepAliveTime = keepAliveTime;
@@ -50,6 +182,41 @@ public class MyThreadPool {
         this.workQueue = workQueue;
         this.rejectHandle = rejectHandle;
         this.threadFactory = threadFactory;
+        this.workStealing = workStealing;
+        this.virtualThreads = false;
+        this.permits = null;
+        this.runningVirtualThreads = null;
+    }
+
+    /**
+     * 虚拟线程模式的构造函数
+     */
+    private MyThreadPool(int maxConcurrency, BlockingQueue<Runnable> workQueue, RejectHandle rejectHandle) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("并发数上限必须大于 0: " + maxConcurrency);
+        }
+        this.corePoolSize = 0;
+        this.maximumPoolSize = maxConcurrency;
+        this.keepAliveTime = 0L;
+        this.unit = TimeUnit.NANOSECONDS;
+        this.workQueue = workQueue;
+        this.rejectHandle = rejectHandle;
+        this.threadFactory = Thread.ofVirtual().name("MyPool-Virtual-", 1).factory();
+        this.workStealing = false;
+        this.virtualThreads = true;
+        this.permits = new ResizableSemaphore(maxConcurrency);
+        this.runningVirtualThreads = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * 创建虚拟线程模式的线程池
+     *
+     * @param maxConcurrency 同时执行的任务数上限
+     * @param workQueue      超过上限的任务在这里排队
+     * @param rejectHandle   队列满了时的拒绝策略
+     */
+    public static MyThreadPool newVirtualThreadPool(int maxConcurrency, BlockingQueue<Runnable> workQueue, RejectHandle rejectHandle) {
+        return new MyThreadPool(maxConcurrency, workQueue, rejectHandle);
     }
 
     /**
@@ -61,29 +228,316 @@ public class MyThreadPool {
             throw new NullPointerException();
         }
 
+        if (virtualThreads) {
+            executeVirtual(command);
+            return;
+        }
+
+        int c = ctl.get();
         // 1. 如果当前线程数小于核心线程数，直接创建新线程执行任务。
-        if (workerCount.get() < corePoolSize) {
+        if (workerCountOf(c) < corePoolSize) {
             if (addWorker(command, true)) {
                 return;
             }
+            c = ctl.get();
         }
 
-        // 2. 尝试将任务添加到队列中。
-        if (workQueue.offer(command)) {
-            // 添加成功，不需要额外操作。工作线程会自动来取。
+        // 工作窃取模式下，工作线程内部提交的任务压入自己的队列，满了再走提交队列
+        // shutdown 之后仍然接受，保证正在执行的分治任务能完成
+        if (workStealing && runStateLessThan(c, STOP)) {
+            Worker worker = currentWorker.get();
+            if (worker != null && worker.deque.push(command)) {
+                if (runStateAtLeast(ctl.get(), STOP)) {
+                    // 期间 shutdownNow 已经取走了所有任务，自己取回来拒绝掉；被偷走了说明有线程会执行它
+                    if (worker.deque.pop() == command) {
+                        reject(command);
+                    }
+                } else {
+                    signalWork();
+                }
+                return;
+            }
+        }
+
+        // 2. 线程池还在运行时，尝试将任务添加到队列中。
+        if (isRunning(c) && workQueue.offer(command)) {
+            int recheck = ctl.get();
+            if (!isRunning(recheck) && workQueue.remove(command)) {
+                // 入队的同时线程池被关闭了，还没有被取走就撤回并拒绝
+                reject(command);
+            } else if (workerCountOf(recheck) == 0) {
+                // 核心线程数为 0 或者线程都退出了，补一个线程处理队列
+                addWorker(null, false);
+            } else if (workStealing) {
+                // 共享队列模式下工作线程会自动来取，工作窃取模式下需要唤醒挂起的线程
+                signalWork();
+            }
         } else {
             // 3. 如果队列已满，尝试创建非核心线程（“救急线程”）来执行任务。
             if (!addWorker(command, false)) {
-                // 4. 如果非核心线程也无法创建（达到最大线程数），则执行拒绝策略。
+                // 4. 如果非核心线程也无法创建（达到最大线程数）或者线程池已经关闭，则执行拒绝策略。
                 reject(command);
             }
         }
     }
 
+    /**
+     * 提交一个有返回值的任务
+     * @return 用于获取结果或者取消任务的 Future
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        MyFutureTask<T> future = new MyFutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    /**
+     * 提交一个任务，任务正常结束后 Future.get() 返回 null
+     */
+    public Future<?> submit(Runnable task) {
+        MyFutureTask<Void> future = new MyFutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    /**
+     * 提交一批任务并等待全部结束
+     * @return 与 tasks 迭代顺序相同的 Future 列表，每个都已经结束（正常返回、抛出异常或者被取消）
+     */
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        ArrayList<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(submit(task));
+            }
+            for (Future<T> future : futures) {
+                if (!future.isDone()) {
+                    try {
+                        future.get();
+                    } catch (CancellationException | ExecutionException ignore) {
+                        // 结果由调用方从 Future 中取
+                    }
+                }
+            }
+            return futures;
+        } catch (Throwable t) {
+            cancelAll(futures);
+            throw t;
+        }
+    }
+
+    /**
+     * 提交一批任务并等待全部结束，超时后取消还没有结束的任务
+     * @return 与 tasks 迭代顺序相同的 Future 列表，超时后没有结束的任务处于取消状态
+     */
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        ArrayList<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(new MyFutureTask<>(task));
+        }
+        try {
+            // 队列满时拒绝策略可能阻塞，提交本身也计入超时
+            for (Future<T> future : futures) {
+                if (System.nanoTime() - deadline >= 0) {
+                    cancelAll(futures);
+                    return futures;
+                }
+                execute((Runnable) future);
+            }
+            for (Future<T> future : futures) {
+                if (!future.isDone()) {
+                    try {
+                        future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    } catch (CancellationException | ExecutionException ignore) {
+                        // 结果由调用方从 Future 中取
+                    } catch (TimeoutException e) {
+                        cancelAll(futures);
+                        return futures;
+                    }
+                }
+            }
+            return futures;
+        } catch (Throwable t) {
+            cancelAll(futures);
+            throw t;
+        }
+    }
+
+    /**
+     * 提交一批任务，返回最先正常结束的那个任务的结果，其余任务被取消
+     * @throws ExecutionException 所有任务都抛出了异常
+     */
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        try {
+            return doInvokeAny(tasks, false, 0L);
+        } catch (TimeoutException cannotHappen) {
+            throw new IllegalStateException(cannotHappen);
+        }
+    }
+
+    /**
+     * 同上，超时前没有任何任务正常结束时抛出 TimeoutException
+     */
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return doInvokeAny(tasks, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * 任务逐个提交：前面的任务还没有结果时才提交下一个，先成功的任务可以省掉后面任务的执行
+     */
+    private <T> T doInvokeAny(Collection<? extends Callable<T>> tasks, boolean timed, long nanos)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        int remaining = tasks.size();
+        if (remaining == 0) {
+            throw new IllegalArgumentException("任务列表不能为空");
+        }
+        ArrayList<Future<T>> futures = new ArrayList<>(remaining);
+        MyCompletionService<T> completionService = new MyCompletionService<>(this);
+        try {
+            long deadline = timed ? System.nanoTime() + nanos : 0L;
+            Iterator<? extends Callable<T>> it = tasks.iterator();
+            futures.add(completionService.submit(it.next()));
+            remaining--;
+            int active = 1;
+            ExecutionException failure = null;
+            for (;;) {
+                Future<T> future = completionService.poll();
+                if (future == null) {
+                    if (remaining > 0) {
+                        futures.add(completionService.submit(it.next()));
+                        remaining--;
+                        active++;
+                        continue;
+                    }
+                    if (active == 0) {
+                        break;
+                    }
+                    if (timed) {
+                        future = completionService.poll(nanos, TimeUnit.NANOSECONDS);
+                        if (future == null) {
+                            throw new TimeoutException();
+                        }
+                        nanos = deadline - System.nanoTime();
+                    } else {
+                        future = completionService.take();
+                    }
+                }
+                active--;
+                try {
+                    return future.get();
+                } catch (ExecutionException e) {
+                    failure = e;
+                } catch (CancellationException e) {
+                    failure = new ExecutionException(e);
+                }
+            }
+            // 每个提交的任务都已经结束并且失败，failure 一定不为 null
+            throw failure;
+        } finally {
+            cancelAll(futures);
+        }
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
     private void reject(Runnable command) {
         rejectHandle.reject(command, this);
     }
 
+    /**
+     * 虚拟线程模式下提交任务
+     */
+    private void executeVirtual(Runnable command) {
+        // 1. 没有达到并发上限，直接开一个虚拟线程执行
+        if (permits.tryAcquire()) {
+            if (!startVirtual(command, false)) {
+                // 线程池已经关闭
+                reject(command);
+            }
+            return;
+        }
+        // 2. 达到上限，进入队列排队
+        if (isRunning(ctl.get()) && workQueue.offer(command)) {
+            if (!isRunning(ctl.get()) && workQueue.remove(command)) {
+                reject(command);
+                return;
+            }
+            // 入队的同时运行中的任务可能已经全部结束、归还了许可，没有人再来取这个任务，需要自己检查一次
+            dispatchQueued();
+            return;
+        }
+        // 3. 队列也满了或者线程池已经关闭，执行拒绝策略
+        reject(command);
+    }
+
+    /**
+     * 调用方已经拿到一个许可，开一个虚拟线程执行任务，任务结束后归还许可
+     * @param fromQueue 从队列中取出的任务在 shutdown 之后仍然要执行，新提交的任务只在 RUNNING 状态下执行
+     * @return 线程池已经关闭、没有开线程时返回 false，许可已经归还
+     */
+    private boolean startVirtual(Runnable task, boolean fromQueue) {
+        for (;;) {
+            int c = ctl.get();
+            if (!fromQueue && !isRunning(c)) {
+                permits.release();
+                return false;
+            }
+            if (ctl.compareAndSet(c, c + 1)) {
+                break;
+            }
+        }
+        try {
+            threadFactory.newThread(() -> runVirtual(task)).start();
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            ctl.decrementAndGet();
+            tryTerminate();
+            throw e;
+        }
+        return true;
+    }
+
+    private void runVirtual(Runnable task) {
+        Thread current = Thread.currentThread();
+        runningVirtualThreads.add(current);
+        try {
+            // 登记之后再检查状态：shutdownNow 要么在遍历时看到这个线程，要么这里看到 STOP
+            if (runStateAtLeast(ctl.get(), STOP)) {
+                current.interrupt();
+            }
+            task.run();
+        } finally {
+            runningVirtualThreads.remove(current);
+            completedVirtualTasks.increment();
+            permits.release();
+            // 先把排队的任务交出去再减少计数，避免队列里还有任务时计数降到 0
+            dispatchQueued();
+            ctl.decrementAndGet();
+            tryTerminate();
+        }
+    }
+
+    /**
+     * 队列里有任务并且拿得到许可时，取出任务交给新的虚拟线程
+     */
+    private void dispatchQueued() {
+        while (runStateLessThan(ctl.get(), STOP) && !workQueue.isEmpty() && permits.tryAcquire()) {
+            Runnable task = workQueue.poll();
+            if (task == null) {
+                // 被别人取走了，归还许可后重新检查
+                permits.release();
+                continue;
+            }
+            startVirtual(task, true);
+        }
+    }
+
     /**
      * 添加一个新的工作线程
      * @param firstTask 这个新线程的第一个任务，可以为null
@@ -92,53 +546,621 @@ public class MyThreadPool {
      */
     private boolean addWorker(Runnable firstTask, boolean core) {
         for (;;) {
-            int count = workerCount.get();
+            int c = ctl.get();
+            // shutdown 之后只为处理队列中剩下的任务补充不带任务的线程，STOP 之后不再创建
+            if (runStateAtLeast(c, SHUTDOWN)
+                    && (runStateAtLeast(c, STOP) || firstTask != null || !hasQueuedTasks())) {
+                return false;
+            }
             int cap = core ? corePoolSize : maximumPoolSize;
-            if (count >= cap) {
+            if (workerCountOf(c) >= cap) {
                 return false;
             }
-            // 使用CAS原子地增加线程计数
-            if (workerCount.compareAndSet(count, count + 1)) {
-                Worker worker = new Worker(firstTask);
-                Thread t = threadFactory.newThread(worker);
-                // 加锁以安全地将工作线程添加到集合中
-                synchronized (workers) {
-                    workers.add(worker);
-                }
-                t.start();
-                return true;
+            // 使用CAS原子地增加线程计数，状态在这期间改变时 CAS 失败，重新检查
+            if (ctl.compareAndSet(c, c + 1)) {
+                break;
             }
         }
+        Worker worker = new Worker(firstTask);
+        Thread t = threadFactory.newThread(worker);
+        worker.thread = t;
+        // 加锁以安全地将工作线程添加到集合中，与 shutdown / shutdownNow 互斥
+        synchronized (workers) {
+            int c = ctl.get();
+            if (runStateAtLeast(c, STOP) || (runStateAtLeast(c, SHUTDOWN) && firstTask != null)) {
+                ctl.decrementAndGet();
+                tryTerminate();
+                return false;
+            }
+            workers.add(worker);
+            if (workStealing) {
+                WorkStealingDeque[] queues = stealQueues;
+                WorkStealingDeque[] newQueues = Arrays.copyOf(queues, queues.length + 1);
+                newQueues[queues.length] = worker.deque;
+                stealQueues = newQueues;
+            }
+        }
+        t.start();
+        return true;
     }
 
     /**
      * 工作线程退出时的清理工作
+     * @param completedAbruptly 任务抛出异常导致线程退出
      */
-    private void processWorkerExit(Worker worker) {
+    private void processWorkerExit(Worker worker, boolean completedAbruptly) {
+        // 正常退出时 getTask 已经减过线程数，任务抛出异常退出时在这里减
+        if (completedAbruptly) {
+            ctl.decrementAndGet();
+        }
         // 加锁以安全地移除
         synchronized (workers) {
+            completedTaskCount += worker.completedTasks.get();
             workers.remove(worker);
+            // 队列里还有任务（例如任务抛出异常导致线程退出）时先留着，由其他线程偷空后再移除
+            if (workStealing) {
+                worker.deque.abandoned = true;
+                if (worker.deque.isEmpty()) {
+                    removeStealQueue(worker.deque);
+                }
+            }
+        }
+        if (workStealing && !worker.deque.isEmpty()) {
+            signalWork();
+        }
+        tryTerminate();
+
+        int c = ctl.get();
+        if (runStateLessThan(c, STOP)) {
+            if (!completedAbruptly) {
+                // 正常退出（空闲超时或者 shutdown 后没有任务了）：剩下的线程够用就不补
+                int min = corePoolSize;
+                if (min == 0 && hasQueuedTasks()) {
+                    min = 1;
+                }
+                if (workerCountOf(c) >= min) {
+                    return;
+                }
+            }
+            // 因为任务异常退出或者线程数不够，补一个线程，保证队列中的任务有人执行
+            addWorker(null, false);
         }
-        workerCount.decrementAndGet();
     }
 
     /**
-     * 从任务队列中获取任务
+     * 队列中是否还有没执行的任务，工作窃取模式下包括各个线程自己的队列
+     */
+    private boolean hasQueuedTasks() {
+        if (!workQueue.isEmpty()) {
+            return true;
+        }
+        if (workStealing) {
+            for (WorkStealingDeque deque : stealQueues) {
+                if (!deque.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 满足条件时进入 TERMINATED：SHUTDOWN 并且队列为空，或者 STOP，同时所有线程都已经退出
+     * 线程还没退完时叫醒一个空闲线程，它退出时会再调用这里，把退出的信号一个个传下去
+     */
+    private void tryTerminate() {
+        for (;;) {
+            int c = ctl.get();
+            if (isRunning(c) || runStateAtLeast(c, TERMINATED)
+                    || (runStateLessThan(c, STOP) && hasQueuedTasks())) {
+                return;
+            }
+            if (workerCountOf(c) != 0) {
+                interruptIdleWorkers(true);
+                return;
+            }
+            synchronized (workers) {
+                if (ctl.compareAndSet(c, ctlOf(TERMINATED, 0))) {
+                    workers.notifyAll();
+                    return;
+                }
+            }
+            // CAS 失败说明状态被别的线程推进了，重新检查
+        }
+    }
+
+    /**
+     * 把运行状态推进到 targetState，已经达到或者超过时不变
+     */
+    private void advanceRunState(int targetState) {
+        for (;;) {
+            int c = ctl.get();
+            if (runStateAtLeast(c, targetState)
+                    || ctl.compareAndSet(c, ctlOf(targetState, workerCountOf(c)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 中断没有在执行任务的线程，它们醒来后重新检查状态，决定继续取任务还是退出
+     * 正在执行任务的线程持有 runLock，拿不到的不中断，正在执行的任务不受影响
+     * @param onlyOne 只中断一个，用于在线程之间传递退出信号
+     */
+    private void interruptIdleWorkers(boolean onlyOne) {
+        synchronized (workers) {
+            for (Worker worker : workers) {
+                Thread t = worker.thread;
+                if (!t.isInterrupted() && worker.tryLock()) {
+                    try {
+                        t.interrupt();
+                    } finally {
+                        worker.unlock();
+                    }
+                }
+                if (onlyOne) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭线程池：不再接受新任务，已经提交的任务（包括队列中排队的）会执行完
+     * 只中断空闲的线程，正在执行的任务不会被中断。不等待任务执行完，需要等待时调用 awaitTermination
+     */
+    public void shutdown() {
+        synchronized (workers) {
+            advanceRunState(SHUTDOWN);
+            interruptIdleWorkers(false);
+        }
+        tryTerminate();
+    }
+
+    /**
+     * 立即关闭线程池：不再接受新任务，取出所有还没开始执行的任务，中断所有线程
+     * 正在执行的任务能否停下来取决于它是否响应中断
+     * @return 还没开始执行的任务
+     */
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks;
+        synchronized (workers) {
+            advanceRunState(STOP);
+            for (Worker worker : workers) {
+                worker.thread.interrupt();
+            }
+            if (virtualThreads) {
+                for (Thread t : runningVirtualThreads) {
+                    t.interrupt();
+                }
+            }
+            tasks = drainQueue();
+        }
+        tryTerminate();
+        return tasks;
+    }
+
+    /**
+     * 取出队列中的所有任务，工作窃取模式下包括各个线程自己的队列
+     */
+    private List<Runnable> drainQueue() {
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        workQueue.drainTo(tasks);
+        if (workStealing) {
+            for (WorkStealingDeque deque : stealQueues) {
+                // steal 在竞争失败时也返回 null，以 isEmpty 为准
+                while (!deque.isEmpty()) {
+                    Runnable task = deque.steal();
+                    if (task != null) {
+                        tasks.add(task);
+                    }
+                }
+            }
+        }
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return !isRunning(ctl.get());
+    }
+
+    public boolean isTerminated() {
+        return runStateAtLeast(ctl.get(), TERMINATED);
+    }
+
+    /**
+     * 等待线程池进入 TERMINATED，一般在 shutdown / shutdownNow 之后调用
+     * @return 超时之前已经终止返回 true
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        synchronized (workers) {
+            while (runStateLessThan(ctl.get(), TERMINATED)) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                long start = System.nanoTime();
+                TimeUnit.NANOSECONDS.timedWait(workers, nanos);
+                nanos -= System.nanoTime() - start;
+            }
+            return true;
+        }
+    }
+
+    // --- 运行时调整 ---
+
+    /**
+     * 调整核心线程数
+     * 调大时如果队列里有任务，立即补充线程处理；调小时中断空闲线程，多出来的线程变成非核心线程，空闲超时后退出
+     */
+    public void setCorePoolSize(int corePoolSize) {
+        if (virtualThreads) {
+            throw new IllegalStateException("虚拟线程模式没有核心线程，用 setMaximumPoolSize 调整并发数上限");
+        }
+        if (corePoolSize < 0 || corePoolSize > maximumPoolSize) {
+            throw new IllegalArgumentException("核心线程数必须在 0 到最大线程数之间: " + corePoolSize);
+        }
+        int delta = corePoolSize - this.corePoolSize;
+        this.corePoolSize = corePoolSize;
+        if (workerCountOf(ctl.get()) > corePoolSize) {
+            interruptIdleWorkers(false);
+        } else if (delta > 0) {
+            // 不知道到底需要多少个，按队列长度补，队列取空了就停
+            // 工作窃取模式下新线程会把提交队列批量搬进自己的队列，要把各个线程的队列也算上
+            int k = Math.min(delta, getQueueSize());
+            while (k-- > 0 && addWorker(null, true)) {
+                if (!hasQueuedTasks()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 调整最大线程数，虚拟线程模式下调整同时执行的任务数上限
+     * 调小时中断空闲线程，多出来的线程在执行完手上的任务后退出，不会中断正在执行的任务
+     */
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        if (maximumPoolSize <= 0 || (!virtualThreads && maximumPoolSize < corePoolSize)) {
+            throw new IllegalArgumentException("最大线程数必须大于 0 并且不小于核心线程数: " + maximumPoolSize);
+        }
+        if (virtualThreads) {
+            synchronized (permits) {
+                int delta = maximumPoolSize - this.maximumPoolSize;
+                this.maximumPoolSize = maximumPoolSize;
+                if (delta > 0) {
+                    permits.release(delta);
+                    dispatchQueued();
+                } else {
+                    // 许可可能暂时变成负数，正在执行的任务归还许可后才恢复
+                    permits.reducePermits(-delta);
+                }
+            }
+            return;
+        }
+        this.maximumPoolSize = maximumPoolSize;
+        if (workerCountOf(ctl.get()) > maximumPoolSize) {
+            interruptIdleWorkers(false);
+        }
+    }
+
+    /**
+     * 把核心线程数和最大线程数都调整为 size，固定大小；虚拟线程模式下调整并发数上限
+     * 调大时先调最大线程数，调小时先调核心线程数，保证中间状态合法
+     */
+    void resize(int size) {
+        if (virtualThreads) {
+            setMaximumPoolSize(size);
+        } else if (size > maximumPoolSize) {
+            setMaximumPoolSize(size);
+            setCorePoolSize(size);
+        } else {
+            setCorePoolSize(size);
+            setMaximumPoolSize(size);
+        }
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    /**
+     * 当前的线程数，虚拟线程模式下是正在运行的虚拟线程数
+     */
+    public int getPoolSize() {
+        return workerCountOf(ctl.get());
+    }
+
+    /**
+     * 正在执行任务的线程数，估计值
+     */
+    public int getActiveCount() {
+        if (virtualThreads) {
+            return workerCountOf(ctl.get());
+        }
+        int n = 0;
+        synchronized (workers) {
+            for (Worker worker : workers) {
+                if (worker.runLock.get() == 1) {
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 排队等待执行的任务数，工作窃取模式下包括各个线程自己的队列，估计值
+     */
+    public int getQueueSize() {
+        int n = workQueue.size();
+        if (workStealing) {
+            for (WorkStealingDeque deque : stealQueues) {
+                n += deque.size();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 已经执行完的任务数，估计值
+     */
+    public long getCompletedTaskCount() {
+        if (virtualThreads) {
+            return completedVirtualTasks.sum();
+        }
+        synchronized (workers) {
+            long n = completedTaskCount;
+            for (Worker worker : workers) {
+                n += worker.completedTasks.get();
+            }
+            return n;
+        }
+    }
+
+    /**
+     * 从可窃取的队列中移除，调用方持有 workers 锁
+     */
+    private void removeStealQueue(WorkStealingDeque deque) {
+        WorkStealingDeque[] queues = stealQueues;
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i] == deque) {
+                WorkStealingDeque[] newQueues = new WorkStealingDeque[queues.length - 1];
+                System.arraycopy(queues, 0, newQueues, 0, i);
+                System.arraycopy(queues, i + 1, newQueues, i, queues.length - i - 1);
+                stealQueues = newQueues;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 有新任务时唤醒一个挂起的工作线程
+     * 有线程正在扫描时不唤醒：扫描线程在减少 searching 之后还会再扫描一遍，一定能看到这个任务
+     */
+    private void signalWork() {
+        signalWork(null);
+    }
+
+    /**
+     * 同上，调用方是正在扫描的工作线程时不把它自己算在内，否则它找到的多余任务不会再唤醒别的线程
+     */
+    private void signalWork(Worker self) {
+        int others = searching.get() - (self != null && self.searching ? 1 : 0);
+        if (others > 0) {
+            return;
+        }
+        Worker idle = idleWorkers.poll();
+        if (idle != null) {
+            LockSupport.unpark(idle.thread);
+        }
+    }
+
+    /**
+     * 工作窃取模式下不阻塞地查找任务：自己的队列、提交队列、其他线程的队列
      */
-    private Runnable getTask() {
-        // 当线程数超过核心线程数时，需要进行超时控制
-        boolean timed = workerCount.get() > corePoolSize;
+    private Runnable scan(Worker worker) {
+        Runnable task = worker.deque.pop();
+        if (task != null) {
+            return task;
+        }
+        // 从提交队列批量取任务，只加一次锁，第一个自己执行，其余放进自己的队列
+        if (!workQueue.isEmpty()) {
+            worker.batch.clear();
+            if (workQueue.drainTo(worker.batch, SUBMISSION_BATCH) > 0) {
+                task = worker.batch.get(0);
+                for (int i = 1; i < worker.batch.size(); i++) {
+                    worker.deque.push(worker.batch.get(i));
+                }
+                worker.batch.clear();
+                if (!worker.deque.isEmpty()) {
+                    signalWork(worker);
+                }
+                return task;
+            }
+        }
+        // 从随机位置开始把其他线程的队列都试一遍
+        WorkStealingDeque[] queues = stealQueues;
+        int n = queues.length;
+        if (n > 0) {
+            int start = ThreadLocalRandom.current().nextInt(n);
+            for (int i = 0; i < n; i++) {
+                WorkStealingDeque victim = queues[(start + i) % n];
+                if (victim != worker.deque && (task = victim.steal()) != null) {
+                    // 对方还有任务时再叫醒一个线程来帮忙
+                    if (!victim.isEmpty()) {
+                        signalWork(worker);
+                    }
+                    return task;
+                }
+                if (victim.abandoned && victim.isEmpty()) {
+                    synchronized (workers) {
+                        removeStealQueue(victim);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 工作窃取模式下获取任务：找不到时登记为空闲并挂起，等待提交任务的线程唤醒
+     * 非核心线程挂起超过 keepAliveTime 仍然没有任务时返回 null，使其退出
+     */
+    private Runnable getStealingTask(Worker worker) {
+        if (runStateAtLeast(ctl.get(), STOP)) {
+            ctl.decrementAndGet();
+            return null;
+        }
+        // 快速路径：自己的队列里有任务时不碰其他线程的状态，也不释放 runLock
+        Runnable task = worker.deque.pop();
+        if (task != null) {
+            return task;
+        }
+        // 开始找任务、可能挂起，这段时间算空闲，允许 shutdown 中断
+        worker.unlock();
         try {
+            return awaitStealingTask(worker);
+        } finally {
+            worker.lock();
+        }
+    }
+
+    /**
+     * 自己的队列为空时扫描其他队列，找不到时挂起
+     * 返回 null 之前已经减少了线程数
+     */
+    private Runnable awaitStealingTask(Worker worker) {
+        Runnable task;
+        long deadline = 0L;
+        for (;;) {
+            // 最大线程数被调小了，多出来的线程退出；自己的队列已经空了，不会留下任务
+            int c = ctl.get();
+            if (workerCountOf(c) > maximumPoolSize && ctl.compareAndSet(c, c - 1)) {
+                return null;
+            }
+            worker.searching = true;
+            searching.incrementAndGet();
+            task = scan(worker);
+            // 挂起和唤醒都要进内核，先让出几次 CPU 再扫描，短暂的空档不挂起
+            for (int spins = 0; task == null && spins < SPINS_BEFORE_PARK; spins++) {
+                Thread.yield();
+                task = scan(worker);
+            }
+            worker.searching = false;
+            if (task != null) {
+                searching.decrementAndGet();
+                return task;
+            }
+            // 先登记为空闲、退出扫描状态，再扫描一遍，避免这期间提交的任务没有人唤醒
+            idleWorkers.add(worker);
+            searching.decrementAndGet();
+            task = scan(worker);
+            if (task != null) {
+                // 已经被别的线程从空闲队列中取出并唤醒，把这次唤醒转交给其他空闲线程
+                if (!idleWorkers.remove(worker)) {
+                    signalWork();
+                }
+                return task;
+            }
+            // shutdown 之后所有队列都找不到任务就退出，其他线程还在执行的任务压入的子任务由它们自己取
+            if (runStateAtLeast(ctl.get(), SHUTDOWN)) {
+                if (!idleWorkers.remove(worker)) {
+                    signalWork();
+                }
+                ctl.decrementAndGet();
+                return null;
+            }
+            boolean timed = workerCountOf(ctl.get()) > corePoolSize;
             if (timed) {
-                // 非核心线程或多余的线程，在指定时间内获取不到任务则返回null，使其退出
-                return workQueue.poll(keepAliveTime, unit);
+                if (deadline == 0L) {
+                    deadline = System.nanoTime() + unit.toNanos(keepAliveTime);
+                }
+                LockSupport.parkNanos(this, deadline - System.nanoTime());
             } else {
-                // 核心线程，无限期阻塞等待任务
-                return workQueue.take();
+                LockSupport.park(this);
+            }
+            idleWorkers.remove(worker);
+            // 中断是 shutdown / shutdownNow 发出的，清除后重新检查状态
+            Thread.interrupted();
+            c = ctl.get();
+            if (runStateAtLeast(c, STOP)) {
+                ctl.decrementAndGet();
+                return null;
+            }
+            // 非核心线程超时；CAS 失败说明线程数变了，重新判断
+            if (timed && System.nanoTime() - deadline >= 0) {
+                if (workerCountOf(c) > corePoolSize && ctl.compareAndSet(c, c - 1)) {
+                    return null;
+                }
+                deadline = 0L;
+            }
+        }
+    }
+
+    /**
+     * 从任务队列中获取任务
+     */
+    private Runnable getTask(Worker worker) {
+        boolean timedOut = false;
+        for (;;) {
+            int c = ctl.get();
+            // shutdown 之后队列空了就退出，STOP 之后立即退出
+            if (runStateAtLeast(c, SHUTDOWN) && (runStateAtLeast(c, STOP) || workQueue.isEmpty())) {
+                ctl.decrementAndGet();
+                return null;
+            }
+            int wc = workerCountOf(c);
+            // 当线程数超过核心线程数时，需要进行超时控制
+            boolean timed = wc > corePoolSize;
+            // 最大线程数被调小了，或者非核心线程空闲超时，退出；队列里还有任务时至少留一个线程
+            // 用 CAS 减少线程数，多个线程同时判断时只有减得下去的那些退出，不会减到目标以下
+            if ((wc > maximumPoolSize || (timed && timedOut)) && (wc > 1 || workQueue.isEmpty())) {
+                if (ctl.compareAndSet(c, c - 1)) {
+                    return null;
+                }
+                continue;
+            }
+            // 队列里有任务时直接取走，不释放 runLock
+            Runnable task = workQueue.poll();
+            if (task != null) {
+                return task;
+            }
+            // 阻塞等待期间算空闲，允许 shutdown 中断
+            worker.unlock();
+            try {
+                // 非核心线程或多余的线程，在指定时间内获取不到任务就超时；核心线程无限期阻塞等待任务
+                task = timed ? workQueue.poll(keepAliveTime, unit) : workQueue.take();
+                if (task != null) {
+                    return task;
+                }
+                timedOut = true;
+            } catch (InterruptedException e) {
+                // 中断是 shutdown / shutdownNow 或者调整线程数发出的，回到开头重新检查状态
+                timedOut = false;
+            } finally {
+                worker.lock();
             }
-        } catch (InterruptedException e) {
-            // 线程被中断，也应该退出
-            return null;
+        }
+    }
+
+    /**
+     * 可以减少许可的信号量，用于运行时调小虚拟线程模式的并发数上限
+     */
+    @SuppressWarnings("serial")
+    private static final class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
         }
     }
 
@@ -148,6 +1170,53 @@ public class MyThreadPool {
     private final class Worker implements Runnable {
         private Runnable firstTask;
 
+        /**
+         * 执行这个 Worker 的线程，用于唤醒
+         */
+        private Thread thread;
+
+        /**
+         * 工作窃取模式下自己的任务队列
+         */
+        private final WorkStealingDeque deque = workStealing ? new WorkStealingDeque() : null;
+
+        /**
+         * 从提交队列批量取任务时复用的列表
+         */
+        private final ArrayList<Runnable> batch = workStealing ? new ArrayList<>(SUBMISSION_BATCH) : null;
+
+        /**
+         * 是否计入 searching，只有自己的线程读写
+         */
+        private boolean searching;
+
+        /**
+         * 忙碌时为 1，阻塞等待或者扫描任务期间为 0，shutdown 只中断能把它从 0 改成 1 的线程
+         * 连续取到任务时一直持有，只在可能阻塞之前释放，执行任务本身不需要额外的原子操作
+         * 不可重入，任务里调用 shutdown 时不会中断自己；初始为 -1，线程开始运行之前也不会被中断
+         * 只有 shutdown 会与自己的线程竞争，而且只持有一瞬间，用 CAS 自旋比完整的锁开销小
+         */
+        private final AtomicInteger runLock = new AtomicInteger(-1);
+
+        /**
+         * 这个线程完成的任务数，只有自己的线程写，用 lazySet 避免每个任务一次内存屏障
+         */
+        private final AtomicLong completedTasks = new AtomicLong();
+
+        void lock() {
+            while (!runLock.compareAndSet(0, 1)) {
+                Thread.onSpinWait();
+            }
+        }
+
+        boolean tryLock() {
+            return runLock.compareAndSet(0, 1);
+        }
+
+        void unlock() {
+            runLock.set(0);
+        }
+
         Worker(Runnable firstTask) {
             this.firstTask = firstTask;
         }
@@ -156,19 +1225,34 @@ public class MyThreadPool {
         public void run() {
             Runnable task = this.firstTask;
             this.firstTask = null; // 释放引用，帮助GC
+            if (workStealing) {
+                currentWorker.set(this);
+            }
+            // 线程开始运行，此后只有取任务时可能阻塞的那段时间处于空闲状态
+            runLock.set(1);
 
+            boolean completedAbruptly = true;
             try {
                 // 循环地从队列中获取并执行任务
-                while (task != null || (task = getTask()) != null) {
+                while (task != null || (task = workStealing ? getStealingTask(this) : getTask(this)) != null) {
+                    // STOP 之后保证线程处于中断状态；否则清除 shutdown 留下的中断，不影响要执行的任务
+                    // 清除之后再检查一次，防止清掉的正是 shutdownNow 发出的中断
+                    if ((runStateAtLeast(ctl.get(), STOP)
+                            || (Thread.interrupted() && runStateAtLeast(ctl.get(), STOP)))
+                            && !thread.isInterrupted()) {
+                        thread.interrupt();
+                    }
                     try {
                         task.run();
                     } finally {
                         task = null; // 完成一个任务后，清空任务引用
+                        completedTasks.lazySet(completedTasks.get() + 1);
                     }
                 }
+                completedAbruptly = false;
             } finally {
                 // 当getTask()返回null时，线程会退出循环并执行这里的清理工作
-                processWorkerExit(this);
+                processWorkerExit(this, completedAbruptly);
             }
         }
     }
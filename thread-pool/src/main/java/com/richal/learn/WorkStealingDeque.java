@@ -0,0 +1,118 @@
+package com.richal.learn;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 工作窃取模式下每个工作线程自己的任务双端队列，容量固定
+ *
+ * 只有所属线程调用 push / pop，在 top 一端后进先出，刚提交的子任务还在缓存里；
+ * 其他线程调用 steal，从 base 一端先进先出地偷走最早的任务。
+ * 两端同时争抢同一个任务时，以对数组槽位的 CAS（任务 -> null）为准，谁成功谁拿走
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+final class WorkStealingDeque {
+
+    /**
+     * 默认容量，必须是 2 的幂
+     */
+    static final int DEFAULT_CAPACITY = 1 << 13;
+
+    private final AtomicReferenceArray<Runnable> array;
+
+    private final int mask;
+
+    /**
+     * 下一个 push 的位置，只有所属线程修改
+     */
+    private volatile int top;
+
+    /**
+     * 下一个被偷的位置，只有 CAS 槽位成功的窃取者修改
+     */
+    private volatile int base;
+
+    /**
+     * 所属线程已经退出，队列被偷空后从线程池中移除
+     */
+    volatile boolean abandoned;
+
+    WorkStealingDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    WorkStealingDeque(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("容量必须是 2 的幂: " + capacity);
+        }
+        this.array = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 所属线程在 top 一端压入任务
+     * @return 队列已满时返回 false
+     */
+    boolean push(Runnable task) {
+        int s = top;
+        if (s - base > mask) {
+            return false;
+        }
+        array.lazySet(s & mask, task);
+        // volatile 写，把任务发布给窃取者
+        top = s + 1;
+        return true;
+    }
+
+    /**
+     * 所属线程从 top 一端取出最近压入的任务
+     * @return 队列为空或者最后一个任务被偷走时返回 null
+     */
+    Runnable pop() {
+        int s;
+        while ((s = top - 1) - base >= 0) {
+            int j = s & mask;
+            Runnable task = array.get(j);
+            if (task == null) {
+                return null;
+            }
+            if (array.compareAndSet(j, task, null)) {
+                top = s;
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 其他线程从 base 一端偷走最早的任务
+     * @return 队列为空或者与其他线程竞争失败时返回 null，调用方可以换一个队列再试
+     */
+    Runnable steal() {
+        int b = base;
+        if (b - top >= 0) {
+            return null;
+        }
+        int j = b & mask;
+        Runnable task = array.get(j);
+        // 再读一次 base，确认读到的槽位没有被别人偷走后又被所属线程重新填上
+        if (task != null && base == b && array.compareAndSet(j, task, null)) {
+            base = b + 1;
+            return task;
+        }
+        return null;
+    }
+
+    boolean isEmpty() {
+        return top - base <= 0;
+    }
+
+    /**
+     * 队列中任务数量的估计值
+     */
+    int size() {
+        int n = top - base;
+        return Math.max(n, 0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdaptivePoolController 测试类
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class AdaptivePoolControllerTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static AdaptivePoolController newController(int min, int max) {
+        MyThreadPool pool = new MyThreadPool(min, min, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle(), Thread::new);
+        return new AdaptivePoolController(pool, min, max, TARGET, TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 持续过载（延迟一直超过目标）时按给定的吞吐量曲线爬山，返回每一步的线程数
+     */
+    private static int[] climb(AdaptivePoolController controller, int start, int steps, IntToDoubleFunction throughput) {
+        int[] sizes = new int[steps];
+        int size = start;
+        for (int i = 0; i < steps; i++) {
+            size = controller.decide(size, throughput.applyAsDouble(size), Double.POSITIVE_INFINITY, 100);
+            sizes[i] = size;
+        }
+        return sizes;
+    }
+
+    @Test
+    @DisplayName("测试爬山 - 收敛到吞吐量最高的线程数附近")
+    public void testConvergeToPeak() {
+        AdaptivePoolController controller = newController(1, 32);
+        // 8 个线程时吞吐量最高，再多线程之间争用，吞吐量反而下降
+        int[] sizes = climb(controller, 2, 40, n -> n <= 8 ? n : 8 - 0.5 * (n - 8));
+        for (int i = 30; i < sizes.length; i++) {
+            assertTrue(sizes[i] >= 7 && sizes[i] <= 9, "第 " + i + " 步的线程数应该在峰值附近: " + sizes[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("测试爬山 - 不超过上限，空闲后逐步收缩到下限")
+    public void testBounds() {
+        AdaptivePoolController controller = newController(2, 10);
+        // 吞吐量随线程数一直增长，会一直涨到上限
+        int[] sizes = climb(controller, 2, 20, n -> n);
+        for (int size : sizes) {
+            assertTrue(size <= 10, "线程数不应该超过上限: " + size);
+        }
+        assertEquals(10, sizes[sizes.length - 1]);
+
+        // 延迟在目标的一半到目标之间，保持不变
+        assertEquals(10, controller.decide(10, 10, TARGET * 0.75, 0));
+        // 有任务排队时不收缩
+        assertEquals(10, controller.decide(10, 10, 0, 5));
+
+        int size = 10;
+        for (int i = 0; i < 20; i++) {
+            size = controller.decide(size, 1, 0, 0);
+        }
+        assertEquals(2, size, "空闲时应该收缩到下限");
+
+        // 负载重新升高，从当前大小开始往上爬
+        assertEquals(3, controller.decide(2, 1, Double.POSITIVE_INFINITY, 100));
+    }
+
+    @Test
+    @DisplayName("测试控制器 - 阻塞型任务排队时自动增加线程")
+    public void testGrowUnderLoad() throws InterruptedException {
+        MyThreadPool pool = new MyThreadPool(1, 1, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle(), Thread::new);
+        int tasks = 400;
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            pool.execute(() -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        // 只有 1 个线程需要 8 秒
+        try (AdaptivePoolController controller = new AdaptivePoolController(pool, 1, 32, 50, 50, TimeUnit.MILLISECONDS)) {
+            controller.start();
+            assertTrue(done.await(5, TimeUnit.SECONDS), "控制器应该增加线程把排队的任务处理完");
+        }
+        assertTrue(pool.getMaximumPoolSize() > 1, "线程数应该增加: " + pool.getMaximumPoolSize());
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试参数校验")
+    public void testInvalidArguments() {
+        MyThreadPool pool = new MyThreadPool(1, 1, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle(), Thread::new);
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptivePoolController(pool, 0, 4, 100, 100, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptivePoolController(pool, 4, 2, 100, 100, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptivePoolController(pool, 1, 4, 0, 100, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptivePoolController(pool, 1, 4, 100, 0, TimeUnit.MILLISECONDS));
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,176 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * submit / invokeAll / invokeAny / MyCompletionService 测试类
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class FutureThreadPoolTest {
+
+    private static MyThreadPool newPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "Future-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+        return new MyThreadPool(threads, threads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle(), factory);
+    }
+
+    private static Callable<Integer> sleepThenReturn(long millis, int value) {
+        return () -> {
+            Thread.sleep(millis);
+            return value;
+        };
+    }
+
+    @Test
+    @DisplayName("测试 submit - 获取返回值和任务抛出的异常")
+    public void testSubmit() throws Exception {
+        MyThreadPool pool = newPool(2);
+        Future<Integer> ok = pool.submit(() -> 1 + 1);
+        assertEquals(2, ok.get(5, TimeUnit.SECONDS));
+        assertTrue(ok.isDone());
+        assertFalse(ok.isCancelled());
+
+        Future<Integer> failed = pool.submit(() -> {
+            throw new IllegalStateException("预期中的异常");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        AtomicInteger counter = new AtomicInteger();
+        Future<?> runnable = pool.submit(() -> {
+            counter.incrementAndGet();
+        });
+        assertNull(runnable.get(5, TimeUnit.SECONDS));
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    @DisplayName("测试 submit - 超时和取消正在执行的任务")
+    public void testTimeoutAndCancel() throws Exception {
+        MyThreadPool pool = newPool(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Future<Integer> future = pool.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertThrows(TimeoutException.class, () -> future.get(10, TimeUnit.MILLISECONDS));
+        assertTrue(future.cancel(true));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "取消时应该中断执行任务的线程");
+        assertTrue(future.isCancelled());
+        assertThrows(CancellationException.class, future::get);
+        assertFalse(future.cancel(true), "已经结束的任务不能再取消");
+
+        // 取消的中断被清除，工作线程没有因此退出，后面的任务照常执行
+        assertEquals(7, pool.submit(() -> 7).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("测试 invokeAll - 结果顺序与提交顺序一致")
+    public void testInvokeAll() throws Exception {
+        MyThreadPool pool = newPool(4);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(sleepThenReturn(20 - i, i));
+        }
+        tasks.add(() -> {
+            throw new IllegalStateException("预期中的异常");
+        });
+        List<Future<Integer>> futures = pool.invokeAll(tasks);
+        assertEquals(21, futures.size());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(futures.get(i).isDone());
+            assertEquals(i, futures.get(i).get());
+        }
+        assertThrows(ExecutionException.class, () -> futures.get(20).get());
+    }
+
+    @Test
+    @DisplayName("测试 invokeAll - 超时后取消没有结束的任务")
+    public void testInvokeAllTimeout() throws Exception {
+        MyThreadPool pool = newPool(2);
+        List<Future<Integer>> futures = pool.invokeAll(
+                Arrays.asList(sleepThenReturn(0, 1), sleepThenReturn(60_000, 2)), 200, TimeUnit.MILLISECONDS);
+        assertEquals(1, futures.get(0).get());
+        assertTrue(futures.get(1).isCancelled());
+    }
+
+    @Test
+    @DisplayName("测试 invokeAny - 返回最先成功的结果，全部失败时抛出 ExecutionException")
+    public void testInvokeAny() throws Exception {
+        MyThreadPool pool = newPool(4);
+        Callable<Integer> failing = () -> {
+            throw new IllegalStateException("预期中的异常");
+        };
+        assertEquals(3, pool.invokeAny(Arrays.asList(failing, sleepThenReturn(60_000, 2), sleepThenReturn(10, 3))));
+        assertThrows(ExecutionException.class, () -> pool.invokeAny(Arrays.asList(failing, failing)));
+        assertThrows(TimeoutException.class, () -> pool.invokeAny(
+                Collections.singletonList(sleepThenReturn(60_000, 1)), 50, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class, () -> pool.invokeAny(Collections.<Callable<Integer>>emptyList()));
+    }
+
+    @Test
+    @DisplayName("测试 MyCompletionService - 按完成顺序取结果")
+    public void testCompletionOrder() throws Exception {
+        MyThreadPool pool = newPool(4);
+        MyCompletionService<Integer> completionService = new MyCompletionService<>(pool);
+        // 提交顺序 0..3，耗时依次减少，完成顺序应该反过来
+        for (int i = 0; i < 4; i++) {
+            completionService.submit(sleepThenReturn((4 - i) * 100L, i));
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Future<Integer> future = completionService.poll(5, TimeUnit.SECONDS);
+            assertNotNull(future);
+            order.add(future.get());
+        }
+        assertEquals(Arrays.asList(3, 2, 1, 0), order);
+        assertNull(completionService.poll());
+    }
+
+    @Test
+    @DisplayName("测试虚拟线程模式下的 submit 和 invokeAll")
+    public void testVirtualThreadPool() throws Exception {
+        MyThreadPool pool = MyThreadPool.newVirtualThreadPool(1_000, new LinkedBlockingQueue<>(), new ThrowRejectHandle());
+        assertTrue(pool.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS));
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            tasks.add(sleepThenReturn(10, i));
+        }
+        List<Future<Integer>> futures = pool.invokeAll(tasks, 30, TimeUnit.SECONDS);
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).get());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * shutdown / shutdownNow / awaitTermination 测试类，三种调度模式都要覆盖
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class LifecycleThreadPoolTest {
+
+    private static MyThreadPool newPool(String mode, int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        switch (mode) {
+            case "SHARED":
+            case "WORK_STEALING":
+                return new MyThreadPool(threads, threads, 1, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity), new ThrowRejectHandle(),
+                        r -> new Thread(r, "Lifecycle-" + threadNumber.getAndIncrement()),
+                        "WORK_STEALING".equals(mode));
+            case "VIRTUAL":
+                return MyThreadPool.newVirtualThreadPool(threads,
+                        new ArrayBlockingQueue<>(queueCapacity), new ThrowRejectHandle());
+            default:
+                throw new IllegalArgumentException("未知的模式: " + mode);
+        }
+    }
+
+    private static Runnable awaiting(CountDownLatch latch, AtomicBoolean interrupted) {
+        return () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        };
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SHARED", "WORK_STEALING", "VIRTUAL"})
+    @DisplayName("测试 shutdown - 不再接受新任务，正在执行和排队的任务都执行完，不中断正在执行的任务")
+    public void testShutdownDrainsQueue(String mode) throws InterruptedException {
+        MyThreadPool pool = newPool(mode, 1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicInteger completed = new AtomicInteger();
+        pool.execute(() -> {
+            awaiting(release, interrupted).run();
+            completed.incrementAndGet();
+        });
+        for (int i = 0; i < 5; i++) {
+            pool.execute(completed::incrementAndGet);
+        }
+
+        pool.shutdown();
+        assertTrue(pool.isShutdown());
+        assertThrows(RuntimeException.class, () -> pool.execute(() -> { }), "shutdown 之后应该拒绝新任务");
+        assertFalse(pool.awaitTermination(50, TimeUnit.MILLISECONDS), "还有任务在执行，不应该终止");
+        assertFalse(pool.isTerminated());
+
+        release.countDown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS), "任务执行完后应该终止");
+        assertTrue(pool.isTerminated());
+        assertEquals(6, completed.get(), "排队的任务应该全部执行");
+        assertFalse(interrupted.get(), "shutdown 不应该中断正在执行的任务");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SHARED", "WORK_STEALING", "VIRTUAL"})
+    @DisplayName("测试 shutdown - 空闲的核心线程退出，线程池终止")
+    public void testShutdownIdlePool(String mode) throws InterruptedException {
+        MyThreadPool pool = newPool(mode, 4, 10);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            pool.execute(done::countDown);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // 等线程都进入空闲等待
+        Thread.sleep(50);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS), "空闲的线程应该被中断后退出");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SHARED", "WORK_STEALING", "VIRTUAL"})
+    @DisplayName("测试 shutdownNow - 返回没有执行的任务并中断正在执行的任务")
+    public void testShutdownNow(String mode) throws InterruptedException {
+        MyThreadPool pool = newPool(mode, 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        pool.execute(() -> {
+            started.countDown();
+            awaiting(never, interrupted).run();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            pool.execute(completed::incrementAndGet);
+        }
+
+        List<Runnable> pending = pool.shutdownNow();
+        assertEquals(5, pending.size(), "排队的任务应该原样返回");
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.get(), "shutdownNow 应该中断正在执行的任务");
+        assertEquals(0, completed.get());
+        assertThrows(RuntimeException.class, () -> pool.execute(() -> { }));
+    }
+
+    @Test
+    @DisplayName("测试工作窃取模式 - shutdown 之后正在执行的分治任务仍然可以提交子任务并执行完")
+    public void testShutdownWithForkingTasks() throws InterruptedException {
+        MyThreadPool pool = newPool("WORK_STEALING", 4, 16);
+        int depth = 12;
+        AtomicInteger leaves = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                spawn(depth);
+            }
+
+            private void spawn(int level) {
+                if (level == 0) {
+                    leaves.incrementAndGet();
+                    return;
+                }
+                pool.execute(() -> spawn(level - 1));
+                pool.execute(() -> spawn(level - 1));
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(1 << depth, leaves.get(), "所有子任务都应该执行完");
+    }
+
+    @Test
+    @DisplayName("测试 shutdown - 任务里调用 shutdown 不会中断自己")
+    public void testShutdownFromTask() throws InterruptedException {
+        MyThreadPool pool = newPool("SHARED", 2, 10);
+        AtomicBoolean interrupted = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(1);
+        pool.execute(() -> {
+            pool.shutdown();
+            interrupted.set(Thread.currentThread().isInterrupted());
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
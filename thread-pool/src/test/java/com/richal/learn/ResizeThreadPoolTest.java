@@ -0,0 +1,172 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 运行时调整线程数测试类
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class ResizeThreadPoolTest {
+
+    private static MyThreadPool newPool(String mode, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        if ("VIRTUAL".equals(mode)) {
+            return MyThreadPool.newVirtualThreadPool(threads, new LinkedBlockingQueue<>(), new ThrowRejectHandle());
+        }
+        return new MyThreadPool(threads, threads, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle(),
+                r -> new Thread(r, "Resize-" + threadNumber.getAndIncrement()),
+                "WORK_STEALING".equals(mode));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 提交 n 个任务，每个任务开始后阻塞到 release 打开，记录同时执行的最大任务数
+     */
+    private static void submitBlocking(MyThreadPool pool, int n, CountDownLatch release,
+                                       AtomicInteger running, AtomicInteger maxRunning, AtomicBoolean interrupted) {
+        for (int i = 0; i < n; i++) {
+            pool.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SHARED", "WORK_STEALING"})
+    @DisplayName("测试调小线程数 - 空闲的多余线程退出")
+    public void testShrinkIdle(String mode) throws InterruptedException {
+        MyThreadPool pool = newPool(mode, 4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            pool.execute(done::countDown);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(4, pool.getPoolSize());
+
+        pool.resize(1);
+        assertEquals(1, pool.getCorePoolSize());
+        assertEquals(1, pool.getMaximumPoolSize());
+        awaitCondition(() -> pool.getPoolSize() == 1, "多余的空闲线程应该退出");
+        assertEquals(4, pool.getCompletedTaskCount(), "退出线程的完成数不能丢");
+
+        // 剩下的线程照常工作
+        CountDownLatch after = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            pool.execute(after::countDown);
+        }
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        assertEquals(1, pool.getPoolSize());
+        pool.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SHARED", "WORK_STEALING"})
+    @DisplayName("测试调小线程数 - 不中断正在执行的任务，任务结束后多余的线程退出")
+    public void testShrinkBusy(String mode) throws InterruptedException {
+        MyThreadPool pool = newPool(mode, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        submitBlocking(pool, 4, release, running, new AtomicInteger(), interrupted);
+        awaitCondition(() -> running.get() == 4, "4 个任务应该同时执行");
+        assertEquals(4, pool.getActiveCount());
+
+        pool.resize(2);
+        Thread.sleep(50);
+        assertEquals(4, running.get(), "正在执行的任务不应该被打断");
+        release.countDown();
+        awaitCondition(() -> pool.getPoolSize() == 2, "任务结束后多余的线程应该退出");
+        assertFalse(interrupted.get());
+        pool.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"SHARED", "WORK_STEALING", "VIRTUAL"})
+    @DisplayName("测试调大线程数 - 立即处理排队的任务")
+    public void testGrow(String mode) throws InterruptedException {
+        MyThreadPool pool = newPool(mode, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        submitBlocking(pool, 4, release, running, maxRunning, new AtomicBoolean());
+        awaitCondition(() -> running.get() == 1, "第一个任务应该开始执行");
+        assertEquals(3, pool.getQueueSize());
+
+        pool.resize(4);
+        awaitCondition(() -> running.get() == 4, "排队的任务应该由新线程执行");
+        assertEquals(0, pool.getQueueSize());
+        release.countDown();
+        awaitCondition(() -> pool.getCompletedTaskCount() == 4, "任务应该全部完成");
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试虚拟线程模式 - 调小并发数上限，正在执行的任务结束后才生效")
+    public void testVirtualShrink() throws InterruptedException {
+        MyThreadPool pool = newPool("VIRTUAL", 3);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        submitBlocking(pool, 3, release, running, new AtomicInteger(), new AtomicBoolean());
+        awaitCondition(() -> running.get() == 3, "3 个任务应该同时执行");
+
+        pool.setMaximumPoolSize(1);
+        CountDownLatch second = new CountDownLatch(1);
+        AtomicInteger maxRunning = new AtomicInteger();
+        submitBlocking(pool, 5, second, running, maxRunning, new AtomicBoolean());
+        Thread.sleep(50);
+        assertEquals(3, running.get(), "许可被占满，新任务只能排队");
+
+        release.countDown();
+        awaitCondition(() -> running.get() == 1, "并发数应该降到新的上限");
+        maxRunning.set(1);
+        second.countDown();
+        awaitCondition(() -> pool.getCompletedTaskCount() == 8, "任务应该全部完成");
+        assertEquals(1, maxRunning.get(), "同时执行的任务数不应该超过新的上限");
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试参数校验")
+    public void testInvalidSize() {
+        MyThreadPool pool = newPool("SHARED", 2);
+        assertThrows(IllegalArgumentException.class, () -> pool.setCorePoolSize(3), "核心线程数不能超过最大线程数");
+        assertThrows(IllegalArgumentException.class, () -> pool.setCorePoolSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> pool.setMaximumPoolSize(1), "最大线程数不能小于核心线程数");
+        assertThrows(IllegalArgumentException.class, () -> pool.setMaximumPoolSize(0));
+        pool.shutdown();
+
+        MyThreadPool virtual = newPool("VIRTUAL", 2);
+        assertThrows(IllegalStateException.class, () -> virtual.setCorePoolSize(1));
+        assertThrows(IllegalArgumentException.class, () -> virtual.setMaximumPoolSize(0));
+        virtual.shutdown();
+    }
+}
@@ -0,0 +1,130 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 虚拟线程模式测试类
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class VirtualThreadPoolTest {
+
+    @Test
+    @DisplayName("测试虚拟线程模式 - 十万个阻塞任务同时运行")
+    public void testManyConcurrentBlockingTasks() throws InterruptedException {
+        int tasks = 100_000;
+        MyThreadPool pool = MyThreadPool.newVirtualThreadPool(tasks,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle());
+        CountDownLatch started = new CountDownLatch(tasks);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            pool.execute(() -> {
+                assertTrue(Thread.currentThread().isVirtual());
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                done.countDown();
+            });
+        }
+        // 所有任务都已经开始并阻塞住，说明它们同时在运行
+        assertTrue(started.await(60, TimeUnit.SECONDS), "所有任务都应该同时开始");
+        release.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS), "所有任务都应该执行完");
+    }
+
+    @Test
+    @DisplayName("测试虚拟线程模式 - 同时执行的任务数不超过上限，超出的排队执行")
+    public void testConcurrencyLimit() throws InterruptedException {
+        int limit = 8;
+        int tasks = 2_000;
+        MyThreadPool pool = MyThreadPool.newVirtualThreadPool(limit,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            pool.execute(() -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS), "排队的任务都应该执行完");
+        assertTrue(maxRunning.get() <= limit, "同时执行的任务数超过上限: " + maxRunning.get());
+        assertEquals(limit, maxRunning.get(), "应该达到并发上限");
+    }
+
+    @Test
+    @DisplayName("测试虚拟线程模式 - 达到并发上限且队列已满时执行拒绝策略")
+    public void testRejectWhenQueueFull() throws InterruptedException {
+        MyThreadPool pool = MyThreadPool.newVirtualThreadPool(1,
+                new ArrayBlockingQueue<>(1), new ThrowRejectHandle());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            done.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 占满队列
+        pool.execute(done::countDown);
+        assertThrows(RuntimeException.class, () -> pool.execute(() -> { }));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS), "排队的任务应该在许可归还后执行");
+    }
+
+    @Test
+    @DisplayName("测试虚拟线程模式 - 任务抛出异常后许可被归还")
+    public void testPermitReleasedOnException() throws InterruptedException {
+        MyThreadPool pool = MyThreadPool.newVirtualThreadPool(1,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle());
+        CountDownLatch done = new CountDownLatch(1);
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        // 屏蔽预期中的异常输出
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> { });
+        try {
+            pool.execute(() -> {
+                throw new IllegalStateException("预期中的异常");
+            });
+            pool.execute(done::countDown);
+            assertTrue(done.await(5, TimeUnit.SECONDS), "抛出异常的任务结束后后面的任务应该能执行");
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("测试虚拟线程模式 - 并发数上限必须大于 0")
+    public void testInvalidConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> MyThreadPool.newVirtualThreadPool(0,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle()));
+    }
+}
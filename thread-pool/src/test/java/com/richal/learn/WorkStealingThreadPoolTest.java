@@ -0,0 +1,133 @@
+package com.richal.learn;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 工作窃取模式测试类
+ *
+ * @author Richal
+ * @since 2025/08/10
+ */
+public class WorkStealingThreadPoolTest {
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return r -> {
+            Thread t = new Thread(r, prefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static MyThreadPool newStealingPool(int threads, RejectHandle rejectHandle, int queueCapacity) {
+        return new MyThreadPool(threads, threads, 1, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), rejectHandle, daemonFactory("Stealing-"), true);
+    }
+
+    @Test
+    @DisplayName("测试工作窃取模式 - 外部提交的任务全部执行")
+    public void testExternalSubmissions() throws InterruptedException {
+        MyThreadPool pool = new MyThreadPool(4, 4, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThrowRejectHandle(), daemonFactory("Stealing-"), true);
+        int tasks = 100_000;
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            pool.execute(done::countDown);
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS), "所有任务都应该执行完");
+    }
+
+    @Test
+    @DisplayName("测试工作窃取模式 - 任务内部提交的子任务压入自己的队列并被其他线程窃取")
+    public void testInternalSubmissionsAreStolen() throws InterruptedException {
+        MyThreadPool pool = newStealingPool(4, new ThrowRejectHandle(), 16);
+        int depth = 14;
+        int leaves = 1 << depth;
+        CountDownLatch done = new CountDownLatch(leaves);
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                spawn(depth);
+            }
+
+            // 二叉树展开：每个节点提交两个子节点，叶子计数
+            private void spawn(int level) {
+                if (level == 0) {
+                    done.countDown();
+                    return;
+                }
+                pool.execute(() -> spawn(level - 1));
+                pool.execute(() -> spawn(level - 1));
+            }
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS), "所有子任务都应该执行完");
+    }
+
+    @Test
+    @DisplayName("测试工作窃取模式 - 提交队列满时执行拒绝策略")
+    public void testRejectWhenSubmissionQueueFull() throws InterruptedException {
+        MyThreadPool pool = newStealingPool(1, new ThrowRejectHandle(), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        // 第一个任务占住唯一的线程，第二个进入提交队列，第三个被拒绝
+        pool.execute(blocking);
+        pool.execute(blocking);
+        assertThrows(RuntimeException.class, () -> pool.execute(blocking));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("测试工作窃取模式 - 线程因任务异常退出后，队列里剩下的任务仍然会被执行")
+    public void testTasksSurviveWorkerDeath() throws InterruptedException {
+        MyThreadPool pool = newStealingPool(2, new ThrowRejectHandle(), 16);
+        CountDownLatch done = new CountDownLatch(100);
+        pool.execute(() -> {
+            for (int i = 0; i < 100; i++) {
+                pool.execute(done::countDown);
+            }
+            throw new IllegalStateException("任务异常，线程退出");
+        });
+        // 再提交一个任务，保证有存活的线程来窃取
+        pool.execute(() -> { });
+        assertTrue(done.await(30, TimeUnit.SECONDS), "退出线程队列里的任务应该被其他线程偷走执行");
+    }
+
+    @Test
+    @DisplayName("测试工作窃取队列 - 所属线程后进先出，窃取者先进先出")
+    public void testDequeOrder() {
+        WorkStealingDeque deque = new WorkStealingDeque(4);
+        Runnable[] tasks = new Runnable[5];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = () -> { };
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(deque.push(tasks[i]));
+        }
+        assertFalse(deque.push(tasks[4]), "容量已满");
+        assertSame(tasks[0], deque.steal());
+        assertSame(tasks[3], deque.pop());
+        assertTrue(deque.push(tasks[4]));
+        assertSame(tasks[1], deque.steal());
+        assertSame(tasks[4], deque.pop());
+        assertSame(tasks[2], deque.pop());
+        assertNull(deque.pop());
+        assertNull(deque.steal());
+        assertTrue(deque.isEmpty());
+    }
+}